@@ -1,14 +1,43 @@
 package com.ducvu.backend_java.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class ClientConfig {
 
-  @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  // keep-alive pool dedicated to the vrp api, so a slow solver cannot starve other outbound calls
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager vrpConnectionManager(
+      @Value("${vrp.client.max-connections:20}") int maxConnections,
+      @Value("${vrp.client.connect-timeout-ms:2000}") long connectTimeoutMs) {
+    return PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(maxConnections)
+        .setMaxConnPerRoute(maxConnections)
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+            .build())
+        .build();
+  }
+
+  // retries and gzip are handled by VrpApiClient
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient vrpHttpClient(PoolingHttpClientConnectionManager vrpConnectionManager) {
+    return HttpClients.custom()
+        .setConnectionManager(vrpConnectionManager)
+        .disableAutomaticRetries()
+        .disableContentCompression()
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofSeconds(30))
+        .build();
   }
 }
@@ -0,0 +1,62 @@
+package com.ducvu.backend_java.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+  // categories are solved concurrently, mostly waiting on the solver so virtual threads are enough
+  @Bean(destroyMethod = "close")
+  public ExecutorService solverExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  // background dispatch jobs with a bounded queue so bursts are rejected instead of piling up
+  // overlapping dispatches never run together, the extra threads are for partial dispatches over disjoint scopes
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService dispatchExecutor(@Value("${dispatch.jobs.threads:4}") int threads,
+                                          @Value("${dispatch.jobs.queue-capacity:10}") int queueCapacity) {
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("dispatch-", 0).factory());
+  }
+
+  // solver tasks this node claimed from the shared queue, one platform thread per concurrent solve
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService solverWorkerExecutor(@Value("${dispatch.queue.worker.threads:2}") int threads) {
+    return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("solver-worker-", 0).factory());
+  }
+
+  // background re-optimization of running routes, one low priority thread so it never takes more than a core
+  // away from request handling and dispatches
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService optimizerExecutor() {
+    return Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("optimizer-", 0).priority(Thread.MIN_PRIORITY).daemon().factory());
+  }
+
+  // inserts of single orders into running routes, one thread keeps them from shifting the same route at once
+  // and a full queue leaves the orders to the dispatch scheduler
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService insertionExecutor(@Value("${dispatch.incremental.queue-capacity:1000}") int queueCapacity) {
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("insertion-", 0).daemon().factory());
+  }
+
+  // background feature computation of saved orders, a full queue leaves the rest to the periodic backfill
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService featureExecutor(@Value("${dispatch.features.queue-capacity:1000}") int queueCapacity) {
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("features-", 0).daemon().factory());
+  }
+}
@@ -2,8 +2,13 @@ package com.ducvu.backend_java.controller;
 
 
 import com.ducvu.backend_java.dto.ApiResponse;
+import com.ducvu.backend_java.dto.response.DispatchJobResponse;
+import com.ducvu.backend_java.dto.response.DispatchPreviewResponse;
 import com.ducvu.backend_java.dto.response.DispatchResponse;
 import com.ducvu.backend_java.dto.response.RouteResponse;
+import com.ducvu.backend_java.model.DispatchContext;
+import com.ducvu.backend_java.model.TrashCategory;
+import com.ducvu.backend_java.service.DispatchJobService;
 import com.ducvu.backend_java.service.DispatchService;
 import com.ducvu.backend_java.service.RouteService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,6 +18,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api")
@@ -21,6 +27,7 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class DispatchController {
   private final DispatchService dispatchService;
+  private final DispatchJobService dispatchJobService;
 
   @GetMapping("/dispatches/current")
   public ApiResponse<DispatchResponse> getCurrentDispatch() {
@@ -52,12 +59,87 @@ public class DispatchController {
         .build();
   }
 
+  // categories, depotIds and vehicleIds limit the dispatch to that slice of the fleet, all of them empty means everything
   @PostMapping("/dispatches")
-  public ApiResponse<Void> createDispatch() {
+  public ApiResponse<DispatchJobResponse> createDispatch(
+      @RequestParam(value = "solver", required = false) String solver,
+      @RequestParam(value = "bypassCache", defaultValue = "false") boolean bypassCache,
+      @RequestParam(value = "categories", required = false) Set<TrashCategory> categories,
+      @RequestParam(value = "depotIds", required = false) Set<String> depotIds,
+      @RequestParam(value = "vehicleIds", required = false) Set<String> vehicleIds) {
     log.info("Received create dispatches request");
-    dispatchService.createDispatch();
-    return ApiResponse.<Void>builder()
-        .message("Create dispatch successfully")
+    var result = dispatchJobService.submitDispatch(DispatchContext.builder()
+        .solverName(solver)
+        .useCache(!bypassCache)
+        .categories(categories != null ? categories : Set.of())
+        .depotIds(depotIds != null ? depotIds : Set.of())
+        .vehicleIds(vehicleIds != null ? vehicleIds : Set.of())
+        .build());
+    return ApiResponse.<DispatchJobResponse>builder()
+        .message("Dispatch job submitted successfully")
+        .result(result)
+        .build();
+  }
+
+  // plans like createDispatch but saves nothing, the finished job's preview token commits exactly this plan
+  @PostMapping("/dispatches/preview")
+  public ApiResponse<DispatchJobResponse> previewDispatch(
+      @RequestParam(value = "solver", required = false) String solver,
+      @RequestParam(value = "bypassCache", defaultValue = "false") boolean bypassCache,
+      @RequestParam(value = "categories", required = false) Set<TrashCategory> categories,
+      @RequestParam(value = "depotIds", required = false) Set<String> depotIds,
+      @RequestParam(value = "vehicleIds", required = false) Set<String> vehicleIds) {
+    log.info("Received preview dispatch request");
+    var result = dispatchJobService.submitPreview(DispatchContext.builder()
+        .solverName(solver)
+        .useCache(!bypassCache)
+        .categories(categories != null ? categories : Set.of())
+        .depotIds(depotIds != null ? depotIds : Set.of())
+        .vehicleIds(vehicleIds != null ? vehicleIds : Set.of())
+        .build());
+    return ApiResponse.<DispatchJobResponse>builder()
+        .message("Preview job submitted successfully")
+        .result(result)
+        .build();
+  }
+
+  @PostMapping("/dispatches/preview/{token}/commit")
+  public ApiResponse<DispatchResponse> commitPreview(@PathVariable("token") String token) {
+    log.info("Received commit dispatch preview request");
+    var result = dispatchJobService.commitPreview(token);
+    return ApiResponse.<DispatchResponse>builder()
+        .message("Commit dispatch preview successfully")
+        .result(result)
+        .build();
+  }
+
+  @GetMapping("/dispatches/jobs/{jobId}")
+  public ApiResponse<DispatchJobResponse> getDispatchJob(@PathVariable("jobId") String jobId) {
+    log.info("Received get dispatch job request");
+    var result = dispatchJobService.getDispatchJob(jobId);
+    return ApiResponse.<DispatchJobResponse>builder()
+        .message("Get dispatch job successfully")
+        .result(result)
+        .build();
+  }
+
+  @GetMapping("/dispatches/jobs/{jobId}/preview")
+  public ApiResponse<DispatchPreviewResponse> getPreviewJobResult(@PathVariable("jobId") String jobId) {
+    log.info("Received get preview job result request");
+    var result = dispatchJobService.getPreviewJobResult(jobId);
+    return ApiResponse.<DispatchPreviewResponse>builder()
+        .message("Get preview job result successfully")
+        .result(result)
+        .build();
+  }
+
+  @GetMapping("/dispatches/jobs/{jobId}/result")
+  public ApiResponse<DispatchResponse> getDispatchJobResult(@PathVariable("jobId") String jobId) {
+    log.info("Received get dispatch job result request");
+    var result = dispatchJobService.getDispatchJobResult(jobId);
+    return ApiResponse.<DispatchResponse>builder()
+        .message("Get dispatch job result successfully")
+        .result(result)
         .build();
   }
 
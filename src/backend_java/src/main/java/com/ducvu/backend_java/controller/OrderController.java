@@ -4,6 +4,7 @@ package com.ducvu.backend_java.controller;
 import com.ducvu.backend_java.dto.ApiResponse;
 import com.ducvu.backend_java.dto.request.OrderCreateRequest;
 import com.ducvu.backend_java.dto.request.OrderUpdateRequest;
+import com.ducvu.backend_java.dto.response.OrderCellResponse;
 import com.ducvu.backend_java.dto.response.OrderResponse;
 import com.ducvu.backend_java.repository.OrderRepository;
 import com.ducvu.backend_java.service.OrderService;
@@ -45,6 +46,16 @@ public class OrderController {
         .build();
   }
 
+  @GetMapping("/orders/pending/cells")
+  public ApiResponse<List<OrderCellResponse>> getPendingOrderCells() {
+    log.info("Received get pending order cells request");
+    var result = orderService.getPendingOrderCells();
+    return ApiResponse.<List<OrderCellResponse>>builder()
+        .message("Get pending order cells successfully")
+        .result(result)
+        .build();
+  }
+
   @GetMapping("/orders")
   public ApiResponse<List<OrderResponse>> getOrders() {
     log.info("Received get orders request");
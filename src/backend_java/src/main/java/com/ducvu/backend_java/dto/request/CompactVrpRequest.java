@@ -0,0 +1,69 @@
+package com.ducvu.backend_java.dto.request;
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// columnar form of VrpRequest for the /compact endpoint: no geometry, coordinates are flat [lat, lon, lat, lon, ...] arrays
+// steps of route i are the step rows routeOffsets[i] until routeOffsets[i + 1], same for the initial routes
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactVrpRequest {
+  @JsonProperty("depot_ids")
+  private List<String> depotIds;
+  @JsonProperty("depot_coords")
+  private double[] depotCoords;
+
+  @JsonProperty("vehicle_ids")
+  private List<String> vehicleIds;
+  @JsonProperty("vehicle_depot_ids")
+  private List<String> vehicleDepotIds;
+  @JsonProperty("vehicle_coords")
+  private double[] vehicleCoords;
+  @JsonProperty("vehicle_capacities")
+  private double[] vehicleCapacities;
+  @JsonProperty("vehicle_profiles")
+  private List<String> vehicleProfiles;
+
+  @JsonProperty("job_ids")
+  private List<String> jobIds;
+  @JsonProperty("job_coords")
+  private double[] jobCoords;
+  @JsonProperty("job_demands")
+  private double[] jobDemands;
+  @JsonProperty("job_statuses")
+  private List<String> jobStatuses;
+
+  @JsonProperty("route_vehicle_ids")
+  private List<String> routeVehicleIds;
+  @JsonProperty("route_offsets")
+  private int[] routeOffsets;
+  @JsonProperty("step_ids")
+  private List<String> stepIds;
+  @JsonProperty("step_coords")
+  private double[] stepCoords;
+  @JsonProperty("step_demands")
+  private double[] stepDemands;
+  @JsonProperty("step_statuses")
+  private List<String> stepStatuses;
+  @JsonProperty("route_locked_steps")
+  private int[] routeLockedSteps;
+
+  // previous plan, only job ids since the jobs themselves are already in the job rows
+  @JsonProperty("initial_route_vehicle_ids")
+  private List<String> initialRouteVehicleIds;
+  @JsonProperty("initial_route_offsets")
+  private int[] initialRouteOffsets;
+  @JsonProperty("initial_step_ids")
+  private List<String> initialStepIds;
+
+  @JsonProperty("time_limit_ms")
+  private Long timeLimitMs;
+}
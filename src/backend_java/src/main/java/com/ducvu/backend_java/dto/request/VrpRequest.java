@@ -5,6 +5,7 @@ import com.ducvu.backend_java.model.VrpDepot;
 import com.ducvu.backend_java.model.VrpJob;
 import com.ducvu.backend_java.model.VrpRoute;
 import com.ducvu.backend_java.model.VrpVehicle;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,5 +23,9 @@ public class VrpRequest {
   List<VrpVehicle> vehicles;
   List<VrpRoute> routes;
   List<VrpJob> jobs;
+  @JsonProperty("initial_routes")
+  List<VrpRoute> initialRoutes; // previous plan of the jobs, steps go behind each vehicle's locked steps before the search
+  @JsonProperty("time_limit_ms")
+  Long timeLimitMs; // time the solver may spend, null means its own default
 }
 
@@ -0,0 +1,31 @@
+package com.ducvu.backend_java.dto.response;
+
+import com.ducvu.backend_java.model.DispatchJobPhase;
+import com.ducvu.backend_java.model.TrashCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DispatchJobResponse {
+  private String id;
+  private DispatchJobPhase phase;
+  private String solver;
+  private String scope;
+  private String dispatchId;
+  private String previewToken;
+  private Integer totalCategories;
+  private Integer solvedCategories;
+  private Double progress; // 0..1
+  private Map<TrashCategory, Long> categoryTimings;
+  private String error;
+  private LocalDateTime createdAt;
+  private LocalDateTime completedAt;
+}
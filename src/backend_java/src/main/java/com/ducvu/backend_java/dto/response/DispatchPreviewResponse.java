@@ -0,0 +1,21 @@
+package com.ducvu.backend_java.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DispatchPreviewResponse {
+  private String token; // commits this plan without solving again
+  private LocalDateTime expiresAt;
+  private Boolean degraded;
+  private List<RouteResponse> routes; // not saved yet, so without id and dispatch
+  private List<String> unassignedOrderIds;
+}
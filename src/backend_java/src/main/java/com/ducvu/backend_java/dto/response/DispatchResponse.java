@@ -1,6 +1,8 @@
 package com.ducvu.backend_java.dto.response;
 
 import com.ducvu.backend_java.model.DispatchStatus;
+import com.ducvu.backend_java.model.RaceResult;
+import com.ducvu.backend_java.model.TrashCategory;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -8,6 +10,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,6 +19,8 @@ import java.util.List;
 public class DispatchResponse {
   private String id;
   private DispatchStatus status;
+  private boolean degraded;
+  private Map<TrashCategory, RaceResult> races;
   private LocalDateTime completedAt;
   private LocalDateTime createdAt;
   private LocalDateTime updatedAt;
@@ -0,0 +1,21 @@
+package com.ducvu.backend_java.dto.response;
+
+import com.ducvu.backend_java.model.TrashCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// pending orders of one category inside one map cell
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCellResponse {
+  private Long cellId;
+  private TrashCategory category;
+  private Double latitude; // centre of the cell
+  private Double longitude;
+  private Long orders;
+  private Double weight;
+}
@@ -26,4 +26,5 @@ public class RouteResponse {
   private LocalDateTime updatedAt;
   private Double duration;
   private List<List<Double>> coordinates;
+  private Boolean geometryStale;
 }
@@ -18,4 +18,5 @@ public class VrpResponse {
   private List<VrpRoute> routes;
   private List<VrpJob> unassigned;
   private String error;
+  private boolean degraded; // produced by the fallback solver, not the requested one
 }
@@ -0,0 +1,8 @@
+package com.ducvu.backend_java.exception;
+
+// data read for a dispatch changed while it was being solved
+public class DispatchConflictException extends RuntimeException {
+  public DispatchConflictException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,26 @@
+package com.ducvu.backend_java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// solver input of one trash category, mapped up-front so it can be solved off the request thread
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryProblem {
+  private TrashCategory category;
+  private List<VrpJob> jobs;
+
+  private List<VrpVehicle> threeWheelers;
+  private List<VrpDepot> threeWheelerDepots;
+  private List<VrpRoute> threeWheelerRoutes;
+
+  private List<VrpVehicle> compactorTrucks;
+  private List<VrpDepot> compactorTruckDepots;
+  private List<VrpRoute> compactorTruckRoutes;
+}
@@ -0,0 +1,21 @@
+package com.ducvu.backend_java.model;
+
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySolution {
+  private TrashCategory category;
+  private List<VrpResponse> responses; // one per solver call, in call order
+  private long solveTimeMs;
+  private boolean degraded; // at least one response came from the fallback solver
+  private RaceResult race; // null when only one strategy solved the category
+}
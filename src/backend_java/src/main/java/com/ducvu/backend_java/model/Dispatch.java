@@ -3,15 +3,20 @@ package com.ducvu.backend_java.model;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "dispatches")
@@ -31,6 +36,13 @@ public class Dispatch {
   @Enumerated(value = EnumType.STRING)
   private DispatchStatus status;
 
+  private Boolean degraded; // last solve fell back to the greedy solver for some category
+
+  @Type(JsonBinaryType.class)
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private Map<TrashCategory, RaceResult> races; // winning strategy of the last solve of each raced category
+
   private LocalDateTime completedAt;
 
   @CreationTimestamp
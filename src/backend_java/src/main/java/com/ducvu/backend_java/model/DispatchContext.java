@@ -0,0 +1,81 @@
+package com.ducvu.backend_java.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// inputs of one dispatch run, immutable so concurrent runs never share state
+// runs whose scopes are disjoint touch disjoint vehicles and orders and may run at the same time
+@Value
+@Builder(toBuilder = true)
+public class DispatchContext {
+  String solverName; // null means the configured default
+  boolean useCache; // false forces a fresh solve even when the same input was solved recently
+  String jobId; // background dispatch job for progress reporting, null if untracked
+
+  @Builder.Default
+  Set<TrashCategory> categories = Set.of(); // empty means every category
+
+  @Builder.Default
+  Set<String> depotIds = Set.of(); // empty means every depot
+
+  @Builder.Default
+  Set<String> vehicleIds = Set.of(); // empty means every vehicle in the categories and depots above
+
+  public static DispatchContext of(String solverName, boolean useCache, String jobId) {
+    return DispatchContext.builder()
+        .solverName(solverName)
+        .useCache(useCache)
+        .jobId(jobId)
+        .build();
+  }
+
+  public boolean covers(TrashCategory category) {
+    return categories.isEmpty() || categories.contains(category);
+  }
+
+  public boolean coversDepot(String depotId) {
+    return depotIds.isEmpty() || depotIds.contains(depotId);
+  }
+
+  public boolean covers(Vehicle vehicle) {
+    return covers(vehicle.getCategory()) && coversDepot(vehicle.getDepot() != null ? vehicle.getDepot().getId() : null)
+        && (vehicleIds.isEmpty() || vehicleIds.contains(vehicle.getId()));
+  }
+
+  // readable scope for job listings, "all" for a full dispatch
+  public String describeScope() {
+    List<String> parts = new ArrayList<>();
+    if (!categories.isEmpty()) {
+      parts.add("categories=" + new TreeSet<>(categories));
+    }
+    if (!depotIds.isEmpty()) {
+      parts.add("depots=" + new TreeSet<>(depotIds));
+    }
+    if (!vehicleIds.isEmpty()) {
+      parts.add("vehicles=" + new TreeSet<>(vehicleIds));
+    }
+    return parts.isEmpty() ? "all" : String.join(" ", parts);
+  }
+
+  // every vehicle and order of the other run is also in this one
+  public boolean contains(DispatchContext other) {
+    return (categories.isEmpty() || !other.categories.isEmpty() && categories.containsAll(other.categories))
+        && (depotIds.isEmpty() || !other.depotIds.isEmpty() && depotIds.containsAll(other.depotIds))
+        && (vehicleIds.isEmpty() || !other.vehicleIds.isEmpty() && vehicleIds.containsAll(other.vehicleIds));
+  }
+
+  // two runs overlap when they could pick the same vehicle or order
+  // vehicle scopes are resolved to their categories and depots first, two slices of one depot compete for its orders
+  public boolean overlaps(DispatchContext other) {
+    boolean categoriesOverlap = categories.isEmpty() || other.categories.isEmpty()
+        || categories.stream().anyMatch(other.categories::contains);
+    boolean depotsOverlap = depotIds.isEmpty() || other.depotIds.isEmpty()
+        || depotIds.stream().anyMatch(other.depotIds::contains);
+    return categoriesOverlap && depotsOverlap;
+  }
+}
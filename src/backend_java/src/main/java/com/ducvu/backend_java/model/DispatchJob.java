@@ -0,0 +1,56 @@
+package com.ducvu.backend_java.model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.type.SqlTypes;
+
+// background dispatch run, kept in memory while running and persisted once finished
+@Entity
+@Table(name = "dispatch_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class DispatchJob {
+  @Id
+  private String id; // assigned on submit so it can be polled before it is persisted
+
+  @Enumerated(value = EnumType.STRING)
+  private DispatchJobPhase phase;
+
+  private String solver;
+
+  private String scope; // "all" or the categories, depots and vehicles of a partial dispatch
+
+  private String dispatchId;
+
+  private String previewToken; // set once a preview job finished, commits its plan
+
+  private Integer totalCategories;
+
+  private Integer solvedCategories;
+
+  @Builder.Default
+  @Type(JsonBinaryType.class)
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "category_timings", columnDefinition = "jsonb")
+  private Map<TrashCategory, Long> categoryTimings = new HashMap<>(); // solve time in ms
+
+  @Column(columnDefinition = "text")
+  private String error;
+
+  private LocalDateTime createdAt;
+
+  private LocalDateTime completedAt;
+}
@@ -0,0 +1,10 @@
+package com.ducvu.backend_java.model;
+
+public enum DispatchJobPhase {
+  QUEUED,
+  LOADING,
+  SOLVING,
+  SAVING,
+  COMPLETED,
+  FAILED
+}
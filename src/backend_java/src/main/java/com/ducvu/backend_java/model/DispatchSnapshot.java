@@ -0,0 +1,24 @@
+package com.ducvu.backend_java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// detached view of everything a dispatch reads, taken in a short read transaction before solving
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchSnapshot {
+  private String dispatchId; // null when a new dispatch will be created
+  private List<CategoryProblem> problems;
+  private Set<String> pendingOrderIds; // orders sent as new jobs
+  private Map<String, Long> orderVersions; // pending orders and steps of in-progress routes
+  private Map<String, String> vehicleStates; // fingerprint of the fields the solver depends on
+  private boolean partial; // scoped to some categories, depots or vehicles, the rest of the dispatch is left as it is
+}
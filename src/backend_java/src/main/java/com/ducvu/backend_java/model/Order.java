@@ -24,6 +24,10 @@ public class Order {
 
   private Integer index;
 
+  @Version
+  @Column(columnDefinition = "bigint default 0") // rows seeded by data.sql start at 0
+  private Long version;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   private User user;
@@ -57,4 +61,7 @@ public class Order {
 
   @Enumerated(value = EnumType.STRING)
   private TrashCategory category;
+
+  @Embedded
+  private OrderFeatures features; // null until computed in the background
 }
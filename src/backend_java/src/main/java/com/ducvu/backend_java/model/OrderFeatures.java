@@ -0,0 +1,36 @@
+package com.ducvu.backend_java.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.type.SqlTypes;
+
+// spatial features of an order, computed in the background once it is saved
+// the depot fields are cleared whenever depots change and filled again by the next backfill
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFeatures {
+  private Long cellId; // GeoUtils cell of the order's location
+
+  private String nearestDepotId; // among the depots of the order's category
+
+  @Type(JsonBinaryType.class)
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private Map<String, Double> depotDistances; // haversine km to every depot of the order's category
+
+  private LocalDateTime computedAt; // null until computed, and again after depots changed
+}
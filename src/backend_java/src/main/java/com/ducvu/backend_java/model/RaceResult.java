@@ -0,0 +1,19 @@
+package com.ducvu.backend_java.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// outcome of solving one category with several strategies at once
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RaceResult {
+  private String winner; // strategy whose plan was kept
+  private String baseline; // strategy the dispatch would have used without racing
+  private Double gap; // distance saved by the winner relative to the baseline, null when the baseline did not finish
+  private int strategies;
+  private int finished; // strategies that returned a plan before the deadline, the rest were cancelled
+}
@@ -58,5 +58,7 @@ public class Route {
   @Column(name = "geometry", columnDefinition = "jsonb")
   private Geometry geometry;
 
+  private Boolean geometryStale; // stops were inserted after the geometry was drawn, it misses them
+
   private Double duration;
 }
@@ -0,0 +1,70 @@
+package com.ducvu.backend_java.model;
+
+import java.time.LocalDateTime;
+
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.type.SqlTypes;
+
+// one category solve of a dispatch, queued by the node running the dispatch and solved by whichever node claims it
+// a claim is a lease: a worker that dies mid-solve lets it run out and another worker takes the task over
+@Entity
+@Table(name = "solver_tasks", indexes = {
+    @Index(name = "idx_solver_tasks_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_solver_tasks_batch_id", columnList = "batch_id")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class SolverTask {
+  @Id
+  private String id;
+
+  @Version
+  private Long version;
+
+  private String batchId; // every task of one dispatch attempt
+
+  @Enumerated(value = EnumType.STRING)
+  private SolverTaskStatus status;
+
+  @Enumerated(value = EnumType.STRING)
+  private TrashCategory category;
+
+  private String solver;
+
+  private boolean useCache;
+
+  private Long budgetMs;
+
+  @Type(JsonBinaryType.class)
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private CategoryProblem problem;
+
+  @Type(JsonBinaryType.class)
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private CategorySolution solution;
+
+  private String leaseOwner; // worker id of the current claim
+
+  private LocalDateTime leaseExpiresAt;
+
+  private Integer attempts;
+
+  @Column(columnDefinition = "text")
+  private String error;
+
+  private LocalDateTime createdAt;
+
+  private LocalDateTime completedAt;
+}
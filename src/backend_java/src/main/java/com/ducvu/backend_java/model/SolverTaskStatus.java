@@ -0,0 +1,8 @@
+package com.ducvu.backend_java.model;
+
+public enum SolverTaskStatus {
+  QUEUED,
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
@@ -37,6 +37,10 @@ public class Vehicle {
 
   private String licensePlate;
 
+  @Version
+  @Column(columnDefinition = "bigint default 0") // rows seeded by data.sql start at 0
+  private Long version;
+
   private Double capacity;
 
   private Double currentLatitude;
@@ -1,12 +1,14 @@
 package com.ducvu.backend_java.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -17,4 +19,6 @@ public class VrpJob {
   private List<Double> location;
   private Double demand;
   private String status; // completed, in_progress, pending
+  @JsonIgnore
+  private Map<String, Double> depotDistances; // precomputed km to the depots of the order's category, never sent to a solver
 }
@@ -20,4 +20,6 @@ public class VrpRoute {
   private Double distance;
   private Double duration;
   private Geometry geometry;
+  @JsonProperty("locked_steps")
+  private Integer lockedSteps; // leading steps the solver keeps as they are, null means only the completed ones
 }
@@ -0,0 +1,9 @@
+package com.ducvu.backend_java.repository;
+
+import com.ducvu.backend_java.model.DispatchJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DispatchJobRepository extends JpaRepository<DispatchJob, String> {
+}
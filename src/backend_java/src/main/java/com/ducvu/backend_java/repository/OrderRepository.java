@@ -1,12 +1,20 @@
 package com.ducvu.backend_java.repository;
 
 import com.ducvu.backend_java.model.Order;
+import com.ducvu.backend_java.model.OrderStatus;
+import com.ducvu.backend_java.model.TrashCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
@@ -19,9 +27,56 @@ public interface OrderRepository extends JpaRepository<Order, String> {
   @NativeQuery("SELECT * FROM orders o WHERE o.status = 'PENDING' ORDER BY o.created_at ASC")
   List<Order> findAllPendingOrdersSorted();
 
+  @NativeQuery("SELECT * FROM orders o WHERE o.status = 'PENDING' AND o.category IN (:categories) ORDER BY o.created_at ASC")
+  List<Order> findAllPendingOrdersByCategoryInSorted(@Param("categories") Collection<String> categories);
+
   @NativeQuery("SELECT * FROM orders o ORDER BY o.created_at ASC")
   List<Order> findAllOrdersSorted();
 
-  @NativeQuery("SELECT * FROM orders o WHERE o.status = 'PENDING' OR o.status = 'REASSIGNMENT_PENDING' ORDER BY o.created_at ASC")
+  @NativeQuery("SELECT * FROM orders o WHERE o.status = 'PENDING' OR o.status = 'REASSIGNED' ORDER BY o.created_at ASC")
   List<Order> findAllPendingOrdersAndReassignmentPendingSorted();
+
+  @NativeQuery("SELECT * FROM orders o WHERE (o.status = 'PENDING' OR o.status = 'REASSIGNED') AND o.category IN (:categories) ORDER BY o.created_at ASC")
+  List<Order> findAllPendingOrdersAndReassignmentPendingByCategoryInSorted(@Param("categories") Collection<String> categories);
+
+  List<Order> findByStatusIn(Collection<OrderStatus> statuses);
+
+  // features are derived data: written without bumping the version so a dispatch that read the order is not made
+  // stale by them, and skipped when the order moved or changed category since they were computed
+  @Modifying
+  @Query("UPDATE Order o SET o.features.cellId = :cellId, o.features.nearestDepotId = :nearestDepotId, "
+      + "o.features.depotDistances = :depotDistances, o.features.computedAt = :computedAt "
+      + "WHERE o.id = :id AND o.latitude = :latitude AND o.longitude = :longitude AND o.category = :category")
+  int saveFeatures(@Param("id") String id, @Param("latitude") Double latitude, @Param("longitude") Double longitude,
+                   @Param("category") TrashCategory category, @Param("cellId") Long cellId,
+                   @Param("nearestDepotId") String nearestDepotId,
+                   @Param("depotDistances") Map<String, Double> depotDistances,
+                   @Param("computedAt") LocalDateTime computedAt);
+
+  // the cell only depends on the order's location and stays
+  @Modifying
+  @Query("UPDATE Order o SET o.features.nearestDepotId = NULL, o.features.depotDistances = NULL, "
+      + "o.features.computedAt = NULL WHERE o.features.computedAt IS NOT NULL")
+  int clearDepotFeatures();
+
+  @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.features.computedAt IS NULL ORDER BY o.createdAt")
+  List<String> findIdsWithoutFeatures(@Param("statuses") Collection<OrderStatus> statuses, Pageable pageable);
+
+  @Query("SELECT o.features.cellId AS cellId, o.category AS category, COUNT(o) AS orders, SUM(o.weight) AS weight "
+      + "FROM Order o WHERE o.status = :status AND o.features.cellId IS NOT NULL "
+      + "GROUP BY o.features.cellId, o.category")
+  List<OrderCellCount> countByCell(@Param("status") OrderStatus status);
+
+  @Query("SELECT o FROM Order o WHERE o.status = :status AND o.features.cellId IS NULL")
+  List<Order> findWithoutCell(@Param("status") OrderStatus status);
+
+  interface OrderCellCount {
+    Long getCellId();
+
+    TrashCategory getCategory();
+
+    Long getOrders();
+
+    Double getWeight();
+  }
 }
@@ -1,9 +1,11 @@
 package com.ducvu.backend_java.repository;
 
 import com.ducvu.backend_java.model.Route;
+import com.ducvu.backend_java.model.RouteStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +14,5 @@ public interface RouteRepository extends JpaRepository<Route, String> {
   List<Route> findByVehicleId(String vehicleId);
   List<Route> findByDispatchId(String dispatchId);
   Optional<Route> findByDispatchIdAndVehicleId(String dispatchId, String vehicleId);
+  List<Route> findByStatusAndVehicleIdIn(RouteStatus status, Collection<String> vehicleIds); // backed by idx_routes_in_progress_vehicle
 }
@@ -0,0 +1,24 @@
+package com.ducvu.backend_java.repository;
+
+import com.ducvu.backend_java.model.SolverTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SolverTaskRepository extends JpaRepository<SolverTask, String> {
+  // oldest task that is queued or whose lease ran out, rows locked by other workers are skipped instead of waited on
+  String CLAIM_NEXT = "SELECT * FROM solver_tasks t WHERE t.status = 'QUEUED' "
+      + "OR (t.status = 'RUNNING' AND t.lease_expires_at < :now) "
+      + "ORDER BY t.created_at ASC LIMIT 1 FOR UPDATE SKIP LOCKED";
+
+  @NativeQuery(CLAIM_NEXT)
+  Optional<SolverTask> claimNext(@Param("now") LocalDateTime now);
+
+  List<SolverTask> findByBatchId(String batchId);
+}
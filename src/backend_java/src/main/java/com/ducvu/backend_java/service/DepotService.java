@@ -24,6 +24,7 @@ public class DepotService {
   private final VehicleRepository vehicleRepository;
   private final Validator validator;
   private final Mapper mapper;
+  private final OrderFeatureService orderFeatureService;
 
   public DepotResponse getDepotById(String depotId) {
     Depot depot = depotRepository.findById(depotId)
@@ -55,7 +56,9 @@ public class DepotService {
       );
     }
 
-    return mapper.map(depotRepository.save(depot));
+    DepotResponse response = mapper.map(depotRepository.save(depot));
+    orderFeatureService.depotsChanged();
+    return response;
   }
 
   public DepotResponse createDepot(DepotCreateRequest request) {
@@ -68,7 +71,9 @@ public class DepotService {
         .category(request.getCategory())
         .build();
 
-    return mapper.map(depotRepository.save(depot));
+    DepotResponse response = mapper.map(depotRepository.save(depot));
+    orderFeatureService.depotsChanged();
+    return response;
   }
 
   public void deleteDepot(String depotId) {
@@ -80,6 +85,7 @@ public class DepotService {
     }
 
     depotRepository.deleteById(depotId);
+    orderFeatureService.depotsChanged();
   }
 
 }
@@ -0,0 +1,120 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.DispatchJobResponse;
+import com.ducvu.backend_java.model.CategorySolution;
+import com.ducvu.backend_java.model.DispatchJob;
+import com.ducvu.backend_java.model.DispatchJobPhase;
+import com.ducvu.backend_java.repository.DispatchJobRepository;
+import com.ducvu.backend_java.util.Mapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// bounded in-memory state of dispatch jobs, finished jobs are persisted and evicted oldest first
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchJobRegistry {
+  private final DispatchJobRepository dispatchJobRepository;
+  private final Mapper mapper;
+  private final Map<String, DispatchJob> jobs = new LinkedHashMap<>();
+
+  @Value("${dispatch.jobs.max-entries:100}")
+  private int maxEntries;
+
+  public synchronized void register(DispatchJob job) {
+    jobs.put(job.getId(), job);
+    evict();
+  }
+
+  public synchronized void remove(String jobId) {
+    jobs.remove(jobId);
+  }
+
+  // all updates below are no-ops for untracked (synchronous) dispatches
+  public synchronized void updatePhase(String jobId, DispatchJobPhase phase) {
+    DispatchJob job = jobId != null ? jobs.get(jobId) : null;
+    if (job != null) {
+      job.setPhase(phase);
+    }
+  }
+
+  public synchronized void startSolving(String jobId, int totalCategories) {
+    DispatchJob job = jobId != null ? jobs.get(jobId) : null;
+    if (job != null) {
+      job.setPhase(DispatchJobPhase.SOLVING);
+      job.setTotalCategories(totalCategories);
+      job.setSolvedCategories(0);
+    }
+  }
+
+  public synchronized void categorySolved(String jobId, CategorySolution solution) {
+    DispatchJob job = jobId != null ? jobs.get(jobId) : null;
+    if (job != null) {
+      job.getCategoryTimings().put(solution.getCategory(), solution.getSolveTimeMs());
+      job.setSolvedCategories(job.getSolvedCategories() + 1);
+    }
+  }
+
+  public void complete(String jobId, String dispatchId) {
+    finish(jobId, DispatchJobPhase.COMPLETED, dispatchId, null, null);
+  }
+
+  public void completePreview(String jobId, String previewToken) {
+    finish(jobId, DispatchJobPhase.COMPLETED, null, previewToken, null);
+  }
+
+  public void fail(String jobId, String error) {
+    finish(jobId, DispatchJobPhase.FAILED, null, null, error);
+  }
+
+  public Optional<DispatchJobResponse> find(String jobId) {
+    synchronized (this) {
+      DispatchJob job = jobs.get(jobId);
+      if (job != null) {
+        return Optional.of(mapper.map(job));
+      }
+    }
+    return dispatchJobRepository.findById(jobId).map(mapper::map);
+  }
+
+  private void finish(String jobId, DispatchJobPhase phase, String dispatchId, String previewToken, String error) {
+    DispatchJob snapshot;
+    synchronized (this) {
+      DispatchJob job = jobs.get(jobId);
+      if (job == null) {
+        return;
+      }
+      job.setPhase(phase);
+      job.setDispatchId(dispatchId);
+      job.setPreviewToken(previewToken);
+      job.setError(error);
+      job.setCompletedAt(LocalDateTime.now());
+      snapshot = job.toBuilder().categoryTimings(new LinkedHashMap<>(job.getCategoryTimings())).build();
+    }
+
+    try {
+      dispatchJobRepository.save(snapshot);
+    } catch (Exception e) {
+      log.error("Failed to persist dispatch job {}", jobId, e);
+    }
+  }
+
+  // drop the oldest finished jobs once over capacity, running ones are always kept
+  private void evict() {
+    Iterator<DispatchJob> iterator = jobs.values().iterator();
+    while (jobs.size() > maxEntries && iterator.hasNext()) {
+      DispatchJobPhase phase = iterator.next().getPhase();
+      if (phase == DispatchJobPhase.COMPLETED || phase == DispatchJobPhase.FAILED) {
+        iterator.remove();
+      }
+    }
+  }
+}
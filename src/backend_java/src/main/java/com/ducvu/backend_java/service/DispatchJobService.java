@@ -0,0 +1,190 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.DispatchJobResponse;
+import com.ducvu.backend_java.dto.response.DispatchPreviewResponse;
+import com.ducvu.backend_java.dto.response.DispatchResponse;
+import com.ducvu.backend_java.exception.DispatchConflictException;
+import com.ducvu.backend_java.model.DispatchContext;
+import com.ducvu.backend_java.model.DispatchJob;
+import com.ducvu.backend_java.model.DispatchJobPhase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// runs dispatches and previews in the background so request threads return right away
+// single-flight per scope: a trigger whose scope is inside a queued or running dispatch joins it, one that only
+// partly overlaps is refused, and dispatches over disjoint scopes run side by side
+// previews write nothing and take no slot, committing one takes its scope's slot like a dispatch
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchJobService {
+  private final DispatchService dispatchService;
+  private final DispatchJobRegistry dispatchJobRegistry;
+  private final ExecutorService dispatchExecutor;
+
+  private final Map<String, DispatchContext> inFlight = new LinkedHashMap<>(); // job id to scope, guarded by this
+
+  public DispatchJobResponse submitDispatch(String solverName, boolean useCache) {
+    return submitDispatch(DispatchContext.of(solverName, useCache, null));
+  }
+
+  public DispatchJobResponse submitDispatch(DispatchContext request) {
+    DispatchContext scope = dispatchService.resolveScope(request);
+    synchronized (this) {
+      for (Map.Entry<String, DispatchContext> entry : inFlight.entrySet()) {
+        if (entry.getValue().contains(scope)) {
+          log.info("Dispatch job {} is already in flight, joining it", entry.getKey());
+          return getDispatchJob(entry.getKey());
+        }
+        if (entry.getValue().overlaps(scope)) {
+          throw new DispatchConflictException("Dispatch job " + entry.getKey() + " is running on an overlapping scope ("
+              + entry.getValue().describeScope() + "), try again once it is done");
+        }
+      }
+
+      DispatchJob job = newJob(scope, DispatchJobPhase.QUEUED);
+      DispatchContext context = scope.toBuilder().jobId(job.getId()).build();
+
+      dispatchJobRegistry.register(job);
+      try {
+        dispatchExecutor.submit(() -> runDispatch(context));
+      } catch (RejectedExecutionException e) {
+        dispatchJobRegistry.remove(job.getId());
+        throw new RuntimeException("Too many dispatches queued, try again later");
+      }
+      inFlight.put(job.getId(), context);
+
+      return getDispatchJob(job.getId());
+    }
+  }
+
+  // solves like a dispatch without saving, the finished job carries the token for getPreviewJobResult and commitPreview
+  public DispatchJobResponse submitPreview(DispatchContext request) {
+    DispatchContext scope = dispatchService.resolveScope(request);
+    DispatchJob job = newJob(scope, DispatchJobPhase.QUEUED);
+    DispatchContext context = scope.toBuilder().jobId(job.getId()).build();
+
+    dispatchJobRegistry.register(job);
+    try {
+      dispatchExecutor.submit(() -> runPreview(context));
+    } catch (RejectedExecutionException e) {
+      dispatchJobRegistry.remove(job.getId());
+      throw new RuntimeException("Too many dispatches queued, try again later");
+    }
+    return getDispatchJob(job.getId());
+  }
+
+  public DispatchPreviewResponse getPreviewJobResult(String jobId) {
+    DispatchJobResponse job = getDispatchJob(jobId);
+
+    if (job.getPhase() == DispatchJobPhase.FAILED) {
+      throw new RuntimeException("Dispatch job failed: " + job.getError());
+    }
+
+    if (job.getPhase() != DispatchJobPhase.COMPLETED || job.getPreviewToken() == null) {
+      throw new RuntimeException("Preview job is not completed");
+    }
+
+    return dispatchService.getPreview(job.getPreviewToken());
+  }
+
+  // saving is short so it runs on the request thread, but only once no dispatch over an overlapping scope is in
+  // flight, and dispatches triggered meanwhile join or wait for this commit like for any other dispatch
+  public DispatchResponse commitPreview(String token) {
+    DispatchContext scope = dispatchService.getPreviewScope(token);
+    DispatchJob job = newJob(scope, DispatchJobPhase.SAVING);
+    synchronized (this) {
+      for (Map.Entry<String, DispatchContext> entry : inFlight.entrySet()) {
+        if (entry.getValue().overlaps(scope)) {
+          throw new DispatchConflictException("Dispatch job " + entry.getKey() + " is running on an overlapping scope ("
+              + entry.getValue().describeScope() + "), commit the preview once it is done");
+        }
+      }
+      dispatchJobRegistry.register(job);
+      inFlight.put(job.getId(), scope);
+    }
+
+    try {
+      DispatchResponse dispatch = dispatchService.commitPreview(token);
+      dispatchJobRegistry.complete(job.getId(), dispatch.getId());
+      return dispatch;
+    } catch (RuntimeException e) {
+      dispatchJobRegistry.fail(job.getId(), e.getMessage());
+      throw e;
+    } finally {
+      landed(job.getId());
+    }
+  }
+
+  public synchronized boolean isDispatchInFlight() {
+    return !inFlight.isEmpty();
+  }
+
+  public DispatchJobResponse getDispatchJob(String jobId) {
+    return dispatchJobRegistry.find(jobId)
+        .orElseThrow(() -> new RuntimeException("Dispatch job not found"));
+  }
+
+  public DispatchResponse getDispatchJobResult(String jobId) {
+    DispatchJobResponse job = getDispatchJob(jobId);
+
+    if (job.getPhase() == DispatchJobPhase.FAILED) {
+      throw new RuntimeException("Dispatch job failed: " + job.getError());
+    }
+
+    if (job.getPhase() != DispatchJobPhase.COMPLETED) {
+      throw new RuntimeException("Dispatch job is not completed");
+    }
+
+    return dispatchService.getDispatchById(job.getDispatchId());
+  }
+
+  private void runDispatch(DispatchContext context) {
+    String jobId = context.getJobId();
+    try {
+      DispatchResponse dispatch = dispatchService.createDispatch(context);
+      dispatchJobRegistry.complete(jobId, dispatch.getId());
+      log.info("Dispatch job {} completed", jobId);
+    } catch (Exception e) {
+      log.error("Dispatch job {} failed", jobId, e);
+      dispatchJobRegistry.fail(jobId, e.getMessage());
+    } finally {
+      landed(jobId);
+    }
+  }
+
+  private void runPreview(DispatchContext context) {
+    String jobId = context.getJobId();
+    try {
+      DispatchPreviewResponse preview = dispatchService.previewDispatch(context);
+      dispatchJobRegistry.completePreview(jobId, preview.getToken());
+      log.info("Preview job {} completed", jobId);
+    } catch (Exception e) {
+      log.error("Preview job {} failed", jobId, e);
+      dispatchJobRegistry.fail(jobId, e.getMessage());
+    }
+  }
+
+  private static DispatchJob newJob(DispatchContext scope, DispatchJobPhase phase) {
+    return DispatchJob.builder()
+        .id(UUID.randomUUID().toString())
+        .phase(phase)
+        .solver(scope.getSolverName())
+        .scope(scope.describeScope())
+        .solvedCategories(0)
+        .createdAt(LocalDateTime.now())
+        .build();
+  }
+
+  private synchronized void landed(String jobId) {
+    inFlight.remove(jobId);
+  }
+}
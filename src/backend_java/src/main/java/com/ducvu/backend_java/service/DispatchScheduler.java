@@ -0,0 +1,121 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.Order;
+import com.ducvu.backend_java.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// batches new pending orders and starts a dispatch once enough orders or weight piled up, or the oldest one waited
+// too long, whichever comes first; runs through DispatchJobService so it coalesces with manual dispatches
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchScheduler {
+  private final DispatchJobService dispatchJobService;
+  private final OrderRepository orderRepository;
+
+  @Value("${dispatch.scheduler.enabled:false}")
+  private boolean enabled;
+
+  @Value("${dispatch.scheduler.max-orders:50}")
+  private int maxOrders;
+
+  @Value("${dispatch.scheduler.max-weight:2000}")
+  private double maxWeight;
+
+  @Value("${dispatch.scheduler.max-wait-ms:900000}")
+  private long maxWaitMs;
+
+  private int batchOrders; // guarded by this
+  private double batchWeight;
+  private long batchStartedAt;
+
+  // orders left pending by the previous run are batched again so they are not forgotten until the next order comes in
+  @PostConstruct
+  public void loadPendingOrders() {
+    if (!enabled) {
+      return;
+    }
+    List<Order> pending = orderRepository.findAllPendingOrdersSorted();
+    synchronized (this) {
+      pending.forEach(this::add);
+    }
+    log.info("Dispatch scheduler started with {} pending orders", pending.size());
+  }
+
+  // called for every order that is waiting for a dispatch, new or given back by a driver
+  public void orderPending(Order order) {
+    if (!enabled) {
+      return;
+    }
+    boolean full;
+    synchronized (this) {
+      add(order);
+      full = batchOrders >= maxOrders || batchWeight >= maxWeight;
+    }
+    if (full) {
+      fire("batch is full");
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${dispatch.scheduler.tick-ms:10000}")
+  public void tick() {
+    if (!enabled) {
+      return;
+    }
+    boolean full;
+    boolean overdue;
+    synchronized (this) {
+      full = batchOrders >= maxOrders || batchWeight >= maxWeight;
+      overdue = batchOrders > 0 && System.currentTimeMillis() - batchStartedAt >= maxWaitMs;
+    }
+    if (full) {
+      fire("batch is full");
+    } else if (overdue) {
+      fire("oldest order waited " + maxWaitMs + " ms");
+    }
+  }
+
+  private void add(Order order) {
+    if (batchOrders == 0) {
+      batchStartedAt = System.currentTimeMillis();
+    }
+    batchOrders++;
+    batchWeight += order.getWeight() != null ? order.getWeight() : 0.0;
+  }
+
+  // while a dispatch is in flight the batch is kept, the next tick after it lands decides again
+  private void fire(String reason) {
+    if (dispatchJobService.isDispatchInFlight()) {
+      return;
+    }
+    int orders;
+    double weight;
+    synchronized (this) {
+      orders = batchOrders;
+      weight = batchWeight;
+      batchOrders = 0;
+      batchWeight = 0.0;
+    }
+    if (orders == 0) {
+      return; // another thread fired first
+    }
+
+    try {
+      log.info("Starting automatic dispatch for {} orders, {}", orders, reason);
+      dispatchJobService.submitDispatch(null, true);
+    } catch (RuntimeException e) {
+      log.warn("Automatic dispatch could not be started: {}", e.getMessage());
+      synchronized (this) {
+        batchOrders += orders;
+        batchWeight += weight;
+      }
+    }
+  }
+}
@@ -1,20 +1,33 @@
 package com.ducvu.backend_java.service;
 
 import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.DispatchPreviewResponse;
 import com.ducvu.backend_java.dto.response.DispatchResponse;
+import com.ducvu.backend_java.dto.response.RouteResponse;
 import com.ducvu.backend_java.dto.response.VrpResponse;
 import com.ducvu.backend_java.model.*;
 import com.ducvu.backend_java.repository.*;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.StopMerger;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import com.ducvu.backend_java.util.GeoUtils;
 import com.ducvu.backend_java.util.Mapper;
-import jakarta.transaction.Transactional;
+import com.ducvu.backend_java.exception.DispatchConflictException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,14 +40,33 @@ public class DispatchService {
   private final DepotRepository depotRepository;
   private final RouteRepository routeRepository;
   private final Mapper mapper;
-  private final RestTemplate restTemplate;
+  private final VrpSolverProvider vrpSolverProvider;
+  private final DispatchSolver dispatchSolver;
+  private final SolverTaskQueue solverTaskQueue;
+  private final PendingOrderBook pendingOrderBook;
+  private final DispatchJobRegistry dispatchJobRegistry;
   private final NotificationService notificationService;
-  private final List<Order> ordersToNotify = new ArrayList<>();
-  private final List<Route> routesToNotify = new ArrayList<>();
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
 
-  @Value("${vrp.api-url}")
-  private String vrpApiUrl;
+  private final Map<TrashCategory, SpeculativePlan> speculativePlans = new ConcurrentHashMap<>();
 
+  @Value("${dispatch.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${dispatch.time-budget-ms:60000}")
+  private long timeBudgetMs;
+
+  @Value("${dispatch.queue.enabled:false}")
+  private boolean queueEnabled;
+
+  @Value("${dispatch.preview.ttl-ms:600000}")
+  private long previewTtlMs;
+
+  @Value("${dispatch.preview.max-entries:20}")
+  private int previewMaxEntries;
+
+  private final Map<String, Preview> previews = new LinkedHashMap<>(); // by token, oldest first, guarded by itself
 
   public DispatchResponse markDispatchAsDone(String dispatchId) {
     Dispatch dispatch = dispatchRepository.findById(dispatchId)
@@ -67,37 +99,319 @@ public class DispatchService {
         .toList();
   }
 
-  @Transactional
-  public void createDispatch() {
-    Dispatch runningDispatch = dispatchRepository.findActiveDispatch()
-        .orElse(null);
+  // no transaction is held while solving: snapshot in a read transaction, solve, then apply in a short write transaction
+  // all per-run state lives in the context, snapshot and working set, so runs with disjoint scopes can overlap
+  public DispatchResponse createDispatch(DispatchContext context) {
+    VrpSolver solver = vrpSolverProvider.getSolver(context.getSolverName());
+    String jobId = context.getJobId();
+
+    for (int attempt = 1; ; attempt++) {
+      dispatchJobRegistry.updatePhase(jobId, DispatchJobPhase.LOADING);
+      DispatchSnapshot snapshot = readOnlyTransactionTemplate.execute(status -> takeSnapshot(context));
+      List<CategorySolution> solutions = solve(context, solver, snapshot);
+
+      dispatchJobRegistry.updatePhase(jobId, DispatchJobPhase.SAVING);
+      try {
+        return committed(snapshot, saveWithRetry(snapshot, solutions, false));
+      } catch (DispatchConflictException e) {
+        if (attempt >= maxAttempts) {
+          throw new RuntimeException("Dispatch conflicts with concurrent changes, try again");
+        }
+        log.warn("Dispatch attempt {} is stale, solving again: {}", attempt, e.getMessage());
+      }
+    }
+  }
 
-    boolean isDynamic = runningDispatch != null;
+  // runs the whole pipeline without writing anything and keeps the plan under a token for commitPreview
+  // called from a DispatchJobService job like createDispatch, the job then carries the token
+  public DispatchPreviewResponse previewDispatch(DispatchContext context) {
+    VrpSolver solver = vrpSolverProvider.getSolver(context.getSolverName());
+    dispatchJobRegistry.updatePhase(context.getJobId(), DispatchJobPhase.LOADING);
+    DispatchSnapshot snapshot = readOnlyTransactionTemplate.execute(status -> takeSnapshot(context));
+    List<CategorySolution> solutions = solve(context, solver, snapshot);
+
+    Preview preview = new Preview(UUID.randomUUID().toString(), context, snapshot, solutions,
+        LocalDateTime.now().plusNanos(previewTtlMs * 1_000_000));
+    synchronized (previews) {
+      previews.values().removeIf(p -> p.expiresAt().isBefore(LocalDateTime.now()));
+      previews.put(preview.token(), preview);
+      Iterator<String> eldest = previews.keySet().iterator();
+      while (previews.size() > previewMaxEntries && eldest.hasNext()) {
+        eldest.next();
+        eldest.remove();
+      }
+    }
+    return readOnlyTransactionTemplate.execute(status -> mapPreview(preview));
+  }
 
-    // if new dispatch then we handle both pending and reassigned one
-    List<Order> orders = orderRepository.findAllPendingOrdersAndReassignmentPendingSorted()
+  public DispatchPreviewResponse getPreview(String token) {
+    Preview preview = findPreview(token);
+    return readOnlyTransactionTemplate.execute(status -> mapPreview(preview));
+  }
+
+  // scope the preview was planned for, a commit takes it in DispatchJobService like a running dispatch
+  public DispatchContext getPreviewScope(String token) {
+    return findPreview(token).context();
+  }
+
+  // applies a previewed plan as it is, refused if any order or vehicle it was made from changed since
+  // a token is good for one commit, a refused one needs a new preview
+  // only called through DispatchJobService.commitPreview, which keeps dispatches of an overlapping scope out meanwhile
+  public DispatchResponse commitPreview(String token) {
+    Preview preview;
+    synchronized (previews) {
+      preview = previews.remove(token);
+    }
+    if (preview == null || preview.expiresAt().isBefore(LocalDateTime.now())) {
+      throw new RuntimeException("Preview not found or expired");
+    }
+
+    try {
+      return committed(preview.snapshot(), saveWithRetry(preview.snapshot(), preview.solutions(), true));
+    } catch (DispatchConflictException e) {
+      throw new RuntimeException("Orders or vehicles changed since the preview, preview again: " + e.getMessage());
+    }
+  }
+
+  private Preview findPreview(String token) {
+    Preview preview;
+    synchronized (previews) {
+      preview = previews.get(token);
+    }
+    if (preview == null || preview.expiresAt().isBefore(LocalDateTime.now())) {
+      throw new RuntimeException("Preview not found or expired");
+    }
+    return preview;
+  }
+
+  // categories whose input is exactly what was solved ahead of time are not solved again
+  private List<CategorySolution> solve(DispatchContext context, VrpSolver solver, DispatchSnapshot snapshot) {
+    String jobId = context.getJobId();
+    dispatchJobRegistry.startSolving(jobId, snapshot.getProblems().size());
+    List<CategorySolution> solutions = new ArrayList<>();
+    List<CategoryProblem> unsolved = new ArrayList<>();
+    for (CategoryProblem problem : snapshot.getProblems()) {
+      Optional<CategorySolution> ready = context.isUseCache() ? speculativePlan(solver, problem) : Optional.empty();
+      ready.ifPresentOrElse(solution -> {
+        solutions.add(solution);
+        dispatchJobRegistry.categorySolved(jobId, solution);
+      }, () -> unsolved.add(problem));
+    }
+    if (!unsolved.isEmpty()) {
+      Consumer<CategorySolution> onSolved = solution -> dispatchJobRegistry.categorySolved(jobId, solution);
+      // with the queue enabled the categories are solved by the workers of every node instead of only this one
+      solutions.addAll(queueEnabled
+          ? solverTaskQueue.solve(unsolved, solver, timeBudgetMs, context.isUseCache(), onSolved)
+          : dispatchSolver.solveCategories(unsolved, solver, timeBudgetMs, context.isUseCache(), onSolved));
+    }
+    if (unsolved.size() < snapshot.getProblems().size()) {
+      log.info("Using the speculative plan for {} of {} categories",
+          snapshot.getProblems().size() - unsolved.size(), snapshot.getProblems().size());
+    }
+    return solutions;
+  }
+
+  private DispatchResponse committed(DispatchSnapshot snapshot, DispatchResult result) {
+    snapshot.getProblems().forEach(problem -> speculativePlans.remove(problem.getCategory()));
+    // notify only once the plan is committed, entities are reloaded since the write session is closed
+    transactionTemplate.executeWithoutResult(status -> {
+      List<Order> dispatched = orderRepository.findAllById(result.orderIds());
+      pendingOrderBook.ordersChanged(dispatched);
+      notifyOrdersInProgress(dispatched);
+      notifyNewRoutes(routeRepository.findAllById(result.routeIds()));
+    });
+    return readOnlyTransactionTemplate.execute(status -> getDispatchById(result.dispatchId()));
+  }
+
+  // proposed routes as they would be saved, merged stops expanded to their orders in visiting order
+  private DispatchPreviewResponse mapPreview(Preview preview) {
+    Map<String, Vehicle> vehicles = vehicleRepository.findAllById(preview.snapshot().getVehicleStates().keySet())
         .stream()
-        .toList();
+        .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+    Map<String, Order> orders = orderRepository.findAllById(preview.snapshot().getOrderVersions().keySet())
+        .stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+    List<RouteResponse> routes = new ArrayList<>();
+    List<String> unassigned = new ArrayList<>();
+    for (CategorySolution solution : preview.solutions()) {
+      for (VrpResponse response : solution.getResponses()) {
+        for (VrpRoute route : response.getRoutes()) {
+          List<Order> stops = route.getSteps().stream()
+              .flatMap(step -> StopMerger.memberIds(step.getId()).stream())
+              .map(orders::get)
+              .filter(Objects::nonNull)
+              .toList();
+          if (!stops.isEmpty()) {
+            routes.add(mapper.mapPreview(route, vehicles.get(route.getVehicleId()), stops));
+          }
+        }
+      }
+      // jobs the three-wheelers leave are handed to the trucks, only the last call's leftovers stay unassigned
+      List<VrpResponse> responses = solution.getResponses();
+      if (!responses.isEmpty() && responses.getLast().getUnassigned() != null) {
+        responses.getLast().getUnassigned().forEach(job -> unassigned.addAll(StopMerger.memberIds(job.getId())));
+      }
+    }
 
-    if (!isDynamic) {
-      runningDispatch = Dispatch.builder()
-          .status(DispatchStatus.IN_PROGRESS)
-          .build();
+    return DispatchPreviewResponse.builder()
+        .token(preview.token())
+        .expiresAt(preview.expiresAt())
+        .degraded(preview.solutions().stream().anyMatch(CategorySolution::isDegraded))
+        .routes(routes)
+        .unassignedOrderIds(unassigned)
+        .build();
+  }
 
-      // if dynamic then we only handle pending orders not reassigned one
-      orders = orderRepository.findAllPendingOrdersSorted()
-          .stream()
-          .toList();
+
+  // a vehicle scope is narrowed to the categories and depots of its vehicles, so runs over vehicles of different
+  // depots are seen as disjoint and the run only picks orders closest to its vehicles' depots
+  public DispatchContext resolveScope(DispatchContext context) {
+    if (context.getVehicleIds().isEmpty()) {
+      return context;
     }
 
-    if (orders.isEmpty()) {
-      throw new RuntimeException("No orders to be processed");
+    List<Vehicle> vehicles = readOnlyTransactionTemplate.execute(status ->
+        vehicleRepository.findAllById(context.getVehicleIds()));
+    if (vehicles.size() != context.getVehicleIds().size()) {
+      throw new RuntimeException("Vehicle not found");
+    }
+
+    Set<TrashCategory> categories = vehicles.stream()
+        .map(Vehicle::getCategory)
+        .filter(context::covers)
+        .collect(Collectors.toSet());
+    Set<String> depotIds = vehicles.stream()
+        .filter(v -> v.getDepot() != null)
+        .map(v -> v.getDepot().getId())
+        .filter(context::coversDepot)
+        .collect(Collectors.toSet());
+    if (categories.isEmpty() || depotIds.isEmpty()) {
+      throw new RuntimeException("No vehicles in the requested categories and depots");
+    }
+
+    return context.toBuilder()
+        .categories(categories)
+        .depotIds(depotIds)
+        .build();
+  }
+
+  // solves the pending orders of the given categories ahead of time with the default solver, so a dispatch over
+  // the same input only has to save; categories whose input did not change since their last plan are skipped
+  // returns the number of categories solved again
+  public int speculate(Set<TrashCategory> categories) {
+    VrpSolver solver = vrpSolverProvider.getSolver(null);
+    DispatchContext context = DispatchContext.builder()
+        .useCache(true)
+        .categories(categories)
+        .build();
+
+    List<CategoryProblem> problems;
+    try {
+      problems = readOnlyTransactionTemplate.execute(status -> takeSnapshot(context)).getProblems();
+    } catch (RuntimeException e) {
+      log.debug("Nothing to plan ahead for {}: {}", categories, e.getMessage());
+      problems = List.of();
+    }
+
+    Map<TrashCategory, String> changed = new EnumMap<>(TrashCategory.class);
+    List<CategoryProblem> toSolve = new ArrayList<>();
+    for (CategoryProblem problem : problems) {
+      String key = planKey(solver, problem);
+      SpeculativePlan plan = speculativePlans.get(problem.getCategory());
+      if (plan == null || !plan.key().equals(key)) {
+        changed.put(problem.getCategory(), key);
+        toSolve.add(problem);
+      }
+    }
+    Set<TrashCategory> planned = problems.stream().map(CategoryProblem::getCategory).collect(Collectors.toSet());
+    categories.stream()
+        .filter(category -> !planned.contains(category))
+        .forEach(speculativePlans::remove);
+    if (toSolve.isEmpty()) {
+      return 0;
+    }
+
+    for (CategorySolution solution : dispatchSolver.solveCategories(toSolve, solver, timeBudgetMs, true, s -> {})) {
+      if (solution.isDegraded()) {
+        speculativePlans.remove(solution.getCategory()); // a fallback plan is not worth committing blindly
+      } else {
+        speculativePlans.put(solution.getCategory(), new SpeculativePlan(changed.get(solution.getCategory()), solution));
+      }
+    }
+    log.info("Planned ahead for {}", changed.keySet());
+    return toSolve.size();
+  }
+
+  private Optional<CategorySolution> speculativePlan(VrpSolver solver, CategoryProblem problem) {
+    return Optional.ofNullable(speculativePlans.get(problem.getCategory()))
+        .filter(plan -> plan.key().equals(planKey(solver, problem)))
+        .map(SpeculativePlan::solution);
+  }
+
+  // a plan is valid for exactly the solver input it was made from: jobs, vehicles, depots and running routes
+  private static String planKey(VrpSolver solver, CategoryProblem problem) {
+    return SolverResultCache.key(solver.getName(), VrpRequest.builder()
+        .jobs(problem.getJobs())
+        .vehicles(concat(problem.getThreeWheelers(), problem.getCompactorTrucks()))
+        .depots(concat(problem.getThreeWheelerDepots(), problem.getCompactorTruckDepots()))
+        .routes(concat(problem.getThreeWheelerRoutes(), problem.getCompactorTruckRoutes()))
+        .build());
+  }
+
+  private static <T> List<T> concat(List<T> first, List<T> second) {
+    List<T> all = new ArrayList<>(first);
+    all.addAll(second);
+    return all;
+  }
+
+  private DispatchSnapshot takeSnapshot(DispatchContext context) {
+    Dispatch runningDispatch = dispatchRepository.findActiveDispatch()
+        .orElse(null);
+
+    boolean isDynamic = runningDispatch != null;
+
+    // a run scoped to some categories only reads their orders and vehicles
+    List<String> categories = context.getCategories().stream().map(TrashCategory::name).toList();
+
+    // a running dispatch takes reassigned orders back in, a new one only starts from the pending ones
+    // read from the order book once it is built, the orders table is only scanned before that
+    List<Order> orders;
+    if (pendingOrderBook.isReady()) {
+      orders = pendingOrderBook.pending(context.getCategories(), isDynamic);
+    } else if (isDynamic) {
+      orders = categories.isEmpty()
+          ? orderRepository.findAllPendingOrdersAndReassignmentPendingSorted()
+          : orderRepository.findAllPendingOrdersAndReassignmentPendingByCategoryInSorted(categories);
+    } else {
+      orders = categories.isEmpty()
+          ? orderRepository.findAllPendingOrdersSorted()
+          : orderRepository.findAllPendingOrdersByCategoryInSorted(categories);
     }
 
-    List<Vehicle> vehicles = vehicleRepository.findAll().stream()
+    List<Vehicle> fleet = (categories.isEmpty() ? vehicleRepository.findAll()
+        : vehicleRepository.findByCategoryIn(context.getCategories())).stream()
         .filter(v -> v.getStatus() != VehicleStatus.REPAIR)
         .toList();
+    List<Vehicle> vehicles = fleet.stream()
+        .filter(context::covers)
+        .toList();
+    orders = orders.stream()
+        .filter(order -> context.covers(order.getCategory()))
+        .filter(order -> context.getDepotIds().isEmpty() || context.coversDepot(nearestDepotId(order, fleet)))
+        .toList();
 
+    if (orders.isEmpty()) {
+      throw new RuntimeException("No orders to be processed");
+    }
+
+    // only the active fleet's in-progress routes are read, never the full route history
+    Map<String, List<Route>> activeRoutes = routeRepository.findByStatusAndVehicleIdIn(RouteStatus.IN_PROGRESS,
+            vehicles.stream().map(Vehicle::getId).toList())
+        .stream()
+        .collect(Collectors.groupingBy(r -> r.getVehicle().getId()));
+
+    List<CategoryProblem> problems = new ArrayList<>();
     for (TrashCategory category : TrashCategory.values()) {
       var filteredOrders = orders.stream()
           .filter(order -> order.getCategory() == category)
@@ -116,21 +430,160 @@ public class DispatchService {
         continue;
       }
 
-      processCategory(filteredOrders, filteredVehicles, runningDispatch, isDynamic);
+      problems.add(processCategory(category, filteredOrders, filteredVehicles, activeRoutes));
     }
 
-    dispatchRepository.save(runningDispatch);
+    Map<String, Long> orderVersions = new HashMap<>();
+    orders.forEach(order -> orderVersions.put(order.getId(), order.getVersion()));
+    Map<String, String> vehicleStates = new HashMap<>();
+    vehicles.forEach(vehicle -> vehicleStates.put(vehicle.getId(), fingerprint(vehicle)));
+    activeRoutes.values().stream()
+        .flatMap(List::stream)
+        .flatMap(r -> r.getOrders().stream())
+        .forEach(order -> orderVersions.put(order.getId(), order.getVersion()));
+
+    return DispatchSnapshot.builder()
+        .dispatchId(isDynamic ? runningDispatch.getId() : null)
+        .partial(!context.getCategories().isEmpty() || !context.getDepotIds().isEmpty()
+            || !context.getVehicleIds().isEmpty())
+        .problems(problems)
+        .pendingOrderIds(orders.stream().map(Order::getId).collect(Collectors.toSet()))
+        .orderVersions(orderVersions)
+        .vehicleStates(vehicleStates)
+        .build();
+  }
 
-    notifyOrdersInProgress(ordersToNotify);
-    notifyNewRoutes(routesToNotify);
+  // depot of the category's fleet closest to the order, orders are scoped to depots by it
+  // distances precomputed for the order are used where present, only depots without one are measured
+  private String nearestDepotId(Order order, List<Vehicle> fleet) {
+    Map<String, Double> known = order.getFeatures() != null && order.getFeatures().getDepotDistances() != null
+        ? order.getFeatures().getDepotDistances()
+        : Map.of();
+    return fleet.stream()
+        .filter(v -> v.getCategory() == order.getCategory() && v.getDepot() != null)
+        .map(Vehicle::getDepot)
+        .min(Comparator.comparingDouble(depot -> known.containsKey(depot.getId()) ? known.get(depot.getId())
+            : GeoUtils.haversine(order.getLatitude(), order.getLongitude(), depot.getLatitude(), depot.getLongitude())))
+        .map(Depot::getId)
+        .orElse(null);
+  }
 
-    ordersToNotify.clear();
-    routesToNotify.clear();
+  // a concurrent row update during the write transaction only needs the write redone, the snapshot check runs again
+  // the unique index on the active dispatch turns two concurrent first dispatches into an integrity violation,
+  // redoing the write then joins the dispatch the other run created
+  // strict refuses the whole plan when a pending order changed, otherwise such orders are left for the next dispatch
+  private DispatchResult saveWithRetry(DispatchSnapshot snapshot, List<CategorySolution> solutions, boolean strict) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> saveDispatch(snapshot, solutions, strict));
+      } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+        if (attempt >= maxAttempts) {
+          throw new DispatchConflictException("Rows kept changing while saving dispatch");
+        }
+        log.warn("Optimistic lock failure while saving dispatch, retrying: {}", e.getMessage());
+      }
+    }
   }
 
-  // create routes for one category
-  private void processCategory(List<Order> orders, List<Vehicle> vehicles, Dispatch dispatch, boolean isDynamic) {
-    // solve for three-wheeler
+  private DispatchResult saveDispatch(DispatchSnapshot snapshot, List<CategorySolution> solutions, boolean strict) {
+    Dispatch runningDispatch;
+    if (snapshot.getDispatchId() != null) {
+      runningDispatch = dispatchRepository.findById(snapshot.getDispatchId())
+          .filter(d -> d.getStatus() == DispatchStatus.IN_PROGRESS)
+          .orElseThrow(() -> new DispatchConflictException("Running dispatch was completed"));
+    } else {
+      // a dispatch started meanwhile by a run over other vehicles is joined, overlapping runs fail the vehicle check below
+      // a new one is inserted first so a concurrent first dispatch hits the unique index before any other write
+      runningDispatch = dispatchRepository.findActiveDispatch()
+          .orElseGet(() -> dispatchRepository.saveAndFlush(Dispatch.builder()
+              .status(DispatchStatus.IN_PROGRESS)
+              .build()));
+    }
+
+    // the whole working set is loaded up front in a few IN (...) queries, route building only does map lookups
+    Map<String, Vehicle> vehicles = vehicleRepository.findAllById(snapshot.getVehicleStates().keySet())
+        .stream()
+        .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+
+    // vehicles changing status, depot or capacity invalidate the plan
+    for (Vehicle vehicle : vehicles.values()) {
+      if (!fingerprint(vehicle).equals(snapshot.getVehicleStates().get(vehicle.getId()))) {
+        throw new DispatchConflictException("Vehicle changed: " + vehicle.getId());
+      }
+    }
+
+    Map<String, Order> orders = orderRepository.findAllById(snapshot.getOrderVersions().keySet())
+        .stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+    // pending orders touched meanwhile (cancelled, edited) are left out and wait for the next dispatch
+    Set<String> staleOrderIds = new HashSet<>();
+    for (Order order : orders.values()) {
+      if (!Objects.equals(order.getVersion(), snapshot.getOrderVersions().get(order.getId()))
+          && snapshot.getPendingOrderIds().contains(order.getId())) {
+        staleOrderIds.add(order.getId());
+      }
+    }
+    if (!staleOrderIds.isEmpty() && strict) {
+      throw new DispatchConflictException(staleOrderIds.size() + " orders changed");
+    }
+    if (!staleOrderIds.isEmpty()) {
+      log.warn("Skipping {} orders changed during solve", staleOrderIds.size());
+    }
+
+    // a vehicle that finished a route and was dispatched again has several routes in the dispatch, only the one in
+    // progress is still open
+    Map<String, Route> activeRoutes = runningDispatch.getId() == null
+        ? Map.of()
+        : routeRepository.findByStatusAndVehicleIdIn(RouteStatus.IN_PROGRESS, vehicles.keySet())
+            .stream()
+            .collect(Collectors.toMap(r -> r.getVehicle().getId(), Function.identity()));
+
+    // stops slotted into a running route meanwhile are not part of the plan, rebuilding the route would drop them
+    for (Route route : activeRoutes.values()) {
+      if (route.getOrders().stream().anyMatch(order -> !orders.containsKey(order.getId()))) {
+        throw new DispatchConflictException("Route changed: " + route.getId());
+      }
+    }
+
+    // a partial run leaves the rest of the dispatch as it is, including a fallback another slice had to take
+    boolean degraded = solutions.stream().anyMatch(CategorySolution::isDegraded);
+    runningDispatch.setDegraded(degraded || snapshot.isPartial() && Boolean.TRUE.equals(runningDispatch.getDegraded()));
+    Map<TrashCategory, RaceResult> races = new EnumMap<>(TrashCategory.class);
+    if (snapshot.isPartial() && runningDispatch.getRaces() != null) {
+      races.putAll(runningDispatch.getRaces());
+    }
+    solutions.forEach(solution -> {
+      if (solution.getRace() != null) {
+        races.put(solution.getCategory(), solution.getRace());
+      } else {
+        races.remove(solution.getCategory());
+      }
+    });
+    runningDispatch.setRaces(races);
+
+    WorkingSet workingSet = new WorkingSet(orders, vehicles, activeRoutes, staleOrderIds,
+        new ArrayList<>(), new ArrayList<>());
+    for (CategorySolution solution : solutions) {
+      for (VrpResponse response : solution.getResponses()) {
+        workingSet.routesToNotify().addAll(createRoutes(response, runningDispatch, workingSet));
+      }
+    }
+
+    Dispatch savedDispatch = dispatchRepository.saveAndFlush(runningDispatch);
+    return new DispatchResult(savedDispatch.getId(),
+        workingSet.ordersToNotify().stream().map(Order::getId).toList(),
+        workingSet.routesToNotify().stream().map(Route::getId).toList());
+  }
+
+  private String fingerprint(Vehicle vehicle) {
+    return vehicle.getStatus() + "|" + vehicle.getType() + "|" + vehicle.getCategory() + "|"
+        + vehicle.getCapacity() + "|" + (vehicle.getDepot() != null ? vehicle.getDepot().getId() : null);
+  }
+
+  // map one category to solver input
+  private CategoryProblem processCategory(TrashCategory category, List<Order> orders, List<Vehicle> vehicles,
+                                          Map<String, List<Route>> activeRoutes) {
     List<VrpJob> vrpJobs = orders.stream()
         .map(mapper::mapVrp)
         .toList();
@@ -149,8 +602,7 @@ public class DispatchService {
         .toList();
 
     List<VrpRoute> threeWheelerRoutes = threeWheelers.stream()
-        .flatMap(v -> v.getRoutes().stream())
-        .filter(r -> r.getStatus() == RouteStatus.IN_PROGRESS)
+        .flatMap(v -> activeRoutes.getOrDefault(v.getId(), List.of()).stream())
         .map(mapper::mapVrp)
         .toList();
 
@@ -159,8 +611,7 @@ public class DispatchService {
         .toList();
 
     List<VrpRoute> compactorTruckRoutes = compactorTrucks.stream()
-        .flatMap(v -> v.getRoutes().stream())
-        .filter(r -> r.getStatus() == RouteStatus.IN_PROGRESS)
+        .flatMap(v -> activeRoutes.getOrDefault(v.getId(), List.of()).stream())
         .map(mapper::mapVrp)
         .toList();
 
@@ -181,84 +632,70 @@ public class DispatchService {
         .map(mapper::mapVrp)
         .toList();
 
-
-    List<VrpJob> unassignedJobs = vrpJobs;
-    if (!unassignedJobs.isEmpty() && !vrpThreeWheelers.isEmpty()) {
-      VrpResponse res1 = vrpMiddleware(vrpJobs, vrpThreeWheelers, vrpThreeWheelersDepots, threeWheelerRoutes);
-      unassignedJobs = res1.getUnassigned();
-      createRoutes(res1, dispatch);
-    }
-
-    if (!unassignedJobs.isEmpty() && !vrpCompactorTrucks.isEmpty()) {
-      VrpResponse res2 = vrpMiddleware(unassignedJobs, vrpCompactorTrucks, vrpCompactorTrucksDepots, compactorTruckRoutes);
-      createRoutes(res2, dispatch);
-    }
-
+    return CategoryProblem.builder()
+        .category(category)
+        .jobs(vrpJobs)
+        .threeWheelers(vrpThreeWheelers)
+        .threeWheelerDepots(vrpThreeWheelersDepots)
+        .threeWheelerRoutes(threeWheelerRoutes)
+        .compactorTrucks(vrpCompactorTrucks)
+        .compactorTruckDepots(vrpCompactorTrucksDepots)
+        .compactorTruckRoutes(compactorTruckRoutes)
+        .build();
   }
 
-  private List<Order> buildOrders(VrpRoute vrpRoute, Route route) {
+  private List<Order> buildOrders(List<VrpJob> steps, Route route, WorkingSet workingSet) {
     List<Order> orders = new ArrayList<>();
     int index = 0;
 
-    for (VrpJob job : vrpRoute.getSteps()) {
-      Order order = orderRepository.findById(job.getId())
-          .orElseThrow(() -> new RuntimeException("Order not found: " + job.getId()));
-      order.setStatus(OrderStatus.IN_PROGRESS);
-      order.setIndex(index++);
-      order.setRoute(route);
-
-      orders.add(order);
+    // a merged stop stands for several orders, they are visited one after another
+    for (VrpJob job : steps) {
+      for (String orderId : StopMerger.memberIds(job.getId())) {
+        if (workingSet.staleOrderIds().contains(orderId)) {
+          continue;
+        }
+        Order order = Optional.ofNullable(workingSet.orders().get(orderId))
+            .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        if (order.getStatus() != OrderStatus.COMPLETED) {
+          order.setStatus(OrderStatus.IN_PROGRESS);
+        }
+        order.setIndex(index++);
+        order.setRoute(route);
+
+        orders.add(order);
+      }
     }
 
-    ordersToNotify.addAll(orders);
+    workingSet.ordersToNotify().addAll(orders);
     return orders;
   }
 
-  private void updateRoutes(VrpResponse vrpResponse, Dispatch dispatch) {
-    List<Route> updatedRoutes = vrpResponse.getRoutes().stream()
-        .map(vrpRoute -> {
-          Vehicle vehicle = vehicleRepository.findById(vrpRoute.getVehicleId())
-              .orElseThrow(() -> new RuntimeException("Vehicle not found"));
-          if (vehicle.getStatus() != VehicleStatus.ACTIVE) {
-            vehicle.setStatus(VehicleStatus.ACTIVE);
-            Route route = buildRouteFromVrp(vrpRoute, dispatch);
-            dispatch.getRoutes().add(route);
-            return route;
-          } else {
-            Route route = routeRepository.findByDispatchIdAndVehicleId(dispatch.getId(), vehicle.getId())
-                .orElseThrow(() -> new RuntimeException("Route not found"));
-            route.setOrders(buildOrders(vrpRoute, route));
-            route.setDistance(vrpRoute.getDistance());
-            route.setDuration(vrpRoute.getDuration());
-            route.setGeometry(vrpRoute.getGeometry());
-
-            return route;
-          }
-
-        })
+  private Route buildRouteFromVrp(VrpRoute vrpRoute, Dispatch dispatch, WorkingSet workingSet) {
+    Vehicle vehicle = Optional.ofNullable(workingSet.vehicles().get(vrpRoute.getVehicleId()))
+        .orElseThrow(() -> new RuntimeException("Vehicle not found"));
+    List<VrpJob> steps = vrpRoute.getSteps().stream()
+        .filter(step -> !workingSet.staleOrderIds().containsAll(StopMerger.memberIds(step.getId())))
         .toList();
 
-    routesToNotify.addAll(updatedRoutes);
-  }
-
-  private Route buildRouteFromVrp(VrpRoute vrpRoute, Dispatch dispatch) {
-    Vehicle vehicle = vehicleRepository.findById(vrpRoute.getVehicleId())
-        .orElseThrow(() -> new RuntimeException("Vehicle not found"));
     if (vehicle.getStatus() == VehicleStatus.ACTIVE) {
-      Route route = routeRepository.findByDispatchIdAndVehicleId(dispatch.getId(), vehicle.getId())
+      Route route = Optional.ofNullable(workingSet.activeRoutes().get(vehicle.getId()))
           .orElseThrow(() -> new RuntimeException("Route not found"));
 
-      route.setOrders(buildOrders(vrpRoute, route));
+      route.setOrders(buildOrders(steps, route, workingSet));
       route.setDistance(vrpRoute.getDistance());
       route.setDuration(vrpRoute.getDuration());
       route.setGeometry(vrpRoute.getGeometry());
-      if (vrpRoute.getSteps().isEmpty()) {
+      route.setGeometryStale(false);
+      if (steps.isEmpty()) {
         route.setStatus(RouteStatus.COMPLETED);
         vehicle.setStatus(VehicleStatus.IDLE);
       }
       return route;
 
     } else {
+      if (steps.isEmpty()) {
+        return null; // every step went stale, nothing to dispatch
+      }
       vehicle.setStatus(VehicleStatus.ACTIVE);
       Route route = Route.builder()
           .vehicle(vehicle)
@@ -268,46 +705,37 @@ public class DispatchService {
           .geometry(vrpRoute.getGeometry())
           .status(RouteStatus.IN_PROGRESS)
           .build();
-      route.setOrders(buildOrders(vrpRoute, route));
-      if (vrpRoute.getSteps().isEmpty()) {
-        route.setStatus(RouteStatus.COMPLETED);
-        vehicle.setStatus(VehicleStatus.IDLE);
-      }
+      route.setOrders(buildOrders(steps, route, workingSet));
       return route;
     }
 
   }
 
-  private void createRoutes(VrpResponse vrpResponse, Dispatch dispatch) {
+  private List<Route> createRoutes(VrpResponse vrpResponse, Dispatch dispatch, WorkingSet workingSet) {
     List<Route> routes = vrpResponse.getRoutes().stream()
-        .map(vrpRoute -> buildRouteFromVrp(vrpRoute, dispatch))
+        .map(vrpRoute -> buildRouteFromVrp(vrpRoute, dispatch, workingSet))
+        .filter(Objects::nonNull)
         .toList();
 
-    routesToNotify.addAll(routes);
-    // notifyNewRoutes(routes);
     dispatch.getRoutes().addAll(routes);
+    return routes;
   }
 
-  private VrpResponse vrpMiddleware(List<VrpJob> jobs, List<VrpVehicle> vehicles, List<VrpDepot> depots,  List<VrpRoute> routes) {
-    VrpRequest request = VrpRequest.builder()
-        .jobs(jobs)
-        .depots(depots)
-        .vehicles(vehicles)
-        .routes(routes)
-        .build();
-
-    log.info("Number of vehicles: {}", request.getVehicles().size());
-    log.info("Number of depots: {}", request.getDepots().size());
-
-    VrpResponse response = restTemplate.postForObject(vrpApiUrl, request, VrpResponse.class);
+  // entities of one write attempt keyed by id, activeRoutes keyed by vehicle id, plus what to notify once committed
+  private record WorkingSet(Map<String, Order> orders, Map<String, Vehicle> vehicles,
+                            Map<String, Route> activeRoutes, Set<String> staleOrderIds,
+                            List<Order> ordersToNotify, List<Route> routesToNotify) {
+  }
 
-    if (response == null || response.getError() != null) {
-      throw new RuntimeException("Error while solving vrp");
-    }
+  private record DispatchResult(String dispatchId, List<String> orderIds, List<String> routeIds) {
+  }
 
-    return response;
+  private record SpeculativePlan(String key, CategorySolution solution) {
   }
 
+  private record Preview(String token, DispatchContext context, DispatchSnapshot snapshot,
+                         List<CategorySolution> solutions, LocalDateTime expiresAt) {
+  }
 
   private void notifyOrdersInProgress(List<Order> orders) {
     List<User> users = orders.stream()
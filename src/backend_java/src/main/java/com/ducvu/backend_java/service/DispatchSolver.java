@@ -0,0 +1,545 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.ProblemPartitioner;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.StopMerger;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// runs the solver calls of a dispatch within its time budget
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchSolver {
+  private final ExecutorService solverExecutor;
+  private final GreedyVrpSolver fallbackSolver;
+  private final SolverResultCache resultCache;
+  private final VrpSolverProvider vrpSolverProvider;
+
+  @Value("${dispatch.partition.max-jobs:400}")
+  private int partitionMaxJobs;
+
+  @Value("${dispatch.merge.radius-m:20}")
+  private double mergeRadiusM;
+
+  @Value("${dispatch.mixed-fleet:false}")
+  private boolean mixedFleet;
+
+  @Value("${dispatch.warm-start.enabled:true}")
+  private boolean warmStart;
+
+  @Value("${dispatch.race.strategies:}")
+  private String raceStrategies = "";
+
+  @Value("${dispatch.race.grace-ms:500}")
+  private long raceGraceMs;
+
+  // last plan of every category: the job ids each vehicle was given behind its existing steps, in route order
+  private final Map<TrashCategory, Map<String, List<String>>> previousPlans = new ConcurrentHashMap<>();
+
+  public List<CategorySolution> solveCategories(List<CategoryProblem> problems, VrpSolver solver) {
+    return solveCategories(problems, solver, 0, false, solution -> {});
+  }
+
+  // categories never share vehicles or orders, so they are solved concurrently
+  // budgetMs bounds the whole solve, 0 means no budget
+  // useCache false always calls the solver, its results still refresh the cache
+  // onSolved is called from the solver threads as soon as each category finishes
+  public List<CategorySolution> solveCategories(List<CategoryProblem> problems, VrpSolver solver, long budgetMs,
+                                                boolean useCache, Consumer<CategorySolution> onSolved) {
+    Deadline deadline = new Deadline(budgetMs);
+    List<Future<CategorySolution>> futures = problems.stream()
+        .map(problem -> solverExecutor.submit(() -> {
+          CategorySolution solution = solveCategory(problem, solver, deadline, useCache);
+          onSolved.accept(solution);
+          return solution;
+        }))
+        .toList();
+
+    List<CategorySolution> solutions = new ArrayList<>();
+    try {
+      for (Future<CategorySolution> future : futures) {
+        solutions.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Dispatch interrupted");
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new RuntimeException("Error while solving vrp", e.getCause());
+    }
+
+    return solutions;
+  }
+
+  public CategorySolution solveCategory(CategoryProblem problem, VrpSolver solver) {
+    return solveCategory(problem, solver, new Deadline(0), false);
+  }
+
+  // with race strategies configured the category is solved by all of them at once and the best plan is kept
+  private CategorySolution solveCategory(CategoryProblem problem, VrpSolver solver, Deadline deadline, boolean useCache) {
+    List<Strategy> strategies = strategies(solver);
+    if (strategies.size() == 1) {
+      Attempt attempt = attempt(problem, strategies.get(0), deadline, useCache);
+      remember(problem.getCategory(), attempt);
+      return attempt.solution();
+    }
+    return race(problem, strategies, deadline, useCache);
+  }
+
+  // one way of solving a category: the solver, one call for the whole fleet or trucks after three-wheelers,
+  // and whether large requests are split by area
+  private record Strategy(String name, VrpSolver solver, boolean mixedFleet, boolean partitioned) {
+
+    Strategy(VrpSolver solver, boolean mixedFleet, boolean partitioned) {
+      this(solver.getName() + (mixedFleet ? "/mixed" : "/two-phase") + (partitioned ? "" : "/whole"),
+          solver, mixedFleet, partitioned);
+    }
+  }
+
+  // a solver call of an attempt, kept so only the winning attempt becomes the category's previous plan
+  private record Call(List<VrpJob> jobs, List<VrpVehicle> vehicles, VrpResponse response) {
+  }
+
+  private record Attempt(Strategy strategy, CategorySolution solution, List<Call> calls, int unassigned,
+                         double distance) {
+  }
+
+  // a plan of the requested solver beats a fallback, then fewer orders left over, then less driving
+  private static final Comparator<Attempt> BEST = Comparator
+      .comparing((Attempt attempt) -> attempt.solution().isDegraded())
+      .thenComparingInt(Attempt::unassigned)
+      .thenComparingDouble(Attempt::distance);
+
+  // the requested solver with the configured settings first, then every race strategy
+  // a strategy is written solver[/mixed|/two-phase][/whole], e.g. native/mixed or remote/whole, left out options
+  // keep the configured setting and "requested" stands for the solver the dispatch asked for
+  private List<Strategy> strategies(VrpSolver solver) {
+    Map<String, Strategy> strategies = new LinkedHashMap<>();
+    Strategy baseline = new Strategy(solver, mixedFleet, true);
+    strategies.put(baseline.name(), baseline);
+    for (String spec : raceStrategies.split(",")) {
+      if (spec.isBlank()) {
+        continue;
+      }
+      String[] parts = spec.trim().split("/");
+      boolean mixed = mixedFleet;
+      boolean partitioned = true;
+      for (int i = 1; i < parts.length; i++) {
+        switch (parts[i]) {
+          case "mixed" -> mixed = true;
+          case "two-phase" -> mixed = false;
+          case "whole" -> partitioned = false;
+          default -> throw new RuntimeException("Unknown solve strategy option: " + parts[i]);
+        }
+      }
+      VrpSolver strategySolver = "requested".equals(parts[0]) ? solver : vrpSolverProvider.getSolver(parts[0]);
+      Strategy strategy = new Strategy(strategySolver, mixed, partitioned);
+      strategies.putIfAbsent(strategy.name(), strategy);
+    }
+    return new ArrayList<>(strategies.values());
+  }
+
+  // every strategy solves the category at once within the same deadline, the best plan wins and the others are
+  // cancelled once the deadline and a short grace for their fallbacks have passed
+  private CategorySolution race(CategoryProblem problem, List<Strategy> strategies, Deadline deadline, boolean useCache) {
+    long startedAt = System.currentTimeMillis();
+    List<Future<Attempt>> futures = strategies.stream()
+        .map(strategy -> solverExecutor.submit(() -> attempt(problem, strategy, deadline, useCache)))
+        .toList();
+
+    List<Attempt> finished = new ArrayList<>();
+    RuntimeException failure = null;
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          Long remainingMs = deadline.remainingMs();
+          finished.add(remainingMs == null
+              ? futures.get(i).get()
+              : futures.get(i).get(remainingMs + raceGraceMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+          log.info("Strategy {} did not finish category {} in time, cancelling it", strategies.get(i).name(),
+              problem.getCategory());
+        } catch (ExecutionException e) {
+          log.warn("Strategy {} failed on category {}: {}", strategies.get(i).name(), problem.getCategory(),
+              e.getCause().getMessage());
+          if (failure == null) {
+            failure = e.getCause() instanceof RuntimeException cause ? cause
+                : new RuntimeException("Error while solving vrp", e.getCause());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Dispatch interrupted");
+    } finally {
+      futures.forEach(f -> f.cancel(true));
+    }
+
+    if (finished.isEmpty()) {
+      if (failure != null) {
+        throw failure;
+      }
+      // nobody made it, the budget is spent so this is the fallback plan
+      finished.add(attempt(problem, strategies.get(0), deadline, useCache));
+    }
+
+    Attempt winner = finished.stream().min(BEST).orElseThrow();
+    Attempt baseline = finished.stream()
+        .filter(attempt -> attempt.strategy() == strategies.get(0))
+        .findFirst()
+        .orElse(null);
+    Double gap = baseline != null && baseline.distance() > 0
+        ? (baseline.distance() - winner.distance()) / baseline.distance()
+        : null;
+    remember(problem.getCategory(), winner);
+    log.info("Strategy {} won category {} against {} of {} strategies in {} ms, gap to {}: {}", winner.strategy().name(),
+        problem.getCategory(), finished.size() - 1, strategies.size() - 1, System.currentTimeMillis() - startedAt,
+        strategies.get(0).name(), gap != null ? String.format("%.1f%%", gap * 100) : "none");
+
+    CategorySolution solution = winner.solution();
+    solution.setRace(RaceResult.builder()
+        .winner(winner.strategy().name())
+        .baseline(strategies.get(0).name())
+        .gap(gap)
+        .strategies(strategies.size())
+        .finished(finished.size())
+        .build());
+    return solution;
+  }
+
+  // three-wheelers first and compactor trucks take whatever is left, or both in one call with a mixed fleet
+  private Attempt attempt(CategoryProblem problem, Strategy strategy, Deadline deadline, boolean useCache) {
+    long startedAt = System.currentTimeMillis();
+    List<VrpResponse> responses = new ArrayList<>();
+    List<Call> calls = new ArrayList<>();
+
+    // composite stops must fit the smallest vehicle of the category so either pass can take them
+    double maxDemand = Stream.concat(problem.getThreeWheelers().stream(), problem.getCompactorTrucks().stream())
+        .map(VrpVehicle::getCapacity)
+        .filter(Objects::nonNull)
+        .mapToDouble(Double::doubleValue)
+        .min()
+        .orElse(0.0);
+    List<VrpJob> unassignedJobs = StopMerger.merge(problem.getJobs(), mergeRadiusM, maxDemand);
+    if (unassignedJobs.size() < problem.getJobs().size()) {
+      log.info("Merged {} orders into {} stops", problem.getJobs().size(), unassignedJobs.size());
+    }
+    if (strategy.mixedFleet()) {
+      List<VrpVehicle> vehicles = concat(problem.getThreeWheelers(), problem.getCompactorTrucks());
+      if (!unassignedJobs.isEmpty() && !vehicles.isEmpty()) {
+        Map<String, VrpDepot> depots = new LinkedHashMap<>();
+        concat(problem.getThreeWheelerDepots(), problem.getCompactorTruckDepots()).forEach(d -> depots.putIfAbsent(d.getId(), d));
+        responses.add(vrpMiddleware(problem.getCategory(), strategy, unassignedJobs, vehicles,
+            new ArrayList<>(depots.values()), concat(problem.getThreeWheelerRoutes(), problem.getCompactorTruckRoutes()),
+            deadline, useCache, calls));
+      }
+    } else {
+      solveTwoPhase(problem, strategy, unassignedJobs, deadline, useCache, responses, calls);
+    }
+
+    long elapsed = System.currentTimeMillis() - startedAt;
+    log.info("Solved category {} in {} ms", problem.getCategory(), elapsed);
+
+    // jobs the three-wheelers leave go to the trucks, so the last call's leftovers are what stays unassigned
+    int unassigned = responses.isEmpty()
+        ? problem.getJobs().size()
+        : Optional.ofNullable(responses.getLast().getUnassigned()).orElse(List.of()).stream()
+            .mapToInt(job -> StopMerger.memberIds(job.getId()).size())
+            .sum();
+    double distance = responses.stream()
+        .flatMap(response -> Optional.ofNullable(response.getRoutes()).orElse(List.of()).stream())
+        .mapToDouble(route -> Optional.ofNullable(route.getDistance()).orElse(0.0))
+        .sum();
+    CategorySolution solution = CategorySolution.builder()
+        .category(problem.getCategory())
+        .responses(responses)
+        .solveTimeMs(elapsed)
+        .degraded(responses.stream().anyMatch(VrpResponse::isDegraded))
+        .build();
+    return new Attempt(strategy, solution, calls, unassigned, distance);
+  }
+
+  private void solveTwoPhase(CategoryProblem problem, Strategy strategy, List<VrpJob> unassignedJobs, Deadline deadline,
+                             boolean useCache, List<VrpResponse> responses, List<Call> calls) {
+    if (!unassignedJobs.isEmpty() && !problem.getThreeWheelers().isEmpty()) {
+      VrpResponse res1 = vrpMiddleware(problem.getCategory(), strategy, unassignedJobs, problem.getThreeWheelers(),
+          problem.getThreeWheelerDepots(), problem.getThreeWheelerRoutes(), deadline, useCache, calls);
+      unassignedJobs = res1.getUnassigned() != null ? res1.getUnassigned() : List.of();
+      responses.add(res1);
+    }
+
+    if (!unassignedJobs.isEmpty() && !problem.getCompactorTrucks().isEmpty()) {
+      VrpResponse res2 = vrpMiddleware(problem.getCategory(), strategy, unassignedJobs, problem.getCompactorTrucks(),
+          problem.getCompactorTruckDepots(), problem.getCompactorTruckRoutes(), deadline, useCache, calls);
+      responses.add(res2);
+    }
+  }
+
+  private static <T> List<T> concat(List<T> first, List<T> second) {
+    return Stream.concat(Optional.ofNullable(first).orElse(List.of()).stream(),
+        Optional.ofNullable(second).orElse(List.of()).stream()).toList();
+  }
+
+  // re-solves start from the category's previous plan, with the steps already driven or underway locked in place
+  private VrpResponse vrpMiddleware(TrashCategory category, Strategy strategy, List<VrpJob> jobs, List<VrpVehicle> vehicles,
+                                    List<VrpDepot> depots, List<VrpRoute> routes, Deadline deadline, boolean useCache,
+                                    List<Call> calls) {
+    boolean warm = warmStart && category != null;
+    VrpRequest request = VrpRequest.builder()
+        .jobs(jobs)
+        .depots(depots)
+        .vehicles(vehicles)
+        .routes(warm ? lock(routes) : routes)
+        .initialRoutes(warm ? initialRoutes(category, jobs, vehicles) : null)
+        .timeLimitMs(deadline.remainingMs())
+        .build();
+
+    VrpResponse response = solvePartitioned(strategy, request, deadline, useCache);
+    calls.add(new Call(jobs, vehicles, response));
+    return response;
+  }
+
+  // requests above the partition size are split by area and the pieces solved concurrently
+  private VrpResponse solvePartitioned(Strategy strategy, VrpRequest request, Deadline deadline, boolean useCache) {
+    VrpSolver solver = strategy.solver();
+    log.info("Number of vehicles: {}", request.getVehicles().size());
+    log.info("Number of depots: {}", request.getDepots().size());
+    log.info("Solving with {} solver", solver.getName());
+
+    List<VrpRequest> partitions = ProblemPartitioner.split(request, strategy.partitioned() ? partitionMaxJobs : 0);
+    if (partitions.size() == 1 && partitions.get(0) == request) {
+      return solveRequest(solver, request, deadline, useCache);
+    }
+
+    log.info("Split {} jobs into {} partitions", request.getJobs().size(), partitions.size());
+    List<Future<VrpResponse>> futures = partitions.stream()
+        .map(partition -> solverExecutor.submit(() -> solveRequest(solver, partition, deadline, useCache)))
+        .toList();
+    try {
+      return solveLeftovers(solver, request, stitch(futures), deadline, useCache);
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Dispatch interrupted");
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new RuntimeException("Error while solving vrp", e.getCause());
+    }
+  }
+
+  // the committed prefix of a route, up to its last completed or in-progress step, stays where it is, pending steps
+  // behind it may still be reordered
+  private static List<VrpRoute> lock(List<VrpRoute> routes) {
+    if (routes == null) {
+      return null;
+    }
+    return routes.stream()
+        .map(route -> VrpRoute.builder()
+            .vehicleId(route.getVehicleId())
+            .steps(route.getSteps())
+            .distance(route.getDistance())
+            .duration(route.getDuration())
+            .geometry(route.getGeometry())
+            .lockedSteps(committedSteps(route))
+            .build())
+        .toList();
+  }
+
+  private static int committedSteps(VrpRoute route) {
+    int committed = 0;
+    List<VrpJob> steps = Optional.ofNullable(route.getSteps()).orElse(List.of());
+    for (int i = 0; i < steps.size(); i++) {
+      if (!"pending".equals(steps.get(i).getStatus())) {
+        committed = i + 1;
+      }
+    }
+    return committed;
+  }
+
+  // the previous plan of the category restricted to the jobs and vehicles of this call, null if there is none
+  private List<VrpRoute> initialRoutes(TrashCategory category, List<VrpJob> jobs, List<VrpVehicle> vehicles) {
+    Map<String, List<String>> plan = previousPlans.get(category);
+    if (plan == null) {
+      return null;
+    }
+
+    Map<String, VrpJob> jobById = new HashMap<>();
+    jobs.forEach(job -> jobById.put(job.getId(), job));
+    List<VrpRoute> initialRoutes = new ArrayList<>();
+    for (VrpVehicle vehicle : vehicles) {
+      List<VrpJob> steps = plan.getOrDefault(vehicle.getId(), List.of()).stream()
+          .map(jobById::get)
+          .filter(Objects::nonNull)
+          .toList();
+      if (!steps.isEmpty()) {
+        initialRoutes.add(VrpRoute.builder().vehicleId(vehicle.getId()).steps(steps).build());
+      }
+    }
+    return initialRoutes.isEmpty() ? null : initialRoutes;
+  }
+
+  private void remember(TrashCategory category, Attempt attempt) {
+    if (warmStart && category != null) {
+      attempt.calls().forEach(call -> remember(category, call.jobs(), call.vehicles(), call.response()));
+    }
+  }
+
+  private void remember(TrashCategory category, List<VrpJob> jobs, List<VrpVehicle> vehicles, VrpResponse response) {
+    Set<String> jobIds = new HashSet<>();
+    jobs.forEach(job -> jobIds.add(job.getId()));
+
+    Map<String, List<String>> plan = new HashMap<>();
+    vehicles.forEach(vehicle -> plan.put(vehicle.getId(), List.of()));
+    for (VrpRoute route : Optional.ofNullable(response.getRoutes()).orElse(List.of())) {
+      plan.put(route.getVehicleId(), route.getSteps().stream()
+          .map(VrpJob::getId)
+          .filter(jobIds::contains)
+          .toList());
+    }
+    previousPlans.computeIfAbsent(category, k -> new ConcurrentHashMap<>()).putAll(plan);
+  }
+
+  // partitions share no vehicle or job, so their routes and leftovers simply add up
+  private VrpResponse stitch(List<Future<VrpResponse>> futures) throws InterruptedException, ExecutionException {
+    List<VrpRoute> routes = new ArrayList<>();
+    List<VrpJob> unassigned = new ArrayList<>();
+    boolean degraded = false;
+    for (Future<VrpResponse> future : futures) {
+      VrpResponse response = future.get();
+      routes.addAll(Optional.ofNullable(response.getRoutes()).orElse(List.of()));
+      unassigned.addAll(Optional.ofNullable(response.getUnassigned()).orElse(List.of()));
+      degraded |= response.isDegraded();
+    }
+    return VrpResponse.builder()
+        .routes(routes)
+        .unassigned(unassigned)
+        .degraded(degraded)
+        .build();
+  }
+
+  // a partition only sees its own vehicles, so spare capacity elsewhere (or at a depot no job is nearest to) never
+  // takes its overflow: the leftovers are solved once more against the whole fleet, behind the partitions' routes
+  private VrpResponse solveLeftovers(VrpSolver solver, VrpRequest request, VrpResponse stitched, Deadline deadline,
+                                     boolean useCache) {
+    if (stitched.getUnassigned().isEmpty() || deadline.expired()) {
+      return stitched;
+    }
+
+    Map<String, Integer> lockedByVehicle = new HashMap<>();
+    Optional.ofNullable(request.getRoutes()).orElse(List.of())
+        .forEach(route -> lockedByVehicle.put(route.getVehicleId(), route.getLockedSteps()));
+    List<VrpRoute> planned = stitched.getRoutes().stream()
+        .map(route -> VrpRoute.builder()
+            .vehicleId(route.getVehicleId())
+            .steps(route.getSteps())
+            .distance(route.getDistance())
+            .duration(route.getDuration())
+            .geometry(route.getGeometry())
+            .lockedSteps(lockedByVehicle.get(route.getVehicleId()))
+            .build())
+        .toList();
+    VrpRequest leftovers = VrpRequest.builder()
+        .jobs(stitched.getUnassigned())
+        .vehicles(request.getVehicles())
+        .depots(request.getDepots())
+        .routes(planned)
+        .timeLimitMs(deadline.remainingMs())
+        .build();
+
+    log.info("Solving {} partition leftovers across all {} vehicles", stitched.getUnassigned().size(),
+        request.getVehicles().size());
+    VrpResponse response = solveRequest(solver, leftovers, deadline, useCache);
+    List<VrpJob> unassigned = Optional.ofNullable(response.getUnassigned()).orElse(List.of());
+    if (response.isDegraded() || unassigned.size() >= stitched.getUnassigned().size()) {
+      return stitched;
+    }
+    return VrpResponse.builder()
+        .routes(response.getRoutes())
+        .unassigned(unassigned)
+        .degraded(stitched.isDegraded())
+        .build();
+  }
+
+  // responses are memoized by request content, so unchanged input is not solved twice
+  // a call that fails or runs past the time budget is answered by the greedy solver instead
+  private VrpResponse solveRequest(VrpSolver solver, VrpRequest request, Deadline deadline, boolean useCache) {
+    String cacheKey = SolverResultCache.key(solver.getName(), request);
+    Long timeLimitMs = solver.timeLimitMs(request.getTimeLimitMs());
+    if (useCache) {
+      Optional<VrpResponse> cached = resultCache.get(cacheKey, timeLimitMs);
+      if (cached.isPresent()) {
+        log.info("Using cached {} solver result", solver.getName());
+        return cached.get();
+      }
+    }
+
+    if (deadline.expired()) {
+      log.warn("Dispatch time budget spent, using {} solver", fallbackSolver.getName());
+      return fallback(request);
+    }
+
+    try {
+      VrpResponse response = solver.solve(request);
+      resultCache.put(cacheKey, timeLimitMs, response);
+      return response;
+    } catch (RuntimeException e) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw e;
+      }
+      log.warn("{} solver failed, using {} solver: {}", solver.getName(), fallbackSolver.getName(), e.getMessage());
+      return fallback(request);
+    }
+  }
+
+  private VrpResponse fallback(VrpRequest request) {
+    VrpResponse response = fallbackSolver.solve(request);
+    response.setDegraded(true);
+    return response;
+  }
+
+  // nanoTime based, so remaining time is immune to wall clock changes
+  private static class Deadline {
+    private final long deadline;
+    private final boolean bounded;
+
+    Deadline(long budgetMs) {
+      this.bounded = budgetMs > 0;
+      this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    // null when there is no budget
+    Long remainingMs() {
+      return bounded ? Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) : null;
+    }
+
+    boolean expired() {
+      return bounded && deadline - System.nanoTime() <= 0;
+    }
+  }
+}
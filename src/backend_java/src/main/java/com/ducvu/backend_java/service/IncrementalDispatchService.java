@@ -0,0 +1,179 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DispatchRepository;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.repository.RouteRepository;
+import com.ducvu.backend_java.repository.VehicleRepository;
+import com.ducvu.backend_java.solver.InsertionEngine;
+import com.ducvu.backend_java.util.Mapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// slots a single new or reassigned order into the cheapest spot of a running route while a dispatch is active
+// orders whose detour is above the threshold stay pending for the next full dispatch
+// runs on its own single thread once the order is saved, so order requests never wait for it and two inserts never
+// shift the same route's indexes at once
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalDispatchService {
+  private final DispatchRepository dispatchRepository;
+  private final OrderRepository orderRepository;
+  private final VehicleRepository vehicleRepository;
+  private final RouteRepository routeRepository;
+  private final InsertionEngine insertionEngine;
+  private final Mapper mapper;
+  private final NotificationService notificationService;
+  private final DispatchScheduler dispatchScheduler;
+  private final PendingOrderBook pendingOrderBook;
+  private final ExecutorService insertionExecutor;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${dispatch.incremental.enabled:true}")
+  private boolean enabled;
+
+  @Value("${dispatch.incremental.max-added-km:3.0}")
+  private double maxAddedKm;
+
+  private record Inserted(String orderId, String routeId) {
+  }
+
+  // called with a saved order waiting for a vehicle, one that no running route takes goes to the dispatch scheduler
+  public void orderPending(Order order) {
+    if (!enabled) {
+      dispatchScheduler.orderPending(order);
+      return;
+    }
+    try {
+      insertionExecutor.execute(() -> {
+        try {
+          if (!insertOrder(order.getId())) {
+            dispatchScheduler.orderPending(order);
+          }
+        } catch (RuntimeException e) {
+          log.warn("Inserting order {} failed, leaving it pending: {}", order.getId(), e.getMessage());
+          dispatchScheduler.orderPending(order);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      dispatchScheduler.orderPending(order);
+    }
+  }
+
+  // true if the order was put on a route, false if it is left for a full re-solve
+  boolean insertOrder(String orderId) {
+
+    Inserted inserted;
+    try {
+      inserted = transactionTemplate.execute(status -> insert(orderId));
+    } catch (ObjectOptimisticLockingFailureException e) {
+      // the route changed under us (completed stop, running dispatch saving), the next dispatch picks the order up
+      log.warn("Route changed while inserting order {}, leaving it pending: {}", orderId, e.getMessage());
+      return false;
+    }
+    if (inserted == null) {
+      return false;
+    }
+
+    transactionTemplate.executeWithoutResult(status -> {
+      Order order = orderRepository.findById(inserted.orderId()).orElseThrow();
+      Route route = routeRepository.findById(inserted.routeId()).orElseThrow();
+      pendingOrderBook.orderChanged(order);
+      notificationService.sendSingleNotification("Order is in progress", order.getUser(), NotificationType.ORDER, order.getId());
+      notificationService.sendSingleNotification("Route is updated", route.getVehicle().getDriver(), NotificationType.ROUTE, route.getId());
+    });
+    return true;
+  }
+
+  private Inserted insert(String orderId) {
+    if (dispatchRepository.findActiveDispatch().isEmpty()) {
+      return null;
+    }
+
+    Order order = orderRepository.findById(orderId)
+        .orElseThrow(() -> new RuntimeException("Order not found"));
+    if (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.REASSIGNED) {
+      return null;
+    }
+
+    // a reassigned order goes to any vehicle but the one that gave it back
+    String previousVehicleId = order.getStatus() == OrderStatus.REASSIGNED && order.getRoute() != null
+        ? order.getRoute().getVehicle().getId()
+        : null;
+
+    Map<String, Vehicle> vehicles = vehicleRepository.findByCategoryIn(List.of(order.getCategory())).stream()
+        .filter(v -> v.getStatus() == VehicleStatus.ACTIVE)
+        .filter(v -> !v.getId().equals(previousVehicleId))
+        .collect(Collectors.toMap(Vehicle::getId, Function.identity()));
+    if (vehicles.isEmpty()) {
+      return null;
+    }
+
+    Map<String, Route> routes = routeRepository.findByStatusAndVehicleIdIn(RouteStatus.IN_PROGRESS, vehicles.keySet())
+        .stream()
+        .collect(Collectors.toMap(r -> r.getVehicle().getId(), Function.identity()));
+
+    Map<String, List<Order>> stopsByVehicle = new HashMap<>();
+    List<InsertionEngine.Candidate> candidates = new ArrayList<>();
+    for (Route route : routes.values()) {
+      Vehicle vehicle = vehicles.get(route.getVehicle().getId());
+      List<Order> stops = route.getOrders().stream()
+          .filter(o -> !o.getId().equals(orderId))
+          .sorted(Comparator.comparing(Order::getIndex, Comparator.nullsLast(Comparator.naturalOrder())))
+          .toList();
+      stopsByVehicle.put(vehicle.getId(), stops);
+      candidates.add(new InsertionEngine.Candidate(mapper.mapVrp(vehicle),
+          mapper.mapVrp(vehicle.getDepot()).getLocation(),
+          stops.stream().map(mapper::mapVrp).toList()));
+    }
+
+    VrpJob job = mapper.mapVrp(order);
+    Optional<InsertionEngine.Insertion> best = insertionEngine.bestInsertion(candidates, job);
+    if (best.isEmpty()) {
+      log.info("No running route can take order {}, leaving it for the next dispatch", orderId);
+      return null;
+    }
+    InsertionEngine.Insertion insertion = best.get();
+    if (insertion.addedKm() > maxAddedKm) {
+      log.info("Inserting order {} adds {} km (max {}), leaving it for the next dispatch",
+          orderId, String.format("%.2f", insertion.addedKm()), maxAddedKm);
+      return null;
+    }
+
+    String vehicleId = insertion.candidate().vehicle().getId();
+    Route route = routes.get(vehicleId);
+    List<Order> stops = stopsByVehicle.get(vehicleId);
+
+    // only stops whose index actually changes are written, normally just the ones behind the new stop
+    for (int i = 0; i < stops.size(); i++) {
+      int index = i < insertion.position() ? i : i + 1;
+      if (!Objects.equals(stops.get(i).getIndex(), index)) {
+        stops.get(i).setIndex(index);
+      }
+    }
+    order.setIndex(insertion.position());
+    order.setStatus(OrderStatus.IN_PROGRESS);
+    order.setRoute(route);
+
+    VrpRoute updated = insertionEngine.apply(insertion, job, route.getDistance(), route.getDuration());
+    route.setDistance(updated.getDistance());
+    route.setDuration(updated.getDuration());
+    route.setGeometryStale(true); // drawn by the solver without the new stop, the next dispatch redraws it
+    route.getOrders().add(order);
+
+    log.info("Inserted order {} into route {} at position {}, {} km added",
+        orderId, route.getId(), insertion.position(), String.format("%.2f", insertion.addedKm()));
+    return new Inserted(order.getId(), route.getId());
+  }
+}
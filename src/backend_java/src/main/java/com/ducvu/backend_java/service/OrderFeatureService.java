@@ -0,0 +1,125 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DepotRepository;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+// computes the spatial features of an order once it is saved: its map cell and the distance to every depot of its
+// category, so dispatches, partitioning and the map read them instead of measuring each order again
+// runs off the request thread and never fails an order write, orders it missed are picked up by the backfill
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderFeatureService {
+  private static final List<OrderStatus> OPEN = List.of(OrderStatus.PENDING, OrderStatus.REASSIGNED);
+
+  private final OrderRepository orderRepository;
+  private final DepotRepository depotRepository;
+  private final ExecutorService featureExecutor;
+  private final PendingOrderBook pendingOrderBook;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${dispatch.features.enabled:true}")
+  private boolean enabled;
+
+  @Value("${dispatch.features.batch-size:500}")
+  private int batchSize;
+
+  // called after an order was created or edited
+  public void orderSaved(String orderId) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      featureExecutor.execute(() -> {
+        try {
+          enrich(List.of(orderId));
+        } catch (RuntimeException e) {
+          log.warn("Computing features of order {} failed, leaving it to the backfill: {}", orderId, e.getMessage());
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      log.debug("Feature queue is full, leaving order {} to the backfill", orderId);
+    }
+  }
+
+  // depots were added, moved or removed: depot distances are dropped right away so nothing reads stale ones,
+  // the backfill computes them again
+  public void depotsChanged() {
+    Integer cleared = transactionTemplate.execute(status -> orderRepository.clearDepotFeatures());
+    pendingOrderBook.depotsChanged();
+    log.info("Depots changed, cleared depot features of {} orders", cleared);
+  }
+
+  @Scheduled(initialDelayString = "${dispatch.features.backfill-ms:60000}",
+      fixedDelayString = "${dispatch.features.backfill-ms:60000}")
+  public void backfill() {
+    if (!enabled) {
+      return;
+    }
+    List<String> orderIds = orderRepository.findIdsWithoutFeatures(OPEN, PageRequest.of(0, batchSize));
+    if (!orderIds.isEmpty()) {
+      log.info("Computed features of {} of {} open orders without them", enrich(orderIds), orderIds.size());
+    }
+  }
+
+  // number of orders whose features were saved
+  public int enrich(Collection<String> orderIds) {
+    Map<TrashCategory, List<Depot>> depotsByCategory = depotRepository.findAll().stream()
+        .filter(depot -> depot.getCategory() != null && depot.getLatitude() != null && depot.getLongitude() != null)
+        .collect(Collectors.groupingBy(Depot::getCategory));
+
+    Map<String, OrderFeatures> enriched = new HashMap<>();
+    Integer saved = transactionTemplate.execute(status -> {
+      int count = 0;
+      for (Order order : orderRepository.findAllById(orderIds)) {
+        if (order.getLatitude() == null || order.getLongitude() == null) {
+          continue;
+        }
+        OrderFeatures features = compute(order, depotsByCategory.getOrDefault(order.getCategory(), List.of()));
+        int updated = orderRepository.saveFeatures(order.getId(), order.getLatitude(), order.getLongitude(),
+            order.getCategory(), features.getCellId(), features.getNearestDepotId(), features.getDepotDistances(),
+            features.getComputedAt());
+        if (updated > 0) {
+          enriched.put(order.getId(), features);
+        }
+        count += updated;
+      }
+      return count;
+    });
+    enriched.forEach(pendingOrderBook::featuresChanged); // once committed
+    return saved != null ? saved : 0;
+  }
+
+  static OrderFeatures compute(Order order, List<Depot> depots) {
+    Map<String, Double> distances = new HashMap<>();
+    String nearest = null;
+    for (Depot depot : depots) {
+      double km = GeoUtils.haversine(order.getLatitude(), order.getLongitude(), depot.getLatitude(), depot.getLongitude());
+      distances.put(depot.getId(), km);
+      if (nearest == null || km < distances.get(nearest)) {
+        nearest = depot.getId();
+      }
+    }
+    return OrderFeatures.builder()
+        .cellId(GeoUtils.cellOf(order.getLatitude(), order.getLongitude()))
+        .nearestDepotId(nearest)
+        .depotDistances(distances)
+        .computedAt(LocalDateTime.now())
+        .build();
+  }
+}
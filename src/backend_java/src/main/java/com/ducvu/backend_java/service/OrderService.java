@@ -3,12 +3,14 @@ package com.ducvu.backend_java.service;
 
 import com.ducvu.backend_java.dto.request.OrderCreateRequest;
 import com.ducvu.backend_java.dto.request.OrderUpdateRequest;
+import com.ducvu.backend_java.dto.response.OrderCellResponse;
 import com.ducvu.backend_java.dto.response.OrderResponse;
 import com.ducvu.backend_java.model.*;
 import com.ducvu.backend_java.repository.DispatchRepository;
 import com.ducvu.backend_java.repository.OrderRepository;
 import com.ducvu.backend_java.repository.RouteRepository;
 import com.ducvu.backend_java.repository.UserRepository;
+import com.ducvu.backend_java.util.GeoUtils;
 import com.ducvu.backend_java.util.Mapper;
 import com.ducvu.backend_java.util.Validator;
 import lombok.RequiredArgsConstructor;
@@ -17,7 +19,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +37,10 @@ public class OrderService {
   private final NotificationService notificationService;
   private final UserRepository userRepository;
   private final MinioService minioService;
+  private final IncrementalDispatchService incrementalDispatchService;
+  private final SpeculativePlanner speculativePlanner;
+  private final OrderFeatureService orderFeatureService;
+  private final PendingOrderBook pendingOrderBook;
 
   public List<OrderResponse> getOrdersByUserId(String userId) {
     User user = userService.getCurrentUser();
@@ -75,6 +84,44 @@ public class OrderService {
         .toList();
   }
 
+  // pending orders counted per map cell and category, orders whose features are not computed yet are placed here
+  // served from the order book once it is built
+  public List<OrderCellResponse> getPendingOrderCells() {
+    Map<String, OrderCellResponse> cells = new LinkedHashMap<>();
+    if (pendingOrderBook.isReady()) {
+      for (TrashCategory category : TrashCategory.values()) {
+        pendingOrderBook.cells(category).forEach((cellId, orders) -> addToCell(cells, cellId, category,
+            orders.size(), orders.stream().mapToDouble(o -> o.getWeight() != null ? o.getWeight() : 0.0).sum()));
+      }
+      return new ArrayList<>(cells.values());
+    }
+    for (OrderRepository.OrderCellCount count : orderRepository.countByCell(OrderStatus.PENDING)) {
+      addToCell(cells, count.getCellId(), count.getCategory(), count.getOrders(), count.getWeight());
+    }
+    for (Order order : orderRepository.findWithoutCell(OrderStatus.PENDING)) {
+      if (order.getLatitude() != null && order.getLongitude() != null) {
+        addToCell(cells, GeoUtils.cellOf(order.getLatitude(), order.getLongitude()), order.getCategory(), 1L,
+            order.getWeight());
+      }
+    }
+    return new ArrayList<>(cells.values());
+  }
+
+  private static void addToCell(Map<String, OrderCellResponse> cells, long cellId, TrashCategory category, long orders,
+                                Double weight) {
+    List<Double> centre = GeoUtils.cellCentre(cellId);
+    OrderCellResponse cell = cells.computeIfAbsent(cellId + "|" + category, k -> OrderCellResponse.builder()
+        .cellId(cellId)
+        .category(category)
+        .latitude(centre.get(0))
+        .longitude(centre.get(1))
+        .orders(0L)
+        .weight(0.0)
+        .build());
+    cell.setOrders(cell.getOrders() + orders);
+    cell.setWeight(cell.getWeight() + (weight != null ? weight : 0.0));
+  }
+
   public List<OrderResponse> getOrdersSorted() {
     return orderRepository.findAllOrdersSorted()
         .stream()
@@ -120,6 +167,7 @@ public class OrderService {
     }
 
     if (request.getCategory() != null) {
+      speculativePlanner.categoryChanged(order.getCategory());
       order.setCategory(request.getCategory());
     }
 
@@ -129,6 +177,9 @@ public class OrderService {
     }
 
     order = orderRepository.save(order);
+    pendingOrderBook.orderChanged(order);
+    speculativePlanner.categoryChanged(order.getCategory());
+    orderFeatureService.orderSaved(order.getId());
     notifyUpdatedOrder(order);
     return mapper.map(order);
   }
@@ -154,8 +205,13 @@ public class OrderService {
 
 
     order = orderRepository.save(order);
+    pendingOrderBook.orderChanged(order);
+    speculativePlanner.categoryChanged(order.getCategory());
+    orderFeatureService.orderSaved(order.getId());
 
     notifyNewOrder(order);
+    // while a dispatch runs the order is slotted into a route in the background, otherwise it waits for the next one
+    incrementalDispatchService.orderPending(order);
     return mapper.map(order);
   }
 
@@ -165,8 +221,11 @@ public class OrderService {
 
     order.setStatus(OrderStatus.REASSIGNED);
     order = orderRepository.save(order);
+    pendingOrderBook.orderChanged(order);
+    speculativePlanner.categoryChanged(order.getCategory());
 
     notifyOrderReassignment(order);
+    incrementalDispatchService.orderPending(order);
     return mapper.map(order);
   }
 
@@ -182,6 +241,8 @@ public class OrderService {
     // order.setCompletedAt(LocalDateTime.now());
 
     order = orderRepository.save(order);
+    pendingOrderBook.orderChanged(order);
+    speculativePlanner.categoryChanged(order.getCategory());
 
     notifyOrderCancelled(order);
     return mapper.map(order);
@@ -195,6 +256,8 @@ public class OrderService {
     order.setCompletedAt(LocalDateTime.now());
 
     order = orderRepository.save(order);
+    pendingOrderBook.orderChanged(order);
+    speculativePlanner.categoryChanged(order.getCategory());
 
     notifyOrderCompleted(order);
     return mapper.map(order);
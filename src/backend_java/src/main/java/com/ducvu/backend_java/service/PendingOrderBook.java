@@ -0,0 +1,225 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// pending and reassigned orders of this node in memory, sharded by category and map cell, so dispatches and the map
+// read them without scanning the orders table
+// entries are detached copies holding only what dispatching reads (no user, no route) and must not be modified
+// every order write of this node is applied right after it commits, a write carrying an older version than the entry
+// is ignored; writes of other nodes are picked up by the periodic resync, and a stale entry only costs a dispatch
+// conflict since saving checks every order's version against the database
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PendingOrderBook {
+  private static final Comparator<Order> CREATED = Comparator
+      .comparing(Order::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+      .thenComparing(Order::getId);
+
+  private final OrderRepository orderRepository;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+
+  @Value("${dispatch.order-book.enabled:true}")
+  private boolean enabled;
+
+  private volatile Shards shards = new Shards();
+  private volatile boolean ready;
+  private List<Order> recorded; // writes made while a rebuild reads the table, guarded by this
+
+  // category -> cell -> order id -> entry, plus the entry of every id to find its shard again
+  private static class Shards {
+    final Map<TrashCategory, Map<Long, Map<String, Order>>> byCategory = new EnumMap<>(TrashCategory.class);
+    final Map<String, Order> byId = new ConcurrentHashMap<>();
+
+    Shards() {
+      for (TrashCategory category : TrashCategory.values()) {
+        byCategory.put(category, new ConcurrentHashMap<>());
+      }
+    }
+
+    void apply(Order order) {
+      Order current = byId.get(order.getId());
+      if (current != null && current.getVersion() != null && order.getVersion() != null
+          && order.getVersion() < current.getVersion()) {
+        return;
+      }
+      if (current != null) {
+        Map<String, Order> cell = byCategory.get(current.getCategory()).get(cellOf(current));
+        if (cell != null) {
+          cell.remove(current.getId());
+          if (cell.isEmpty()) {
+            byCategory.get(current.getCategory()).remove(cellOf(current));
+          }
+        }
+        byId.remove(order.getId());
+      }
+      if (isOpen(order)) {
+        byCategory.get(order.getCategory())
+            .computeIfAbsent(cellOf(order), k -> new ConcurrentHashMap<>())
+            .put(order.getId(), order);
+        byId.put(order.getId(), order);
+      }
+    }
+  }
+
+  // false until the first rebuild finished, readers then use the database
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    if (enabled) {
+      rebuild();
+    }
+  }
+
+  @Scheduled(initialDelayString = "${dispatch.order-book.resync-ms:300000}",
+      fixedDelayString = "${dispatch.order-book.resync-ms:300000}")
+  public void resync() {
+    if (enabled) {
+      rebuild();
+    }
+  }
+
+  // reads every open order, writes applied meanwhile are replayed on top so none of them is lost
+  public void rebuild() {
+    synchronized (this) {
+      recorded = new ArrayList<>();
+    }
+    List<Order> rows;
+    try {
+      rows = readOnlyTransactionTemplate.execute(status ->
+          orderRepository.findByStatusIn(List.of(OrderStatus.PENDING, OrderStatus.REASSIGNED)).stream()
+              .map(PendingOrderBook::copy)
+              .toList());
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        recorded = null;
+      }
+      log.warn("Rebuilding the pending order book failed: {}", e.getMessage());
+      return;
+    }
+
+    synchronized (this) {
+      Shards fresh = new Shards();
+      Optional.ofNullable(rows).orElse(List.of()).forEach(fresh::apply);
+      recorded.forEach(fresh::apply);
+      recorded = null;
+      shards = fresh;
+      ready = true;
+    }
+    log.info("Pending order book holds {} orders", shards.byId.size());
+  }
+
+  // called with the committed state of an order after any write, an order no longer open leaves the book
+  public void orderChanged(Order order) {
+    if (!enabled || order == null || order.getId() == null) {
+      return;
+    }
+    Order entry = copy(order);
+    synchronized (this) {
+      shards.apply(entry);
+      if (recorded != null) {
+        recorded.add(entry);
+      }
+    }
+  }
+
+  public void ordersChanged(Collection<Order> orders) {
+    orders.forEach(this::orderChanged);
+  }
+
+  // features are saved without a version bump, so they replace the entry's own as long as it is unchanged
+  public void featuresChanged(String orderId, OrderFeatures features) {
+    Order current = shards.byId.get(orderId);
+    if (current != null) {
+      Order entry = copy(current);
+      entry.setFeatures(features);
+      orderChanged(entry);
+    }
+  }
+
+  // depot distances were dropped from the table, the cells stay
+  public void depotsChanged() {
+    for (Order current : new ArrayList<>(shards.byId.values())) {
+      if (current.getFeatures() != null) {
+        featuresChanged(current.getId(), OrderFeatures.builder().cellId(current.getFeatures().getCellId()).build());
+      }
+    }
+  }
+
+  // oldest first like the database queries, empty categories means all of them
+  // reassigned orders only go back into a running dispatch, a new one starts from the pending ones
+  public List<Order> pending(Collection<TrashCategory> categories, boolean includeReassigned) {
+    Collection<TrashCategory> wanted = categories.isEmpty() ? EnumSet.allOf(TrashCategory.class) : categories;
+    List<Order> orders = new ArrayList<>();
+    for (TrashCategory category : wanted) {
+      shards.byCategory.get(category).values().forEach(cell -> cell.values().stream()
+          .filter(order -> includeReassigned || order.getStatus() == OrderStatus.PENDING)
+          .forEach(orders::add));
+    }
+    orders.sort(CREATED);
+    return orders;
+  }
+
+  // pending orders of the category by cell
+  public Map<Long, List<Order>> cells(TrashCategory category) {
+    Map<Long, List<Order>> cells = new HashMap<>();
+    shards.byCategory.get(category).forEach((cellId, cell) -> {
+      List<Order> orders = cell.values().stream()
+          .filter(order -> order.getStatus() == OrderStatus.PENDING)
+          .toList();
+      if (!orders.isEmpty()) {
+        cells.put(cellId, orders);
+      }
+    });
+    return cells;
+  }
+
+  private static boolean isOpen(Order order) {
+    return order.getCategory() != null && order.getLatitude() != null && order.getLongitude() != null
+        && (order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.REASSIGNED);
+  }
+
+  private static long cellOf(Order order) {
+    return order.getFeatures() != null && order.getFeatures().getCellId() != null
+        ? order.getFeatures().getCellId()
+        : GeoUtils.cellOf(order.getLatitude(), order.getLongitude());
+  }
+
+  private static Order copy(Order order) {
+    OrderFeatures features = order.getFeatures();
+    return Order.builder()
+        .id(order.getId())
+        .version(order.getVersion())
+        .status(order.getStatus())
+        .category(order.getCategory())
+        .latitude(order.getLatitude())
+        .longitude(order.getLongitude())
+        .address(order.getAddress())
+        .weight(order.getWeight())
+        .createdAt(order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now())
+        .features(features == null ? null : OrderFeatures.builder()
+            .cellId(features.getCellId())
+            .nearestDepotId(features.getNearestDepotId())
+            .depotDistances(features.getDepotDistances() != null ? Map.copyOf(features.getDepotDistances()) : null)
+            .computedAt(features.getComputedAt())
+            .build())
+        .build();
+  }
+}
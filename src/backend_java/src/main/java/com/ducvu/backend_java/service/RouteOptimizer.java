@@ -0,0 +1,236 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DispatchRepository;
+import com.ducvu.backend_java.repository.RouteRepository;
+import com.ducvu.backend_java.solver.RouteImprover;
+import com.ducvu.backend_java.util.Mapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// periodically shortens the routes of the running dispatch: the open stops are reordered and moved between vehicles
+// of the same category for a bounded time, and the result is only saved when it is clearly shorter
+// works on a snapshot and saves nothing if any of the routes changed in the meantime
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RouteOptimizer {
+  private final DispatchRepository dispatchRepository;
+  private final RouteRepository routeRepository;
+  private final DispatchJobService dispatchJobService;
+  private final Mapper mapper;
+  private final NotificationService notificationService;
+  private final ExecutorService optimizerExecutor;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+
+  @Value("${dispatch.reoptimize.enabled:false}")
+  private boolean enabled;
+
+  @Value("${dispatch.reoptimize.budget-ms:2000}")
+  private long budgetMs;
+
+  @Value("${dispatch.reoptimize.min-gain:0.05}")
+  private double minGain;
+
+  @Value("${dispatch.reoptimize.allow-transfers:true}")
+  private boolean allowTransfers;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  // routes of one category as they were read, stops in driving order with the version each order had
+  record Snapshot(TrashCategory category, VrpRequest request, Map<String, String> routeByVehicle,
+                  Map<String, List<String>> stopsByRoute, Map<String, Long> versions) {
+  }
+
+  @Scheduled(initialDelayString = "${dispatch.reoptimize.interval-ms:300000}",
+      fixedDelayString = "${dispatch.reoptimize.interval-ms:300000}")
+  public void tick() {
+    if (!enabled || dispatchJobService.isDispatchInFlight() || !running.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      optimizerExecutor.execute(() -> {
+        try {
+          reoptimize();
+        } catch (RuntimeException e) {
+          log.warn("Route re-optimization failed: {}", e.getMessage());
+        } finally {
+          running.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      running.set(false);
+    }
+  }
+
+  // number of routes saved
+  public int reoptimize() {
+    List<Snapshot> snapshots = readOnlyTransactionTemplate.execute(status -> takeSnapshots());
+    if (snapshots == null || snapshots.isEmpty()) {
+      return 0;
+    }
+
+    int saved = 0;
+    long budgetPerCategory = budgetMs / snapshots.size();
+    for (Snapshot snapshot : snapshots) {
+      if (dispatchJobService.isDispatchInFlight()) {
+        log.info("Dispatch started, stopping route re-optimization");
+        break;
+      }
+
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetPerCategory);
+      RouteImprover.Result result = RouteImprover.improve(snapshot.request(), deadline, allowTransfers);
+      if (result.gain() < minGain) {
+        log.debug("Routes of {} are {} km, best found {} km, keeping them", snapshot.category(),
+            String.format("%.2f", result.costBefore()), String.format("%.2f", result.costAfter()));
+        continue;
+      }
+
+      List<String> changed;
+      try {
+        changed = transactionTemplate.execute(status -> apply(snapshot, result.response().getRoutes()));
+      } catch (ObjectOptimisticLockingFailureException e) {
+        log.info("Routes of {} changed while re-optimizing, keeping them: {}", snapshot.category(), e.getMessage());
+        continue;
+      }
+      if (changed == null || changed.isEmpty()) {
+        continue;
+      }
+
+      log.info("Re-optimized {} routes of {}: {} km -> {} km", changed.size(), snapshot.category(),
+          String.format("%.2f", result.costBefore()), String.format("%.2f", result.costAfter()));
+      notifyDrivers(changed);
+      saved += changed.size();
+    }
+    return saved;
+  }
+
+  private List<Snapshot> takeSnapshots() {
+    Optional<Dispatch> dispatch = dispatchRepository.findActiveDispatch();
+    if (dispatch.isEmpty()) {
+      return List.of();
+    }
+
+    Map<TrashCategory, List<Route>> routesByCategory = routeRepository.findByDispatchId(dispatch.get().getId())
+        .stream()
+        .filter(route -> route.getStatus() == RouteStatus.IN_PROGRESS)
+        .collect(Collectors.groupingBy(route -> route.getVehicle().getCategory(), TreeMap::new, Collectors.toList()));
+
+    List<Snapshot> snapshots = new ArrayList<>();
+    routesByCategory.forEach((category, routes) -> {
+      Map<String, String> routeByVehicle = new HashMap<>();
+      Map<String, List<String>> stopsByRoute = new HashMap<>();
+      Map<String, Long> versions = new HashMap<>();
+      Map<String, VrpDepot> depots = new LinkedHashMap<>();
+      List<VrpVehicle> vehicles = new ArrayList<>();
+      List<VrpRoute> vrpRoutes = new ArrayList<>();
+
+      for (Route route : routes) {
+        Vehicle vehicle = route.getVehicle();
+        List<Order> stops = stops(route);
+        routeByVehicle.put(vehicle.getId(), route.getId());
+        stopsByRoute.put(route.getId(), stops.stream().map(Order::getId).toList());
+        stops.forEach(order -> versions.put(order.getId(), order.getVersion()));
+
+        depots.computeIfAbsent(vehicle.getDepot().getId(), id -> mapper.mapVrp(vehicle.getDepot()));
+        vehicles.add(mapper.mapVrp(vehicle));
+        vrpRoutes.add(VrpRoute.builder()
+            .vehicleId(vehicle.getId())
+            .steps(stops.stream().map(mapper::mapVrp).toList())
+            .build());
+      }
+
+      boolean anyOpen = routes.stream()
+          .flatMap(route -> route.getOrders().stream())
+          .anyMatch(order -> order.getStatus() == OrderStatus.IN_PROGRESS);
+      if (anyOpen) {
+        VrpRequest request = VrpRequest.builder()
+            .depots(new ArrayList<>(depots.values()))
+            .vehicles(vehicles)
+            .routes(vrpRoutes)
+            .jobs(List.of())
+            .build();
+        snapshots.add(new Snapshot(category, request, routeByVehicle, stopsByRoute, versions));
+      }
+    });
+    return snapshots;
+  }
+
+  // completed and in progress stops in driving order, orders given back by a driver are no longer part of the route
+  private static List<Order> stops(Route route) {
+    return route.getOrders().stream()
+        .filter(order -> order.getStatus() == OrderStatus.IN_PROGRESS || order.getStatus() == OrderStatus.COMPLETED)
+        .sorted(Comparator.comparing(Order::getIndex, Comparator.nullsLast(Comparator.naturalOrder())))
+        .toList();
+  }
+
+  // ids of the routes whose stops changed, nothing is written if a route differs from the snapshot
+  private List<String> apply(Snapshot snapshot, List<VrpRoute> improved) {
+    Map<String, Route> routes = routeRepository.findAllById(snapshot.stopsByRoute().keySet()).stream()
+        .collect(Collectors.toMap(Route::getId, route -> route));
+    for (Map.Entry<String, List<String>> entry : snapshot.stopsByRoute().entrySet()) {
+      Route route = routes.get(entry.getKey());
+      if (route == null || route.getStatus() != RouteStatus.IN_PROGRESS) {
+        return List.of();
+      }
+      List<Order> stops = stops(route);
+      boolean unchanged = stops.stream().map(Order::getId).toList().equals(entry.getValue())
+          && stops.stream().allMatch(order -> Objects.equals(order.getVersion(), snapshot.versions().get(order.getId())));
+      if (!unchanged) {
+        log.info("Route {} changed while re-optimizing, keeping the routes of {}", route.getId(), snapshot.category());
+        return List.of();
+      }
+    }
+
+    Map<String, Order> orders = routes.values().stream()
+        .flatMap(route -> stops(route).stream())
+        .collect(Collectors.toMap(Order::getId, order -> order));
+
+    List<String> changed = new ArrayList<>();
+    for (VrpRoute vrpRoute : improved) {
+      Route route = routes.get(snapshot.routeByVehicle().get(vrpRoute.getVehicleId()));
+      List<String> stopIds = vrpRoute.getSteps().stream().map(VrpJob::getId).toList();
+      if (stopIds.equals(snapshot.stopsByRoute().get(route.getId()))) {
+        continue;
+      }
+
+      // only orders whose route or index actually changes are written
+      for (int i = 0; i < stopIds.size(); i++) {
+        Order order = orders.get(stopIds.get(i));
+        if (order.getRoute() != route) {
+          order.getRoute().getOrders().remove(order);
+          route.getOrders().add(order);
+          order.setRoute(route);
+        }
+        if (!Objects.equals(order.getIndex(), i)) {
+          order.setIndex(i);
+        }
+      }
+      route.setDistance(vrpRoute.getDistance());
+      route.setDuration(vrpRoute.getDuration());
+      route.setGeometry(vrpRoute.getGeometry());
+      changed.add(route.getId());
+    }
+    return changed;
+  }
+
+  private void notifyDrivers(List<String> routeIds) {
+    transactionTemplate.executeWithoutResult(status -> routeRepository.findAllById(routeIds).forEach(route ->
+        notificationService.sendSingleNotification("Route is updated", route.getVehicle().getDriver(),
+            NotificationType.ROUTE, route.getId())));
+  }
+}
@@ -0,0 +1,92 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.SolverTaskRepository;
+import com.ducvu.backend_java.solver.VrpSolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+// coordinator side of the solver work queue: the categories of a dispatch are written as task rows, any node's
+// SolverWorker solves them, and the results are collected here in category order
+// tasks still unsolved when the budget runs out are withdrawn and solved on this node with what is left
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SolverTaskQueue {
+  private final SolverTaskRepository solverTaskRepository;
+  private final DispatchSolver dispatchSolver;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+
+  @Value("${dispatch.queue.poll-ms:200}")
+  private long pollMs;
+
+  public List<CategorySolution> solve(List<CategoryProblem> problems, VrpSolver solver, long budgetMs, boolean useCache,
+                                      Consumer<CategorySolution> onSolved) {
+    long startedAt = System.currentTimeMillis();
+    String batchId = UUID.randomUUID().toString();
+    List<SolverTask> tasks = problems.stream()
+        .map(problem -> SolverTask.builder()
+            .id(UUID.randomUUID().toString())
+            .batchId(batchId)
+            .status(SolverTaskStatus.QUEUED)
+            .category(problem.getCategory())
+            .solver(solver.getName())
+            .useCache(useCache)
+            .budgetMs(budgetMs)
+            .problem(problem)
+            .attempts(0)
+            .createdAt(LocalDateTime.now())
+            .build())
+        .toList();
+    transactionTemplate.executeWithoutResult(status -> solverTaskRepository.saveAll(tasks));
+    log.info("Queued {} solver tasks in batch {}", tasks.size(), batchId);
+
+    Map<TrashCategory, CategorySolution> solved = new EnumMap<>(TrashCategory.class);
+    Set<TrashCategory> failed = EnumSet.noneOf(TrashCategory.class);
+    try {
+      while (solved.size() + failed.size() < tasks.size()) {
+        for (SolverTask task : readOnlyTransactionTemplate.execute(status -> solverTaskRepository.findByBatchId(batchId))) {
+          if (task.getStatus() == SolverTaskStatus.COMPLETED && !solved.containsKey(task.getCategory())) {
+            solved.put(task.getCategory(), task.getSolution());
+            onSolved.accept(task.getSolution());
+          } else if (task.getStatus() == SolverTaskStatus.FAILED && failed.add(task.getCategory())) {
+            log.warn("Solver task for {} failed: {}", task.getCategory(), task.getError());
+          }
+        }
+        if (solved.size() + failed.size() >= tasks.size()
+            || budgetMs > 0 && System.currentTimeMillis() - startedAt >= budgetMs) {
+          break;
+        }
+        Thread.sleep(pollMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // results are assembled, a worker still solving a withdrawn task finds its row gone and drops the result
+      transactionTemplate.executeWithoutResult(status -> solverTaskRepository.deleteAllById(
+          tasks.stream().map(SolverTask::getId).toList()));
+    }
+
+    List<CategoryProblem> unsolved = problems.stream()
+        .filter(problem -> !solved.containsKey(problem.getCategory()))
+        .toList();
+    if (!unsolved.isEmpty()) {
+      long left = budgetMs > 0 ? Math.max(1, budgetMs - (System.currentTimeMillis() - startedAt)) : 0;
+      log.warn("Solving {} categories locally, the queue did not solve them in time", unsolved.size());
+      dispatchSolver.solveCategories(unsolved, solver, left, useCache, onSolved)
+          .forEach(solution -> solved.put(solution.getCategory(), solution));
+    }
+
+    return problems.stream()
+        .map(problem -> solved.get(problem.getCategory()))
+        .toList();
+  }
+}
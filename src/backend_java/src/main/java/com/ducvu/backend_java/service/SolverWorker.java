@@ -0,0 +1,154 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.CategorySolution;
+import com.ducvu.backend_java.model.SolverTask;
+import com.ducvu.backend_java.model.SolverTaskStatus;
+import com.ducvu.backend_java.repository.SolverTaskRepository;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// worker side of the solver work queue, every node runs one: claims queued tasks in short transactions that skip rows
+// other workers hold, solves them outside any transaction and writes the result back only while it still holds the lease
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SolverWorker {
+  private final SolverTaskRepository solverTaskRepository;
+  private final DispatchSolver dispatchSolver;
+  private final VrpSolverProvider vrpSolverProvider;
+  private final ExecutorService solverWorkerExecutor;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${dispatch.queue.worker.enabled:${dispatch.queue.enabled:false}}")
+  private boolean enabled;
+
+  @Value("${dispatch.queue.worker.threads:2}")
+  private int threads;
+
+  @Value("${dispatch.queue.worker.lease-margin-ms:30000}")
+  private long leaseMarginMs; // on top of the task's solve budget before another worker may take it over
+
+  @Value("${dispatch.queue.worker.max-attempts:3}")
+  private int maxAttempts;
+
+  private final String workerId = UUID.randomUUID().toString();
+  private final AtomicInteger busy = new AtomicInteger();
+
+  @Scheduled(fixedDelayString = "${dispatch.queue.poll-ms:200}")
+  public void poll() {
+    if (!enabled) {
+      return;
+    }
+    while (busy.get() < threads) {
+      Optional<SolverTask> task = claim();
+      if (task.isEmpty()) {
+        return;
+      }
+      busy.incrementAndGet();
+      try {
+        solverWorkerExecutor.execute(() -> {
+          try {
+            work(task.get());
+          } finally {
+            busy.decrementAndGet();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        busy.decrementAndGet();
+        return; // the lease runs out and the task is claimed again
+      }
+    }
+  }
+
+  // next task this worker may solve, tasks whose leases ran out too often are failed on the way
+  Optional<SolverTask> claim() {
+    while (true) {
+      Claim claim = transactionTemplate.execute(status -> {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<SolverTask> next = solverTaskRepository.claimNext(now);
+        if (next.isEmpty()) {
+          return new Claim(null, false);
+        }
+        SolverTask task = next.get();
+        int attempts = Optional.ofNullable(task.getAttempts()).orElse(0);
+        if (attempts >= maxAttempts) {
+          task.setStatus(SolverTaskStatus.FAILED);
+          task.setError("Lease ran out " + attempts + " times");
+          task.setCompletedAt(now);
+          solverTaskRepository.save(task);
+          return new Claim(null, true);
+        }
+        if (task.getStatus() == SolverTaskStatus.RUNNING) {
+          log.warn("Lease of worker {} on solver task {} ran out, taking it over", task.getLeaseOwner(), task.getId());
+        }
+        long budgetMs = Optional.ofNullable(task.getBudgetMs()).orElse(0L);
+        task.setStatus(SolverTaskStatus.RUNNING);
+        task.setLeaseOwner(workerId);
+        task.setLeaseExpiresAt(now.plusNanos((budgetMs + leaseMarginMs) * 1_000_000));
+        task.setAttempts(attempts + 1);
+        return new Claim(solverTaskRepository.save(task), false);
+      });
+      if (claim == null || !claim.skipped()) {
+        return Optional.ofNullable(claim).map(Claim::task);
+      }
+    }
+  }
+
+  void work(SolverTask task) {
+    try {
+      long budgetMs = Optional.ofNullable(task.getBudgetMs()).orElse(0L);
+      CategorySolution solution = dispatchSolver.solveCategories(List.of(task.getProblem()),
+          vrpSolverProvider.getSolver(task.getSolver()), budgetMs, task.isUseCache(), s -> {}).get(0);
+      finish(task.getId(), found -> {
+        found.setStatus(SolverTaskStatus.COMPLETED);
+        found.setSolution(solution);
+      });
+    } catch (RuntimeException e) {
+      log.warn("Solver task {} failed: {}", task.getId(), e.getMessage());
+      finish(task.getId(), found -> {
+        found.setStatus(SolverTaskStatus.FAILED);
+        found.setError(e.getMessage());
+      });
+    }
+  }
+
+  // the result is dropped if the task was withdrawn or another worker took it over meanwhile
+  private void finish(String taskId, Consumer<SolverTask> update) {
+    boolean written;
+    try {
+      written = Boolean.TRUE.equals(transactionTemplate.execute(status -> solverTaskRepository.findById(taskId)
+          .filter(task -> task.getStatus() == SolverTaskStatus.RUNNING && Objects.equals(task.getLeaseOwner(), workerId))
+          .map(task -> {
+            update.accept(task);
+            task.setCompletedAt(LocalDateTime.now());
+            solverTaskRepository.save(task);
+            return true;
+          })
+          .orElse(false)));
+    } catch (ObjectOptimisticLockingFailureException e) {
+      written = false; // claimed by another worker between the read and the write
+    }
+    if (!written) {
+      log.info("Solver task {} is no longer held by this worker, dropping its result", taskId);
+    }
+  }
+
+  private record Claim(SolverTask task, boolean skipped) {
+  }
+}
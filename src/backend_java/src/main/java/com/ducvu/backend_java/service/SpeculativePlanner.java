@@ -0,0 +1,88 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.TrashCategory;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// keeps a plan for the pending orders ready so pressing dispatch only has to save it
+// order changes mark their category, each tick plans the marked categories again in the background
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpeculativePlanner {
+  private final DispatchService dispatchService;
+  private final DispatchJobService dispatchJobService;
+  private final ExecutorService optimizerExecutor;
+
+  @Value("${dispatch.speculative.enabled:true}")
+  private boolean enabled;
+
+  private final Set<TrashCategory> changed = EnumSet.noneOf(TrashCategory.class); // guarded by this
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  // orders left pending by the previous run are planned on the first tick
+  @PostConstruct
+  public void planEverything() {
+    synchronized (this) {
+      changed.addAll(EnumSet.allOf(TrashCategory.class));
+    }
+  }
+
+  // called for every order created, edited, given back, cancelled or completed in this category
+  public void categoryChanged(TrashCategory category) {
+    if (!enabled || category == null) {
+      return;
+    }
+    synchronized (this) {
+      changed.add(category);
+    }
+  }
+
+  // changes coming in quick succession are planned together on the next tick, a running dispatch goes first
+  @Scheduled(initialDelayString = "${dispatch.speculative.interval-ms:5000}",
+      fixedDelayString = "${dispatch.speculative.interval-ms:5000}")
+  public void tick() {
+    if (!enabled || dispatchJobService.isDispatchInFlight() || !running.compareAndSet(false, true)) {
+      return;
+    }
+    Set<TrashCategory> categories;
+    synchronized (this) {
+      categories = EnumSet.copyOf(changed);
+      changed.clear();
+    }
+    if (categories.isEmpty()) {
+      running.set(false);
+      return;
+    }
+
+    try {
+      optimizerExecutor.execute(() -> {
+        try {
+          dispatchService.speculate(categories);
+        } catch (RuntimeException e) {
+          log.warn("Planning ahead failed: {}", e.getMessage());
+          requeue(categories);
+        } finally {
+          running.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      requeue(categories);
+      running.set(false);
+    }
+  }
+
+  private synchronized void requeue(Set<TrashCategory> categories) {
+    changed.addAll(categories);
+  }
+}
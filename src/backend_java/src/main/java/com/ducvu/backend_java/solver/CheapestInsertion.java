@@ -0,0 +1,93 @@
+package com.ducvu.backend_java.solver;
+
+import java.util.*;
+
+// capacitated cheapest insertion, farthest jobs first
+class CheapestInsertion {
+
+  private CheapestInsertion() {
+  }
+
+  // returns the nodes that could not be placed in any route
+  static List<Integer> insertAll(Instance instance, List<PlanRoute> routes, List<Integer> candidates) {
+    List<Integer> ordered = new ArrayList<>(candidates);
+    ordered.sort(Comparator.comparingDouble((Integer node) -> nearestEnd(instance, routes, node)).reversed());
+
+    List<Integer> unassigned = new ArrayList<>();
+    for (int node : ordered) {
+      if (!insert(instance, routes, node)) {
+        unassigned.add(node);
+      }
+    }
+    return unassigned;
+  }
+
+  // nearest-depot clustering: each job is offered to the routes ending at its nearest depot first, overflow goes anywhere
+  static List<Integer> insertClustered(Instance instance, List<PlanRoute> routes, List<Integer> candidates) {
+    Map<Integer, List<PlanRoute>> routesByDepot = new HashMap<>();
+    routes.forEach(route -> routesByDepot.computeIfAbsent(route.end, k -> new ArrayList<>()).add(route));
+
+    List<Integer> ordered = new ArrayList<>(candidates);
+    ordered.sort(Comparator.comparingDouble((Integer node) -> nearestEnd(instance, routes, node)).reversed());
+
+    List<Integer> overflow = new ArrayList<>();
+    for (int node : ordered) {
+      int depot = nearestDepot(instance, routesByDepot.keySet(), node);
+      if (!insert(instance, routesByDepot.get(depot), node)) {
+        overflow.add(node);
+      }
+    }
+    return insertAll(instance, routes, overflow);
+  }
+
+  static boolean insert(Instance instance, List<PlanRoute> routes, int node) {
+    PlanRoute bestRoute = null;
+    int bestPos = -1;
+    double bestDelta = Double.MAX_VALUE;
+
+    for (PlanRoute route : routes) {
+      if (route.load + instance.demands[node] > route.capacity) {
+        continue;
+      }
+      for (int pos = route.locked; pos <= route.size(); pos++) {
+        int a = route.at(pos - 1);
+        int b = route.at(pos);
+        double delta = instance.cost(a, node) + instance.cost(node, b) - instance.cost(a, b);
+        if (delta < bestDelta) {
+          bestDelta = delta;
+          bestRoute = route;
+          bestPos = pos;
+        }
+      }
+    }
+
+    if (bestRoute == null) {
+      return false;
+    }
+
+    bestRoute.nodes.add(bestPos, node);
+    bestRoute.load += instance.demands[node];
+    return true;
+  }
+
+  private static int nearestDepot(Instance instance, Set<Integer> depots, int node) {
+    int best = -1;
+    double bestCost = Double.MAX_VALUE;
+    for (int depot : depots) {
+      double cost = instance.cost(depot, node);
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = depot;
+      }
+    }
+    return best;
+  }
+
+  private static double nearestEnd(Instance instance, List<PlanRoute> routes, int node) {
+    double best = Double.MAX_VALUE;
+    for (PlanRoute route : routes) {
+      best = Math.min(best, instance.cost(route.end, node));
+    }
+    return best;
+  }
+}
@@ -0,0 +1,48 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.util.GeoUtils;
+
+import java.util.List;
+
+// haversine distances (km) between solver nodes, dense for small problems and computed on demand otherwise
+class CostMatrix {
+  private static final int MAX_DENSE_SIZE = 1500;
+
+  private final double[] lats;
+  private final double[] lons;
+  private final double[][] dense;
+
+  CostMatrix(List<List<Double>> locations) {
+    int n = locations.size();
+    lats = new double[n];
+    lons = new double[n];
+    for (int i = 0; i < n; i++) {
+      lats[i] = locations.get(i).get(0);
+      lons[i] = locations.get(i).get(1);
+    }
+
+    if (n <= MAX_DENSE_SIZE) {
+      dense = new double[n][n];
+      for (int i = 0; i < n; i++) {
+        for (int j = i + 1; j < n; j++) {
+          double d = GeoUtils.haversine(lats[i], lons[i], lats[j], lons[j]);
+          dense[i][j] = d;
+          dense[j][i] = d;
+        }
+      }
+    } else {
+      dense = null;
+    }
+  }
+
+  int size() {
+    return lats.length;
+  }
+
+  double get(int from, int to) {
+    if (dense != null) {
+      return dense[from][to];
+    }
+    return from == to ? 0.0 : GeoUtils.haversine(lats[from], lons[from], lats[to], lons[to]);
+  }
+}
@@ -0,0 +1,37 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// construction only: nearest-depot clustering and cheapest insertion, no improvement phase
+// fast and always feasible, dispatch falls back to it when the configured solver fails or runs out of time
+@Component
+@Slf4j
+public class GreedyVrpSolver implements VrpSolver {
+  public static final String NAME = "greedy";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public VrpResponse solve(VrpRequest request) {
+    long startedAt = System.nanoTime();
+
+    NativeVrpSolver.Plan plan = NativeVrpSolver.plan(request);
+    List<Integer> unassigned = plan.routes().isEmpty()
+        ? plan.candidates()
+        : CheapestInsertion.insertClustered(plan.instance(), plan.routes(), plan.candidates());
+
+    VrpResponse response = plan.toResponse(unassigned);
+    log.info("Greedy solver finished in {} ms: {} jobs, {} unassigned",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), plan.candidates().size(), unassigned.size());
+    return response;
+  }
+}
@@ -0,0 +1,82 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import com.ducvu.backend_java.util.GeoUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// cheapest single-job insertion into running routes, used to slot one order in without re-solving the dispatch
+@Component
+public class InsertionEngine {
+
+  // steps are in visiting order, the route runs depot -> steps -> depot like NativeVrpSolver.toVrpRoute
+  public record Candidate(VrpVehicle vehicle, List<Double> depotLocation, List<VrpJob> steps) {
+  }
+
+  // position is the index in the candidate's steps the job goes to, addedKm the detour it costs
+  public record Insertion(Candidate candidate, int position, double addedKm) {
+  }
+
+  // only positions after the last completed step are tried, the load counts every step of the route
+  // since nothing is unloaded before the vehicle is back at its depot
+  public Optional<Insertion> bestInsertion(List<Candidate> candidates, VrpJob job) {
+    Insertion best = null;
+    for (Candidate candidate : candidates) {
+      double load = candidate.steps().stream().mapToDouble(InsertionEngine::demandOf).sum();
+      if (candidate.vehicle().getCapacity() == null || load + demandOf(job) > candidate.vehicle().getCapacity()) {
+        continue;
+      }
+
+      int firstOpen = 0;
+      for (int i = 0; i < candidate.steps().size(); i++) {
+        if ("completed".equals(candidate.steps().get(i).getStatus())) {
+          firstOpen = i + 1;
+        }
+      }
+
+      for (int pos = firstOpen; pos <= candidate.steps().size(); pos++) {
+        List<Double> before = pos == 0 ? candidate.depotLocation() : candidate.steps().get(pos - 1).getLocation();
+        List<Double> after = pos == candidate.steps().size()
+            ? candidate.depotLocation()
+            : candidate.steps().get(pos).getLocation();
+        double delta = cost(before, job.getLocation()) + cost(job.getLocation(), after) - cost(before, after);
+        if (best == null || delta < best.addedKm()) {
+          best = new Insertion(candidate, pos, delta);
+        }
+      }
+    }
+    return Optional.ofNullable(best);
+  }
+
+  // the route after the insertion without geometry: the road geometry of the solver is kept by the caller and only
+  // marked stale, redrawing it straight-line would show drivers lines through buildings
+  // distance and duration grow by the detour at the route's own pace so road distances from the remote solver are kept
+  public VrpRoute apply(Insertion insertion, VrpJob job, Double distance, Double duration) {
+    Candidate candidate = insertion.candidate();
+    List<VrpJob> steps = new ArrayList<>(candidate.steps());
+    steps.add(insertion.position(), job);
+
+    VrpRoute straight = NativeVrpSolver.toVrpRoute(candidate.vehicle(), candidate.depotLocation(), steps);
+    straight.setGeometry(null);
+    if (distance == null) {
+      return straight;
+    }
+    double minutesPerKm = duration != null && distance > 0
+        ? duration / distance
+        : straight.getDistance() > 0 ? straight.getDuration() / straight.getDistance() : 0.0;
+    straight.setDistance(distance + insertion.addedKm());
+    straight.setDuration((duration != null ? duration : 0.0) + insertion.addedKm() * minutesPerKm);
+    return straight;
+  }
+
+  private static double cost(List<Double> from, List<Double> to) {
+    return GeoUtils.haversine(from, to);
+  }
+
+  private static double demandOf(VrpJob job) {
+    return job.getDemand() != null ? job.getDemand() : 0.0;
+  }
+}
@@ -0,0 +1,24 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+
+import java.util.List;
+
+// node data shared by the native heuristics, nodes [0, jobs.size()) are jobs and the rest are depots/vehicle positions
+class Instance {
+  final CostMatrix costs;
+  final List<VrpJob> jobs;
+  final double[] demands;
+  final boolean[] pinned; // in-progress steps stay on their vehicle
+
+  Instance(CostMatrix costs, List<VrpJob> jobs, double[] demands, boolean[] pinned) {
+    this.costs = costs;
+    this.jobs = jobs;
+    this.demands = demands;
+    this.pinned = pinned;
+  }
+
+  double cost(int from, int to) {
+    return costs.get(from, to);
+  }
+}
@@ -0,0 +1,184 @@
+package com.ducvu.backend_java.solver;
+
+import java.util.Collections;
+import java.util.List;
+
+// first-improvement local search over the movable part of each route: 2-opt, relocate and swap
+// nodes in a route's locked prefix are never moved and nothing is placed in front of them
+class LocalSearch {
+  private static final double EPSILON = 1e-9;
+
+  private LocalSearch() {
+  }
+
+  static void improve(Instance instance, List<PlanRoute> routes, long deadline) {
+    improve(instance, routes, deadline, null);
+  }
+
+  // active marks the job nodes worth moving (don't-look bits), null means all of them
+  // a node that finds no improving move is switched off until a move changes its neighbours, so a warm-started
+  // plan only searches around the few nodes that were just added instead of re-checking the whole plan
+  static void improve(Instance instance, List<PlanRoute> routes, long deadline, boolean[] active) {
+    boolean improved = true;
+    while (improved && System.nanoTime() < deadline) {
+      improved = false;
+      for (PlanRoute route : routes) {
+        if (active == null || route.nodes.stream().anyMatch(node -> active[node])) {
+          improved |= twoOpt(instance, route);
+        }
+      }
+      improved |= relocate(instance, routes, deadline, active);
+      improved |= swap(instance, routes, deadline, active);
+    }
+  }
+
+  static boolean twoOpt(Instance instance, PlanRoute route) {
+    boolean improved = false;
+    boolean moved = true;
+    while (moved) {
+      moved = false;
+      for (int i = route.locked; i < route.size() - 1 && !moved; i++) {
+        for (int j = i + 1; j < route.size(); j++) {
+          int a = route.at(i - 1);
+          int first = route.at(i);
+          int last = route.at(j);
+          int b = route.at(j + 1);
+          double delta = instance.cost(a, last) + instance.cost(first, b)
+              - instance.cost(a, first) - instance.cost(last, b);
+          if (delta < -EPSILON) {
+            Collections.reverse(route.nodes.subList(i, j + 1));
+            moved = true;
+            improved = true;
+            break;
+          }
+        }
+      }
+    }
+    return improved;
+  }
+
+  // move a single node to its best position in any route
+  static boolean relocate(Instance instance, List<PlanRoute> routes, long deadline, boolean[] active) {
+    boolean improved = false;
+    for (PlanRoute from : routes) {
+      int pos = from.locked;
+      while (pos < from.size()) {
+        if (System.nanoTime() >= deadline) {
+          return improved;
+        }
+
+        int node = from.at(pos);
+        if (active != null && !active[node]) {
+          pos++;
+          continue;
+        }
+        int prev = from.at(pos - 1);
+        int next = from.at(pos + 1);
+        double removeGain = instance.cost(prev, node) + instance.cost(node, next) - instance.cost(prev, next);
+
+        PlanRoute bestRoute = null;
+        int bestPos = -1;
+        double bestDelta = -EPSILON;
+        for (PlanRoute to : routes) {
+          if (to != from && (instance.pinned[node] || to.load + instance.demands[node] > to.capacity)) {
+            continue;
+          }
+          for (int q = to.locked; q <= to.size(); q++) {
+            if (to == from && (q == pos || q == pos + 1)) {
+              continue;
+            }
+            int a = to.at(q - 1);
+            int b = to.at(q);
+            double delta = instance.cost(a, node) + instance.cost(node, b) - instance.cost(a, b) - removeGain;
+            if (delta < bestDelta) {
+              bestDelta = delta;
+              bestRoute = to;
+              bestPos = q;
+            }
+          }
+        }
+
+        if (bestRoute == null) {
+          if (active != null) {
+            active[node] = false;
+          }
+          pos++;
+          continue;
+        }
+
+        if (active != null) {
+          activate(active, prev, next, bestRoute.at(bestPos - 1), bestRoute.at(bestPos));
+        }
+
+        from.nodes.remove(pos);
+        from.load -= instance.demands[node];
+        if (bestRoute == from && bestPos > pos) {
+          bestPos--;
+        }
+        bestRoute.nodes.add(bestPos, node);
+        bestRoute.load += instance.demands[node];
+        improved = true;
+      }
+    }
+    return improved;
+  }
+
+  // exchange two nodes between different routes
+  static boolean swap(Instance instance, List<PlanRoute> routes, long deadline, boolean[] active) {
+    boolean improved = false;
+    for (int r1 = 0; r1 < routes.size(); r1++) {
+      for (int r2 = r1 + 1; r2 < routes.size(); r2++) {
+        if (System.nanoTime() >= deadline) {
+          return improved;
+        }
+        PlanRoute first = routes.get(r1);
+        PlanRoute second = routes.get(r2);
+
+        for (int p = first.locked; p < first.size(); p++) {
+          int x = first.at(p);
+          if (instance.pinned[x]) {
+            continue;
+          }
+          for (int q = second.locked; q < second.size(); q++) {
+            int y = second.at(q);
+            if (instance.pinned[y] || (active != null && !active[x] && !active[y])) {
+              continue;
+            }
+            double diff = instance.demands[y] - instance.demands[x];
+            if (first.load + diff > first.capacity || second.load - diff > second.capacity) {
+              continue;
+            }
+
+            int a1 = first.at(p - 1);
+            int b1 = first.at(p + 1);
+            int a2 = second.at(q - 1);
+            int b2 = second.at(q + 1);
+            double delta = instance.cost(a1, y) + instance.cost(y, b1) - instance.cost(a1, x) - instance.cost(x, b1)
+                + instance.cost(a2, x) + instance.cost(x, b2) - instance.cost(a2, y) - instance.cost(y, b2);
+            if (delta < -EPSILON) {
+              if (active != null) {
+                activate(active, x, y, a1, b1, a2, b2);
+              }
+              first.nodes.set(p, y);
+              second.nodes.set(q, x);
+              first.load += diff;
+              second.load -= diff;
+              x = y;
+              improved = true;
+            }
+          }
+        }
+      }
+    }
+    return improved;
+  }
+
+  // start and end nodes come after the job nodes and are never moved
+  private static void activate(boolean[] active, int... nodes) {
+    for (int node : nodes) {
+      if (node < active.length) {
+        active[node] = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// in-jvm multi-depot cvrp engine: cheapest insertion followed by local search, distances are haversine
+@Component
+@Slf4j
+public class NativeVrpSolver implements VrpSolver {
+  public static final String NAME = "native";
+
+  // average speeds in km/h used to estimate durations
+  private static final double CAR_SPEED = 25.0;
+  private static final double HGV_SPEED = 20.0;
+  private static final int WARM_START_NEIGHBOURS = 8; // job nodes searched around each job added to a warm start
+
+  @Value("${vrp.native.time-limit-ms:2000}")
+  private long timeLimitMs;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public Long timeLimitMs(Long requestedMs) {
+    return requestedMs != null ? Math.min(timeLimitMs, requestedMs) : timeLimitMs;
+  }
+
+  @Override
+  public VrpResponse solve(VrpRequest request) {
+    long startedAt = System.nanoTime();
+    long limitMs = timeLimitMs(request.getTimeLimitMs());
+    long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(limitMs);
+
+    Plan plan = plan(request);
+    if (plan.routes().isEmpty()) {
+      return plan.toResponse(plan.candidates());
+    }
+
+    List<Integer> unassigned = CheapestInsertion.insertAll(plan.instance(), plan.routes(), plan.candidates());
+    LocalSearch.improve(plan.instance(), plan.routes(), deadline, plan.warmStarted() ? around(plan) : null);
+
+    VrpResponse response = plan.toResponse(unassigned);
+    int jobs = Optional.ofNullable(request.getJobs()).map(List::size).orElse(0);
+    log.info("Native solver finished in {} ms: {} jobs ({} warm-started), {} routes, {} unassigned",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+        jobs, jobs - plan.candidates().size(), response.getRoutes().size(), unassigned.size());
+    return response;
+  }
+
+  // working state of the in-jvm heuristics for one request, candidates are the job nodes still to be placed
+  record Plan(Instance instance, List<PlanRoute> routes, List<Integer> candidates,
+              List<VrpVehicle> vehicles, Map<String, VrpDepot> depots, boolean warmStarted) {
+
+    VrpResponse toResponse(List<Integer> unassigned) {
+      return buildResponse(instance, routes, unassigned, vehicles, depots);
+    }
+  }
+
+  static Plan plan(VrpRequest request) {
+    List<VrpJob> jobs = Optional.ofNullable(request.getJobs()).orElse(List.of());
+    List<VrpVehicle> vehicles = Optional.ofNullable(request.getVehicles()).orElse(List.of());
+    List<VrpRoute> existingRoutes = Optional.ofNullable(request.getRoutes()).orElse(List.of());
+
+    Map<String, VrpDepot> depots = new HashMap<>();
+    Optional.ofNullable(request.getDepots()).orElse(List.of())
+        .forEach(d -> depots.put(d.getId(), d));
+    Map<String, VrpRoute> routeByVehicle = new HashMap<>();
+    existingRoutes.forEach(r -> routeByVehicle.put(r.getVehicleId(), r));
+    Set<String> jobIds = new HashSet<>();
+    jobs.forEach(j -> jobIds.add(j.getId()));
+
+    // job nodes: unfinished steps of existing routes first, then the new jobs
+    List<VrpJob> nodeJobs = new ArrayList<>();
+    List<List<Double>> locations = new ArrayList<>();
+    Map<String, List<VrpJob>> fixedByVehicle = new HashMap<>();
+    Map<String, List<Integer>> pinnedByVehicle = new HashMap<>();
+    Map<String, Integer> lockedByVehicle = new HashMap<>();
+    Map<String, Double> loadByVehicle = new HashMap<>();
+
+    for (VrpVehicle vehicle : vehicles) {
+      VrpRoute route = routeByVehicle.get(vehicle.getId());
+      List<VrpJob> fixed = new ArrayList<>();
+      List<Integer> pinned = new ArrayList<>();
+      int locked = 0;
+      double load = 0.0;
+
+      if (route != null && route.getSteps() != null) {
+        int lockedSteps = route.getLockedSteps() != null ? route.getLockedSteps() : 0;
+        for (int s = 0; s < route.getSteps().size(); s++) {
+          VrpJob step = route.getSteps().get(s);
+          if (jobIds.contains(step.getId())) {
+            continue; // re-submitted as a job, will be inserted again
+          }
+          load += demandOf(step);
+          if ("completed".equals(step.getStatus())) {
+            fixed.add(step);
+          } else {
+            if (s < lockedSteps) {
+              locked++;
+            }
+            pinned.add(nodeJobs.size());
+            nodeJobs.add(step);
+            locations.add(step.getLocation());
+          }
+        }
+      }
+
+      fixedByVehicle.put(vehicle.getId(), fixed);
+      pinnedByVehicle.put(vehicle.getId(), pinned);
+      lockedByVehicle.put(vehicle.getId(), locked);
+      loadByVehicle.put(vehicle.getId(), load);
+    }
+
+    int pinnedCount = nodeJobs.size();
+    List<Integer> candidates = new ArrayList<>();
+    for (VrpJob job : jobs) {
+      candidates.add(nodeJobs.size());
+      nodeJobs.add(job);
+      locations.add(job.getLocation());
+    }
+
+    // location nodes: start and end of every vehicle
+    int[] starts = new int[vehicles.size()];
+    int[] ends = new int[vehicles.size()];
+    Map<String, Integer> depotNodes = new HashMap<>();
+    for (int i = 0; i < vehicles.size(); i++) {
+      VrpVehicle vehicle = vehicles.get(i);
+      VrpDepot depot = depots.get(vehicle.getDepotId());
+      List<Double> depotLocation = depot != null ? depot.getLocation() : vehicle.getLocation();
+
+      ends[i] = depotNodes.computeIfAbsent(vehicle.getDepotId() != null ? vehicle.getDepotId() : vehicle.getId(), k -> {
+        locations.add(depotLocation);
+        return locations.size() - 1;
+      });
+
+      if (routeByVehicle.containsKey(vehicle.getId()) && vehicle.getLocation() != null) {
+        locations.add(vehicle.getLocation());
+        starts[i] = locations.size() - 1;
+      } else {
+        starts[i] = ends[i];
+      }
+    }
+
+    double[] demands = new double[nodeJobs.size()];
+    boolean[] pinned = new boolean[nodeJobs.size()];
+    for (int i = 0; i < nodeJobs.size(); i++) {
+      demands[i] = demandOf(nodeJobs.get(i));
+      pinned[i] = i < pinnedCount;
+    }
+
+    Instance instance = new Instance(new CostMatrix(locations), nodeJobs, demands, pinned);
+
+    List<PlanRoute> routes = new ArrayList<>();
+    for (int i = 0; i < vehicles.size(); i++) {
+      VrpVehicle vehicle = vehicles.get(i);
+      double capacity = vehicle.getCapacity() != null ? vehicle.getCapacity() : Double.MAX_VALUE;
+      PlanRoute route = new PlanRoute(vehicle.getId(), starts[i], ends[i], capacity,
+          fixedByVehicle.get(vehicle.getId()), routeByVehicle.containsKey(vehicle.getId()));
+      route.nodes.addAll(pinnedByVehicle.get(vehicle.getId()));
+      route.locked = lockedByVehicle.get(vehicle.getId());
+      route.load = loadByVehicle.get(vehicle.getId());
+      routes.add(route);
+    }
+
+    List<Integer> remaining = warmStart(request, instance, routes, candidates);
+    return new Plan(instance, routes, remaining, vehicles, depots, remaining.size() < candidates.size());
+  }
+
+  // the freshly inserted candidates and the job nodes closest to them, the rest of a warm-started plan was already
+  // optimized and only needs to move if the new jobs push it, e.g. when they land on a full route
+  private static boolean[] around(Plan plan) {
+    Instance instance = plan.instance();
+    boolean[] active = new boolean[instance.jobs.size()];
+    for (int candidate : plan.candidates()) {
+      active[candidate] = true;
+      IntStream.range(0, active.length)
+          .filter(node -> !instance.pinned[node])
+          .boxed()
+          .sorted(Comparator.comparingDouble(node -> instance.cost(candidate, node)))
+          .limit(WARM_START_NEIGHBOURS)
+          .forEach(node -> active[node] = true);
+    }
+    return active;
+  }
+
+  // puts the jobs of the previous plan back behind each vehicle's existing steps in their previous order
+  // jobs that are gone, already placed or do not fit anymore stay candidates, so a stale plan only costs quality
+  private static List<Integer> warmStart(VrpRequest request, Instance instance, List<PlanRoute> routes,
+                                         List<Integer> candidates) {
+    List<VrpRoute> initialRoutes = Optional.ofNullable(request.getInitialRoutes()).orElse(List.of());
+    if (initialRoutes.isEmpty() || candidates.isEmpty()) {
+      return candidates;
+    }
+
+    Map<String, Integer> candidateByJob = new HashMap<>();
+    candidates.forEach(node -> candidateByJob.put(instance.jobs.get(node).getId(), node));
+    Map<String, PlanRoute> routeByVehicle = new HashMap<>();
+    routes.forEach(route -> routeByVehicle.put(route.vehicleId, route));
+
+    Set<Integer> seeded = new HashSet<>();
+    for (VrpRoute initial : initialRoutes) {
+      PlanRoute route = routeByVehicle.get(initial.getVehicleId());
+      if (route == null || initial.getSteps() == null) {
+        continue;
+      }
+      for (VrpJob step : initial.getSteps()) {
+        Integer node = candidateByJob.get(step.getId());
+        if (node == null || seeded.contains(node) || route.load + instance.demands[node] > route.capacity) {
+          continue;
+        }
+        route.nodes.add(node);
+        route.load += instance.demands[node];
+        seeded.add(node);
+      }
+    }
+
+    return candidates.stream()
+        .filter(node -> !seeded.contains(node))
+        .toList();
+  }
+
+  private static VrpResponse buildResponse(Instance instance, List<PlanRoute> routes, List<Integer> unassigned,
+                                           List<VrpVehicle> vehicles, Map<String, VrpDepot> depots) {
+    Map<String, VrpVehicle> vehicleById = new HashMap<>();
+    vehicles.forEach(v -> vehicleById.put(v.getId(), v));
+
+    List<VrpRoute> vrpRoutes = new ArrayList<>();
+    for (PlanRoute route : routes) {
+      if (!route.existing && route.nodes.isEmpty()) {
+        continue;
+      }
+
+      VrpVehicle vehicle = vehicleById.get(route.vehicleId);
+      VrpDepot depot = depots.get(vehicle.getDepotId());
+      List<Double> depotLocation = depot != null ? depot.getLocation() : vehicle.getLocation();
+
+      List<VrpJob> steps = new ArrayList<>(route.fixedSteps);
+      route.nodes.forEach(node -> steps.add(instance.jobs.get(node)));
+
+      vrpRoutes.add(toVrpRoute(vehicle, depotLocation, steps));
+    }
+
+    return VrpResponse.builder()
+        .routes(vrpRoutes)
+        .unassigned(unassigned.stream().map(instance.jobs::get).toList())
+        .build();
+  }
+
+  // distance (km), duration (min) and straight-line geometry (lon/lat) of depot -> steps -> depot
+  static VrpRoute toVrpRoute(VrpVehicle vehicle, List<Double> depotLocation, List<VrpJob> steps) {
+    List<List<Double>> points = new ArrayList<>();
+    points.add(depotLocation);
+    steps.forEach(step -> points.add(step.getLocation()));
+    points.add(depotLocation);
+
+    double distance = 0.0;
+    for (int i = 1; i < points.size(); i++) {
+      distance += GeoUtils.haversine(points.get(i - 1), points.get(i));
+    }
+
+    double speed = "driving-hgv".equals(vehicle.getProfile()) ? HGV_SPEED : CAR_SPEED;
+    List<List<Double>> coordinates = points.stream()
+        .map(p -> List.of(p.get(1), p.get(0)))
+        .toList();
+
+    return VrpRoute.builder()
+        .vehicleId(vehicle.getId())
+        .steps(steps)
+        .distance(distance)
+        .duration(distance / speed * 60)
+        .geometry(new Geometry("LineString", coordinates))
+        .build();
+  }
+
+  private static double demandOf(VrpJob job) {
+    return job.getDemand() != null ? job.getDemand() : 0.0;
+  }
+}
@@ -0,0 +1,51 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// mutable route of one vehicle while the native engine works on it
+class PlanRoute {
+  final String vehicleId;
+  final int start; // node the vehicle leaves from (depot or current position)
+  final int end; // depot node
+  final double capacity;
+  final List<VrpJob> fixedSteps; // completed steps, never reordered
+  final boolean existing; // vehicle already had a route in the request
+  final List<Integer> nodes = new ArrayList<>();
+  int locked; // leading nodes that never move, the search only works on the tail behind them
+  double load;
+
+  PlanRoute(String vehicleId, int start, int end, double capacity, List<VrpJob> fixedSteps, boolean existing) {
+    this.vehicleId = vehicleId;
+    this.start = start;
+    this.end = end;
+    this.capacity = capacity;
+    this.fixedSteps = fixedSteps;
+    this.existing = existing;
+  }
+
+  // node at position pos, -1 is the start and size() is the end
+  int at(int pos) {
+    if (pos < 0) {
+      return start;
+    }
+    if (pos >= nodes.size()) {
+      return end;
+    }
+    return nodes.get(pos);
+  }
+
+  int size() {
+    return nodes.size();
+  }
+
+  double cost(CostMatrix costs) {
+    double total = 0.0;
+    for (int pos = 0; pos <= nodes.size(); pos++) {
+      total += costs.get(at(pos - 1), at(pos));
+    }
+    return total;
+  }
+}
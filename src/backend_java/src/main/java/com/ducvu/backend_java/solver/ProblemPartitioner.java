@@ -0,0 +1,181 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.model.VrpDepot;
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import com.ducvu.backend_java.util.GeoUtils;
+
+import java.util.*;
+
+// splits one large request into independent sub-requests of at most maxJobs jobs so they can be solved concurrently
+// jobs go to their nearest depot (precomputed distances when the job has them), vehicles stay with their own depot, a depot with too many jobs is cut further
+// along a hilbert curve so every piece is a compact area; vehicles keep their running route
+public final class ProblemPartitioner {
+  private static final int HILBERT_ORDER = 16;
+
+  private ProblemPartitioner() {
+  }
+
+  // the request itself when it is small enough or cannot be split, maxJobs <= 0 disables splitting
+  // vehicles of a depot no job is nearest to are in no partition, the caller gives them what the partitions leave over
+  public static List<VrpRequest> split(VrpRequest request, int maxJobs) {
+    List<VrpJob> jobs = Optional.ofNullable(request.getJobs()).orElse(List.of());
+    List<VrpVehicle> vehicles = Optional.ofNullable(request.getVehicles()).orElse(List.of());
+    if (maxJobs <= 0 || jobs.size() <= maxJobs || vehicles.size() < 2) {
+      return List.of(request);
+    }
+
+    Map<String, VrpDepot> depots = new LinkedHashMap<>();
+    Optional.ofNullable(request.getDepots()).orElse(List.of()).forEach(d -> depots.put(d.getId(), d));
+    Map<String, VrpRoute> routeByVehicle = new HashMap<>();
+    Optional.ofNullable(request.getRoutes()).orElse(List.of()).forEach(r -> routeByVehicle.put(r.getVehicleId(), r));
+    Map<String, VrpRoute> initialByVehicle = new HashMap<>();
+    Optional.ofNullable(request.getInitialRoutes()).orElse(List.of()).forEach(r -> initialByVehicle.put(r.getVehicleId(), r));
+
+    Map<String, List<VrpVehicle>> vehiclesByDepot = new LinkedHashMap<>();
+    vehicles.forEach(v -> vehiclesByDepot.computeIfAbsent(v.getDepotId(), k -> new ArrayList<>()).add(v));
+
+    Map<String, List<VrpJob>> jobsByDepot = new LinkedHashMap<>();
+    for (VrpJob job : jobs) {
+      jobsByDepot.computeIfAbsent(nearestDepot(job, vehiclesByDepot.keySet(), depots), k -> new ArrayList<>()).add(job);
+    }
+
+    List<VrpRequest> partitions = new ArrayList<>();
+    for (Map.Entry<String, List<VrpJob>> entry : jobsByDepot.entrySet()) {
+      List<VrpVehicle> depotVehicles = vehiclesByDepot.get(entry.getKey());
+      List<VrpDepot> depotList = depots.containsKey(entry.getKey()) ? List.of(depots.get(entry.getKey())) : List.of();
+      for (Piece piece : cut(entry.getValue(), depotVehicles, routeByVehicle, maxJobs)) {
+        partitions.add(VrpRequest.builder()
+            .jobs(piece.jobs)
+            .vehicles(piece.vehicles)
+            .depots(depotList)
+            .routes(piece.vehicles.stream().map(v -> routeByVehicle.get(v.getId())).filter(Objects::nonNull).toList())
+            .initialRoutes(piece.vehicles.stream().map(v -> initialByVehicle.get(v.getId())).filter(Objects::nonNull).toList())
+            .timeLimitMs(request.getTimeLimitMs())
+            .build());
+      }
+    }
+    return partitions;
+  }
+
+  private static class Piece {
+    final List<VrpJob> jobs;
+    final List<VrpVehicle> vehicles = new ArrayList<>();
+    final double lat;
+    final double lon;
+    final double demand;
+    double capacity;
+
+    Piece(List<VrpJob> jobs) {
+      this.jobs = jobs;
+      this.lat = jobs.stream().mapToDouble(j -> j.getLocation().get(0)).average().orElse(0.0);
+      this.lon = jobs.stream().mapToDouble(j -> j.getLocation().get(1)).average().orElse(0.0);
+      this.demand = jobs.stream().mapToDouble(j -> j.getDemand() != null ? j.getDemand() : 0.0).sum();
+    }
+  }
+
+  // contiguous runs of the hilbert order, at least one vehicle each: empty pieces are filled first (nearest to the
+  // vehicle), then capacity goes where demand exceeds it most; vehicles with a running route are placed first
+  private static List<Piece> cut(List<VrpJob> jobs, List<VrpVehicle> vehicles, Map<String, VrpRoute> routeByVehicle,
+                                 int maxJobs) {
+    int count = Math.min(vehicles.size(), (jobs.size() + maxJobs - 1) / maxJobs);
+    if (count <= 1) {
+      Piece piece = new Piece(jobs);
+      piece.vehicles.addAll(vehicles);
+      return List.of(piece);
+    }
+
+    List<VrpJob> ordered = hilbertOrder(jobs);
+    List<Piece> pieces = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      pieces.add(new Piece(ordered.subList(i * ordered.size() / count, (i + 1) * ordered.size() / count)));
+    }
+
+    List<VrpVehicle> byPriority = new ArrayList<>(vehicles);
+    byPriority.sort(Comparator.comparing((VrpVehicle v) -> !routeByVehicle.containsKey(v.getId())));
+    for (VrpVehicle vehicle : byPriority) {
+      Piece target = null;
+      for (Piece piece : pieces) {
+        if (piece.vehicles.isEmpty() && (target == null || distance(vehicle, piece) < distance(vehicle, target))) {
+          target = piece;
+        }
+      }
+      if (target == null) {
+        target = pieces.stream()
+            .max(Comparator.comparingDouble(p -> p.demand - p.capacity))
+            .orElseThrow();
+      }
+      target.vehicles.add(vehicle);
+      target.capacity += vehicle.getCapacity() != null ? vehicle.getCapacity() : 0.0;
+    }
+    return pieces;
+  }
+
+  private static List<VrpJob> hilbertOrder(List<VrpJob> jobs) {
+    double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+    for (VrpJob job : jobs) {
+      minLat = Math.min(minLat, job.getLocation().get(0));
+      maxLat = Math.max(maxLat, job.getLocation().get(0));
+      minLon = Math.min(minLon, job.getLocation().get(1));
+      maxLon = Math.max(maxLon, job.getLocation().get(1));
+    }
+    int side = 1 << HILBERT_ORDER;
+    double latSpan = Math.max(maxLat - minLat, 1e-9);
+    double lonSpan = Math.max(maxLon - minLon, 1e-9);
+
+    Map<VrpJob, Long> keys = new IdentityHashMap<>();
+    for (VrpJob job : jobs) {
+      int x = (int) Math.min(side - 1, (job.getLocation().get(1) - minLon) / lonSpan * side);
+      int y = (int) Math.min(side - 1, (job.getLocation().get(0) - minLat) / latSpan * side);
+      keys.put(job, hilbertIndex(side, x, y));
+    }
+    List<VrpJob> ordered = new ArrayList<>(jobs);
+    ordered.sort(Comparator.comparingLong(keys::get));
+    return ordered;
+  }
+
+  // position of cell (x, y) along the hilbert curve filling a side x side grid
+  static long hilbertIndex(int side, int x, int y) {
+    long index = 0;
+    for (int s = side / 2; s > 0; s /= 2) {
+      int rx = (x & s) > 0 ? 1 : 0;
+      int ry = (y & s) > 0 ? 1 : 0;
+      index += (long) s * s * ((3 * rx) ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          x = s - 1 - x;
+          y = s - 1 - y;
+        }
+        int t = x;
+        x = y;
+        y = t;
+      }
+    }
+    return index;
+  }
+
+  private static String nearestDepot(VrpJob job, Set<String> depotIds, Map<String, VrpDepot> depots) {
+    String best = null;
+    double bestCost = Double.MAX_VALUE;
+    for (String depotId : depotIds) {
+      VrpDepot depot = depots.get(depotId);
+      Double known = job.getDepotDistances() != null ? job.getDepotDistances().get(depotId) : null;
+      double cost = known != null ? known
+          : depot != null ? GeoUtils.haversine(depot.getLocation(), job.getLocation()) : Double.MAX_VALUE;
+      if (best == null || cost < bestCost) {
+        bestCost = cost;
+        best = depotId;
+      }
+    }
+    return best;
+  }
+
+  private static double distance(VrpVehicle vehicle, Piece piece) {
+    if (vehicle.getLocation() == null) {
+      return 0.0;
+    }
+    return GeoUtils.haversine(vehicle.getLocation().get(0), vehicle.getLocation().get(1), piece.lat, piece.lon);
+  }
+}
@@ -0,0 +1,104 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.CompactVrpRequest;
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.util.Mapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// delegates to the python vrp api
+// requests go to the columnar /compact endpoint, falling back to the plain json endpoint if the api lacks it
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RemoteVrpSolver implements VrpSolver {
+  public static final String NAME = "remote";
+
+  private final VrpApiClient vrpApiClient;
+  private final ObjectMapper objectMapper;
+  private final Mapper mapper;
+
+  @Value("${vrp.api-url}")
+  private String vrpApiUrl;
+
+  @Value("${vrp.remote.compact:true}")
+  private boolean compact;
+
+  private volatile boolean compactSupported = true;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public VrpResponse solve(VrpRequest request) {
+    VrpResponse response;
+    if (compact && compactSupported) {
+      try {
+        response = post(vrpApiUrl + "/compact", mapper.mapCompact(request), request.getTimeLimitMs());
+      } catch (CompactNotSupportedException e) {
+        log.warn("Vrp api has no compact endpoint, using plain json from now on");
+        compactSupported = false;
+        response = post(vrpApiUrl, request, request.getTimeLimitMs());
+      }
+    } else {
+      response = post(vrpApiUrl, request, request.getTimeLimitMs());
+    }
+
+    if (response == null || response.getError() != null) {
+      throw new RuntimeException("Error while solving vrp");
+    }
+
+    return response;
+  }
+
+  private VrpResponse post(String url, Object body, Long timeLimitMs) {
+    long startedAt = System.nanoTime();
+    byte[] json = write(body);
+    long serializeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+    // solving has no side effects, safe to retry
+    VrpApiClient.Response response = vrpApiClient.post(url, json, true, timeLimitMs);
+    if (response.status() == 404 && body instanceof CompactVrpRequest) {
+      throw new CompactNotSupportedException();
+    }
+    if (response.status() >= 400) {
+      log.error("Vrp api answered {}: {}", response.status(), new String(response.body(), StandardCharsets.UTF_8));
+      throw new RuntimeException("Error while solving vrp");
+    }
+
+    log.info("Vrp api call {}: request {} bytes ({} on the wire, serialized in {} ms), response {} bytes ({} on the wire), took {} ms",
+        url, json.length, response.requestWireBytes(), serializeMs, response.body().length, response.responseWireBytes(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    return response.body().length > 0 ? read(response.body()) : null;
+  }
+
+  private byte[] write(Object body) {
+    try {
+      return objectMapper.writeValueAsBytes(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private VrpResponse read(byte[] body) {
+    try {
+      return objectMapper.readValue(body, VrpResponse.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static class CompactNotSupportedException extends RuntimeException {
+  }
+}
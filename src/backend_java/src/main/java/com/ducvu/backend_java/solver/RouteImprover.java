@@ -0,0 +1,41 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+
+import java.util.Arrays;
+import java.util.List;
+
+// anytime improvement of running routes: starts from the routes as they are and runs the native local search
+// until the deadline, so stopping early still gives a plan at least as short as the current one
+// completed steps stay fixed, open steps may be reordered and, if transfers are allowed, moved between vehicles
+public final class RouteImprover {
+
+  private RouteImprover() {
+  }
+
+  // cost is the haversine length (km) from each vehicle's position through its open steps back to its depot
+  public record Result(VrpResponse response, double costBefore, double costAfter) {
+
+    public double gain() {
+      return costBefore > 0 ? (costBefore - costAfter) / costBefore : 0.0;
+    }
+  }
+
+  public static Result improve(VrpRequest request, long deadline, boolean allowTransfers) {
+    NativeVrpSolver.Plan plan = NativeVrpSolver.plan(request);
+    if (allowTransfers) {
+      Arrays.fill(plan.instance().pinned, false);
+    }
+
+    double before = cost(plan);
+    LocalSearch.improve(plan.instance(), plan.routes(), deadline);
+    return new Result(plan.toResponse(List.of()), before, cost(plan));
+  }
+
+  private static double cost(NativeVrpSolver.Plan plan) {
+    return plan.routes().stream()
+        .mapToDouble(route -> route.cost(plan.instance().costs))
+        .sum();
+  }
+}
@@ -0,0 +1,198 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.Geometry;
+import com.ducvu.backend_java.model.VrpDepot;
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// bounded lru of solver responses keyed by solver name and request content, entries expire after a ttl
+// so pressing dispatch again on unchanged input is answered at once
+// an entry only answers calls whose time budget is at most a little above the one it was solved with, so a plan
+// rushed at the end of a dispatch budget is not served to a later call with the full one; budgets are the time the
+// solver actually gets (see VrpSolver.timeLimitMs), responses are copied in and out since callers stitch and edit them
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SolverResultCache {
+  // a repeat dispatch never has quite the budget of the first one, a tenth less search time barely changes the plan
+  private static final double BUDGET_TOLERANCE = 0.1;
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${vrp.cache.max-entries:50}")
+  private int maxEntries;
+
+  @Value("${vrp.cache.ttl-ms:600000}")
+  private long ttlMs;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private Counter hits;
+  private Counter misses;
+
+  private record Entry(VrpResponse response, long budgetMs, long expiresAt) {
+  }
+
+  @PostConstruct
+  public void registerMetrics() {
+    hits = Counter.builder("vrp.cache.requests").tag("result", "hit").register(meterRegistry);
+    misses = Counter.builder("vrp.cache.requests").tag("result", "miss").register(meterRegistry);
+    Gauge.builder("vrp.cache.size", this, SolverResultCache::size).register(meterRegistry);
+  }
+
+  // timeLimitMs is the time the solver would get, null meaning unbounded
+  public Optional<VrpResponse> get(String key, Long timeLimitMs) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && entry.expiresAt() - System.nanoTime() <= 0) {
+        entries.remove(key);
+        entry = null;
+      }
+      if (entry == null || !covers(entry.budgetMs(), budgetOf(timeLimitMs))) {
+        misses.increment();
+        return Optional.empty();
+      }
+      hits.increment();
+    }
+    return Optional.of(copy(entry.response()));
+  }
+
+  // degraded responses came from a fallback and are never cached, a better one replaces a rushed one
+  public void put(String key, Long timeLimitMs, VrpResponse response) {
+    if (response.isDegraded()) {
+      return;
+    }
+    VrpResponse stored = copy(response);
+    synchronized (entries) {
+      Entry existing = entries.get(key);
+      if (existing != null && existing.budgetMs() > budgetOf(timeLimitMs)
+          && existing.expiresAt() - System.nanoTime() > 0) {
+        return;
+      }
+      entries.put(key, new Entry(stored, budgetOf(timeLimitMs),
+          System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+      Iterator<String> eldest = entries.keySet().iterator();
+      while (entries.size() > maxEntries && eldest.hasNext()) {
+        eldest.next();
+        eldest.remove();
+      }
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static boolean covers(long solvedWithMs, long budgetMs) {
+    return solvedWithMs >= budgetMs * (1 - BUDGET_TOLERANCE);
+  }
+
+  private static long budgetOf(Long timeLimitMs) {
+    return timeLimitMs != null ? timeLimitMs : Long.MAX_VALUE;
+  }
+
+  // routes, steps and job lists are new, coordinates are shared since nothing writes to them
+  static VrpResponse copy(VrpResponse response) {
+    return VrpResponse.builder()
+        .routes(response.getRoutes() == null ? null : response.getRoutes().stream()
+            .map(route -> VrpRoute.builder()
+                .vehicleId(route.getVehicleId())
+                .steps(route.getSteps() == null ? null : copyJobs(route.getSteps()))
+                .distance(route.getDistance())
+                .duration(route.getDuration())
+                .geometry(route.getGeometry() == null ? null
+                    : new Geometry(route.getGeometry().getType(), new ArrayList<>(route.getGeometry().getCoordinates())))
+                .lockedSteps(route.getLockedSteps())
+                .build())
+            .collect(Collectors.toCollection(ArrayList::new)))
+        .unassigned(response.getUnassigned() == null ? null : copyJobs(response.getUnassigned()))
+        .error(response.getError())
+        .degraded(response.isDegraded())
+        .build();
+  }
+
+  private static List<VrpJob> copyJobs(List<VrpJob> jobs) {
+    return jobs.stream()
+        .map(job -> VrpJob.builder()
+            .id(job.getId())
+            .location(job.getLocation())
+            .demand(job.getDemand())
+            .status(job.getStatus())
+            .depotDistances(job.getDepotDistances())
+            .build())
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  // sha-256 of a canonical form: everything sorted by id, route steps in route order, coordinates rounded to ~1 m
+  // the time limit is left out of the key since it only reflects how much of the dispatch budget was left, entries
+  // remember it instead; the initial routes are left out since they only speed the search up
+  public static String key(String solverName, VrpRequest request) {
+    StringBuilder canonical = new StringBuilder(solverName).append('\n');
+
+    Optional.ofNullable(request.getDepots()).orElse(List.of()).stream()
+        .sorted(Comparator.comparing(VrpDepot::getId))
+        .forEach(d -> canonical.append("d|").append(d.getId()).append('|')
+            .append(round(d.getLocation())).append('\n'));
+
+    Optional.ofNullable(request.getVehicles()).orElse(List.of()).stream()
+        .sorted(Comparator.comparing(VrpVehicle::getId))
+        .forEach(v -> canonical.append("v|").append(v.getId()).append('|').append(v.getDepotId()).append('|')
+            .append(round(v.getLocation())).append('|').append(v.getCapacity()).append('|')
+            .append(v.getProfile()).append('\n'));
+
+    Optional.ofNullable(request.getRoutes()).orElse(List.of()).stream()
+        .sorted(Comparator.comparing(VrpRoute::getVehicleId))
+        .forEach(r -> {
+          canonical.append("r|").append(r.getVehicleId());
+          if (r.getLockedSteps() != null) {
+            canonical.append('|').append(r.getLockedSteps());
+          }
+          canonical.append('\n');
+          r.getSteps().forEach(step -> appendJob(canonical.append("  "), step));
+        });
+
+    Optional.ofNullable(request.getJobs()).orElse(List.of()).stream()
+        .sorted(Comparator.comparing(VrpJob::getId))
+        .forEach(j -> appendJob(canonical.append("j|"), j));
+
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void appendJob(StringBuilder canonical, VrpJob job) {
+    canonical.append(job.getId()).append('|').append(round(job.getLocation())).append('|')
+        .append(job.getDemand()).append('|').append(job.getStatus()).append('\n');
+  }
+
+  private static String round(List<Double> location) {
+    if (location == null) {
+      return "-";
+    }
+    return String.format(Locale.ROOT, "%.5f,%.5f", location.get(0), location.get(1));
+  }
+}
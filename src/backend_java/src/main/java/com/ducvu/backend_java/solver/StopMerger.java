@@ -0,0 +1,96 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.util.GeoUtils;
+
+import java.util.*;
+
+// merges jobs a few meters apart (same building, same alley) into one composite stop before solving
+// a composite carries its member ids in its own id, so it survives the remote api, the cache and the fallback solver
+// untouched and is expanded again when the plan is saved
+public final class StopMerger {
+  private static final String PREFIX = "stops:";
+  private static final String SEPARATOR = ",";
+  private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+  private StopMerger() {
+  }
+
+  // jobs are taken in the given order, each one seeds a stop that absorbs the later jobs within radiusM of it
+  // as long as the summed demand stays within maxDemand, radiusM <= 0 disables merging
+  public static List<VrpJob> merge(List<VrpJob> jobs, double radiusM, double maxDemand) {
+    if (radiusM <= 0 || jobs.size() < 2) {
+      return jobs;
+    }
+
+    // grid of radius-sized cells, neighbours of a job are in its cell and the eight around it
+    // one reference latitude scales longitude for every job so neighbouring cells line up
+    double cosLat = Math.cos(Math.toRadians(jobs.get(0).getLocation().get(0)));
+    Map<Long, List<Integer>> cells = new HashMap<>();
+    for (int i = 0; i < jobs.size(); i++) {
+      cells.computeIfAbsent(cell(jobs.get(i), radiusM, cosLat, 0, 0), k -> new ArrayList<>()).add(i);
+    }
+
+    boolean[] taken = new boolean[jobs.size()];
+    List<VrpJob> merged = new ArrayList<>();
+    for (int i = 0; i < jobs.size(); i++) {
+      if (taken[i]) {
+        continue;
+      }
+      taken[i] = true;
+      VrpJob seed = jobs.get(i);
+      List<VrpJob> members = new ArrayList<>(List.of(seed));
+      double demand = demandOf(seed);
+
+      List<Integer> nearby = new ArrayList<>();
+      for (int dx = -1; dx <= 1; dx++) {
+        for (int dy = -1; dy <= 1; dy++) {
+          nearby.addAll(cells.getOrDefault(cell(seed, radiusM, cosLat, dx, dy), List.of()));
+        }
+      }
+      nearby.sort(Comparator.naturalOrder());
+      for (int j : nearby) {
+        VrpJob job = jobs.get(j);
+        if (taken[j] || demand + demandOf(job) > maxDemand
+            || GeoUtils.haversine(seed.getLocation(), job.getLocation()) * 1000 > radiusM) {
+          continue;
+        }
+        taken[j] = true;
+        members.add(job);
+        demand += demandOf(job);
+      }
+
+      merged.add(members.size() == 1 ? seed : composite(members, demand));
+    }
+    return merged;
+  }
+
+  // order ids behind a solver step, a plain job stands for itself
+  public static List<String> memberIds(String jobId) {
+    if (jobId == null || !jobId.startsWith(PREFIX)) {
+      return Collections.singletonList(jobId);
+    }
+    return List.of(jobId.substring(PREFIX.length()).split(SEPARATOR));
+  }
+
+  private static VrpJob composite(List<VrpJob> members, double demand) {
+    double lat = members.stream().mapToDouble(m -> m.getLocation().get(0)).average().orElseThrow();
+    double lon = members.stream().mapToDouble(m -> m.getLocation().get(1)).average().orElseThrow();
+    return VrpJob.builder()
+        .id(PREFIX + String.join(SEPARATOR, members.stream().map(VrpJob::getId).toList()))
+        .location(List.of(lat, lon))
+        .demand(demand)
+        .status(members.get(0).getStatus())
+        .build();
+  }
+
+  private static long cell(VrpJob job, double radiusM, double cosLat, int dx, int dy) {
+    long row = (long) Math.floor(job.getLocation().get(0) * METERS_PER_DEGREE_LAT / radiusM) + dy;
+    long col = (long) Math.floor(job.getLocation().get(1) * METERS_PER_DEGREE_LAT * cosLat / radiusM) + dx;
+    return row * 1_000_003L + col;
+  }
+
+  private static double demandOf(VrpJob job) {
+    return job.getDemand() != null ? job.getDemand() : 0.0;
+  }
+}
@@ -0,0 +1,174 @@
+package com.ducvu.backend_java.solver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// outbound http for the vrp api: pooled keep-alive connections, a deadline per call, gzip both ways,
+// jittered retries for idempotent calls, and pool/latency metrics under vrp.client.*
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VrpApiClient {
+  private static final Set<Integer> RETRYABLE_STATUSES = Set.of(502, 503, 504);
+
+  private final CloseableHttpClient vrpHttpClient;
+  private final PoolingHttpClientConnectionManager vrpConnectionManager;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${vrp.client.call-timeout-ms:120000}")
+  private long callTimeoutMs;
+
+  @Value("${vrp.client.pool-timeout-ms:5000}")
+  private long poolTimeoutMs;
+
+  @Value("${vrp.client.max-retries:2}")
+  private int maxRetries;
+
+  @Value("${vrp.client.retry-backoff-ms:200}")
+  private long retryBackoffMs;
+
+  @Value("${vrp.client.gzip:true}")
+  private boolean gzip;
+
+  private Counter retries;
+
+  public record Response(int status, byte[] body, int requestWireBytes, int responseWireBytes) {
+  }
+
+  @PostConstruct
+  public void registerMetrics() {
+    Gauge.builder("vrp.client.pool.leased", vrpConnectionManager, m -> m.getTotalStats().getLeased())
+        .register(meterRegistry);
+    Gauge.builder("vrp.client.pool.available", vrpConnectionManager, m -> m.getTotalStats().getAvailable())
+        .register(meterRegistry);
+    Gauge.builder("vrp.client.pool.pending", vrpConnectionManager, m -> m.getTotalStats().getPending())
+        .description("callers waiting for a pooled connection, non-zero means the pool is saturated")
+        .register(meterRegistry);
+    Gauge.builder("vrp.client.pool.max", vrpConnectionManager, m -> m.getTotalStats().getMax())
+        .register(meterRegistry);
+    retries = Counter.builder("vrp.client.retries").register(meterRegistry);
+  }
+
+  public Response post(String url, byte[] json, boolean idempotent) {
+    return post(url, json, idempotent, null);
+  }
+
+  // posts a json body, idempotent calls are retried on connection errors and 502/503/504 until the deadline
+  // timeoutMs shortens the configured call timeout for this call, null keeps it
+  public Response post(String url, byte[] json, boolean idempotent, Long timeoutMs) {
+    long deadline = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(timeoutMs != null ? Math.min(callTimeoutMs, timeoutMs) : callTimeoutMs);
+    byte[] payload = gzip ? compress(json) : json;
+
+    for (int attempt = 0; ; attempt++) {
+      long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      if (remainingMs <= 0) {
+        throw new RuntimeException("Vrp api call timed out");
+      }
+
+      HttpPost post = new HttpPost(url);
+      post.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+      post.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+      if (gzip) {
+        post.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      post.setConfig(RequestConfig.custom()
+          .setConnectionRequestTimeout(Timeout.ofMilliseconds(Math.min(poolTimeoutMs, remainingMs)))
+          .setResponseTimeout(Timeout.ofMilliseconds(remainingMs))
+          .build());
+
+      Timer.Sample sample = Timer.start(meterRegistry);
+      String outcome = "error";
+      try {
+        Response response = vrpHttpClient.execute(post, r -> {
+          byte[] body = r.getEntity() != null ? EntityUtils.toByteArray(r.getEntity()) : new byte[0];
+          Header encoding = r.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+          int wireBytes = body.length;
+          if (encoding != null && "gzip".equalsIgnoreCase(encoding.getValue())) {
+            body = decompress(body);
+          }
+          return new Response(r.getCode(), body, payload.length, wireBytes);
+        });
+        outcome = String.valueOf(response.status());
+
+        if (idempotent && RETRYABLE_STATUSES.contains(response.status()) && attempt < maxRetries) {
+          log.warn("Vrp api answered {}, retrying", response.status());
+          backoff(attempt, deadline);
+          continue;
+        }
+        return response;
+
+      } catch (InterruptedIOException e) {
+        // response or pool timeout, the deadline is spent so there is nothing left to retry with
+        outcome = "timeout";
+        throw new RuntimeException("Vrp api call timed out");
+      } catch (IOException e) {
+        if (!idempotent || attempt >= maxRetries) {
+          throw new UncheckedIOException(e);
+        }
+        log.warn("Vrp api call failed, retrying: {}", e.getMessage());
+        backoff(attempt, deadline);
+      } finally {
+        sample.stop(Timer.builder("vrp.client.requests")
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry));
+      }
+    }
+  }
+
+  // full jitter exponential backoff, never sleeping past the deadline
+  private void backoff(int attempt, long deadline) {
+    retries.increment();
+    long maxSleepMs = Math.min(retryBackoffMs << attempt, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    if (maxSleepMs <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(maxSleepMs + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Vrp api call interrupted");
+    }
+  }
+
+  private static byte[] compress(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+      gzipOut.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] decompress(byte[] data) throws IOException {
+    try (GZIPInputStream gzipIn = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      return gzipIn.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+
+public interface VrpSolver {
+  String getName();
+
+  VrpResponse solve(VrpRequest request);
+
+  // the time a request with this budget actually gets, null when neither side bounds it
+  default Long timeLimitMs(Long requestedMs) {
+    return requestedMs;
+  }
+}
@@ -0,0 +1,33 @@
+package com.ducvu.backend_java.solver;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// resolves a solver by name, falling back to the deployment default
+@Component
+public class VrpSolverProvider {
+  private final Map<String, VrpSolver> solvers;
+
+  @Value("${vrp.solver:remote}")
+  private String defaultSolver;
+
+  public VrpSolverProvider(List<VrpSolver> solvers) {
+    this.solvers = solvers.stream()
+        .collect(Collectors.toMap(VrpSolver::getName, Function.identity()));
+  }
+
+  public VrpSolver getSolver(String name) {
+    String key = StringUtils.hasText(name) ? name : defaultSolver;
+    VrpSolver solver = solvers.get(key);
+    if (solver == null) {
+      throw new RuntimeException("Unknown solver: " + key);
+    }
+    return solver;
+  }
+}
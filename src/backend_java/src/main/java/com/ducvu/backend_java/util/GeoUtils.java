@@ -0,0 +1,41 @@
+package com.ducvu.backend_java.util;
+
+import java.util.List;
+
+// plain geo helpers shared by the solvers, locations are [lat, lon]
+public final class GeoUtils {
+  private static final double EARTH_RADIUS_KM = 6371.0;
+  public static final double CELL_DEG = 0.005; // about 550 m, cell ids are stored so this must not change
+  private static final long CELL_COLUMNS = Math.round(360 / CELL_DEG);
+
+  private GeoUtils() {
+  }
+
+  public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double deltaPhi = Math.toRadians(lat2 - lat1);
+    double deltaLambda = Math.toRadians(lon2 - lon1);
+    double a = Math.sin(deltaPhi / 2) * Math.sin(deltaPhi / 2)
+        + Math.cos(phi1) * Math.cos(phi2) * Math.sin(deltaLambda / 2) * Math.sin(deltaLambda / 2);
+    return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+  }
+
+  public static double haversine(List<Double> from, List<Double> to) {
+    return haversine(from.get(0), from.get(1), to.get(0), to.get(1));
+  }
+
+  // id of the fixed grid cell holding the location, equal on every node and across restarts
+  public static long cellOf(double lat, double lon) {
+    long row = (long) Math.floor((lat + 90) / CELL_DEG);
+    long column = Math.min(CELL_COLUMNS - 1, (long) Math.floor((lon + 180) / CELL_DEG));
+    return row * CELL_COLUMNS + column;
+  }
+
+  // [lat, lon] of the cell's centre
+  public static List<Double> cellCentre(long cellId) {
+    long row = cellId / CELL_COLUMNS;
+    long column = cellId % CELL_COLUMNS;
+    return List.of((row + 0.5) * CELL_DEG - 90, (column + 0.5) * CELL_DEG - 180);
+  }
+}
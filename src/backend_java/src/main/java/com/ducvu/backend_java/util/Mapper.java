@@ -1,10 +1,15 @@
 package com.ducvu.backend_java.util;
 
+import com.ducvu.backend_java.dto.request.CompactVrpRequest;
+import com.ducvu.backend_java.dto.request.VrpRequest;
 import com.ducvu.backend_java.dto.response.*;
 import com.ducvu.backend_java.model.*;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class Mapper {
@@ -59,6 +64,8 @@ public class Mapper {
     return DispatchResponse.builder()
         .id(dispatch.getId())
         .status(dispatch.getStatus())
+        .degraded(Boolean.TRUE.equals(dispatch.getDegraded()))
+        .races(dispatch.getRaces() != null ? dispatch.getRaces() : Map.of())
         .completedAt(dispatch.getCompletedAt())
         .createdAt(dispatch.getCreatedAt())
         .updatedAt(dispatch.getUpdatedAt())
@@ -83,6 +90,7 @@ public class Mapper {
                 .map(List::reversed)
                 .toList()
         )
+        .geometryStale(Boolean.TRUE.equals(route.getGeometryStale()))
         .status(route.getStatus())
         .completedAt(route.getCompletedAt())
         .createdAt(route.getCreatedAt())
@@ -90,6 +98,26 @@ public class Mapper {
         .build();
   }
 
+  // a planned route that is not saved yet
+  public RouteResponse mapPreview(VrpRoute route, Vehicle vehicle, List<Order> orders) {
+    return RouteResponse.builder()
+        .vehicle(vehicle != null ? this.map(vehicle) : null)
+        .distance(route.getDistance())
+        .orders(orders.stream()
+            .map(this::map)
+            .toList()
+        )
+        .duration(route.getDuration())
+        .coordinates(route.getGeometry() == null ? List.of() :
+            route.getGeometry().getCoordinates()
+                .stream()
+                .map(List::reversed)
+                .toList()
+        )
+        .status(RouteStatus.IN_PROGRESS)
+        .build();
+  }
+
   public OrderResponse map(Order order) {
     return OrderResponse.builder()
         .id(order.getId())
@@ -122,6 +150,27 @@ public class Mapper {
         .build();
   }
 
+  public DispatchJobResponse map(DispatchJob job) {
+    int total = job.getTotalCategories() != null ? job.getTotalCategories() : 0;
+    int solved = job.getSolvedCategories() != null ? job.getSolvedCategories() : 0;
+    double progress = job.getPhase() == DispatchJobPhase.COMPLETED ? 1.0 : (total == 0 ? 0.0 : (double) solved / total);
+    return DispatchJobResponse.builder()
+        .id(job.getId())
+        .phase(job.getPhase())
+        .solver(job.getSolver())
+        .scope(job.getScope())
+        .dispatchId(job.getDispatchId())
+        .previewToken(job.getPreviewToken())
+        .totalCategories(job.getTotalCategories())
+        .solvedCategories(job.getSolvedCategories())
+        .progress(progress)
+        .categoryTimings(job.getCategoryTimings() != null ? new LinkedHashMap<>(job.getCategoryTimings()) : Map.of())
+        .error(job.getError())
+        .createdAt(job.getCreatedAt())
+        .completedAt(job.getCompletedAt())
+        .build();
+  }
+
   public VrpVehicle mapVrp(Vehicle vehicle) {
     return VrpVehicle.builder()
         .id(vehicle.getId())
@@ -143,8 +192,7 @@ public class Mapper {
         )
         .distance(route.getDistance())
         .duration(route.getDuration())
-        .geometry(route.getGeometry())
-        .build();
+        .build(); // geometry is output only, the solvers never read it back
   }
 
   public VrpDepot mapVrp(Depot depot) {
@@ -160,7 +208,68 @@ public class Mapper {
         .location(List.of(order.getLatitude(), order.getLongitude()))
         .demand(order.getWeight())
         .status(order.getStatus() == OrderStatus.COMPLETED ? "completed" : (order.getStatus() == OrderStatus.IN_PROGRESS ? "in_progress" : "pending"))
+        .depotDistances(order.getFeatures() != null ? order.getFeatures().getDepotDistances() : null)
+        .build();
+  }
+
+
+  public CompactVrpRequest mapCompact(VrpRequest request) {
+    List<VrpDepot> depots = Optional.ofNullable(request.getDepots()).orElse(List.of());
+    List<VrpVehicle> vehicles = Optional.ofNullable(request.getVehicles()).orElse(List.of());
+    List<VrpJob> jobs = Optional.ofNullable(request.getJobs()).orElse(List.of());
+    List<VrpRoute> routes = Optional.ofNullable(request.getRoutes()).orElse(List.of());
+    List<VrpJob> steps = routes.stream()
+        .flatMap(r -> r.getSteps().stream())
+        .toList();
+
+    List<VrpRoute> initialRoutes = Optional.ofNullable(request.getInitialRoutes()).orElse(List.of());
+
+    int[] routeOffsets = new int[routes.size() + 1];
+    for (int i = 0; i < routes.size(); i++) {
+      routeOffsets[i + 1] = routeOffsets[i] + routes.get(i).getSteps().size();
+    }
+    int[] initialRouteOffsets = new int[initialRoutes.size() + 1];
+    for (int i = 0; i < initialRoutes.size(); i++) {
+      initialRouteOffsets[i + 1] = initialRouteOffsets[i] + initialRoutes.get(i).getSteps().size();
+    }
+
+    return CompactVrpRequest.builder()
+        .depotIds(depots.stream().map(VrpDepot::getId).toList())
+        .depotCoords(flatten(depots.stream().map(VrpDepot::getLocation).toList()))
+        .vehicleIds(vehicles.stream().map(VrpVehicle::getId).toList())
+        .vehicleDepotIds(vehicles.stream().map(VrpVehicle::getDepotId).toList())
+        .vehicleCoords(flatten(vehicles.stream().map(VrpVehicle::getLocation).toList()))
+        .vehicleCapacities(vehicles.stream().mapToDouble(v -> orZero(v.getCapacity())).toArray())
+        .vehicleProfiles(vehicles.stream().map(VrpVehicle::getProfile).toList())
+        .jobIds(jobs.stream().map(VrpJob::getId).toList())
+        .jobCoords(flatten(jobs.stream().map(VrpJob::getLocation).toList()))
+        .jobDemands(jobs.stream().mapToDouble(j -> orZero(j.getDemand())).toArray())
+        .jobStatuses(jobs.stream().map(VrpJob::getStatus).toList())
+        .routeVehicleIds(routes.stream().map(VrpRoute::getVehicleId).toList())
+        .routeOffsets(routeOffsets)
+        .stepIds(steps.stream().map(VrpJob::getId).toList())
+        .stepCoords(flatten(steps.stream().map(VrpJob::getLocation).toList()))
+        .stepDemands(steps.stream().mapToDouble(j -> orZero(j.getDemand())).toArray())
+        .stepStatuses(steps.stream().map(VrpJob::getStatus).toList())
+        .routeLockedSteps(routes.stream().mapToInt(r -> r.getLockedSteps() != null ? r.getLockedSteps() : 0).toArray())
+        .initialRouteVehicleIds(initialRoutes.stream().map(VrpRoute::getVehicleId).toList())
+        .initialRouteOffsets(initialRouteOffsets)
+        .initialStepIds(initialRoutes.stream().flatMap(r -> r.getSteps().stream()).map(VrpJob::getId).toList())
+        .timeLimitMs(request.getTimeLimitMs())
         .build();
   }
 
+  private static double[] flatten(List<List<Double>> locations) {
+    double[] coords = new double[locations.size() * 2];
+    for (int i = 0; i < locations.size(); i++) {
+      coords[2 * i] = locations.get(i).get(0);
+      coords[2 * i + 1] = locations.get(i).get(1);
+    }
+    return coords;
+  }
+
+  private static double orZero(Double value) {
+    return value != null ? value : 0.0;
+  }
+
 }
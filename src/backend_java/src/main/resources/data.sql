@@ -1,3 +1,9 @@
+-- indexes
+-- partial index for the dispatch lookup of in-progress routes per vehicle, completed history is not indexed
+CREATE INDEX IF NOT EXISTS idx_routes_in_progress_vehicle ON routes (vehicle_id) WHERE status = 'IN_PROGRESS';
+-- at most one running dispatch, concurrent dispatches over disjoint vehicles join it instead of starting another
+CREATE UNIQUE INDEX IF NOT EXISTS idx_dispatches_single_active ON dispatches (status) WHERE status = 'IN_PROGRESS';
+
 -- users
 INSERT INTO users (id, username, phone, hashed_password, fcm_token, role, created_at, updated_at)
 VALUES
@@ -0,0 +1,114 @@
+package com.ducvu.backend_java.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the claim query of the solver work queue against a real postgres, several workers on their own connections
+// run with SOLVER_QUEUE_TEST_DB_URL=jdbc:postgresql://localhost:5432/<db> (plus _USER and _PASSWORD)
+@EnabledIfEnvironmentVariable(named = "SOLVER_QUEUE_TEST_DB_URL", matches = ".+")
+class SolverTaskRepositoryPostgresTests {
+  private static final int TASKS = 200;
+  private static final int WORKERS = 8;
+  private static final String CLAIM = SolverTaskRepository.CLAIM_NEXT.replace(":now", "?");
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS solver_tasks");
+      statement.execute("CREATE TABLE solver_tasks (id varchar(64) PRIMARY KEY, status varchar(16), "
+          + "lease_owner varchar(64), lease_expires_at timestamp, created_at timestamp)");
+      try (PreparedStatement insert = connection.prepareStatement(
+          "INSERT INTO solver_tasks (id, status, created_at) VALUES (?, 'QUEUED', ?)")) {
+        for (int i = 0; i < TASKS; i++) {
+          insert.setString(1, "task-" + i);
+          insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().plusNanos(i * 1000L)));
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS solver_tasks");
+    }
+  }
+
+  @Test
+  void concurrentWorkersNeverClaimTheSameTask() throws Exception {
+    Map<String, String> claimedBy = new ConcurrentHashMap<>();
+    List<String> duplicates = new CopyOnWriteArrayList<>();
+    try (ExecutorService workers = Executors.newFixedThreadPool(WORKERS)) {
+      for (int w = 0; w < WORKERS; w++) {
+        String workerId = "worker-" + w;
+        workers.submit(() -> {
+          try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            Optional<String> task;
+            while ((task = claim(connection, workerId, LocalDateTime.now().plusMinutes(1))).isPresent()) {
+              if (claimedBy.putIfAbsent(task.get(), workerId) != null) {
+                duplicates.add(task.get());
+              }
+            }
+          }
+          return null;
+        });
+      }
+    }
+
+    assertEquals(TASKS, claimedBy.size());
+    assertTrue(duplicates.isEmpty());
+    assertTrue(new HashSet<>(claimedBy.values()).size() > 1, "work is spread over the workers");
+  }
+
+  @Test
+  void expiredLeaseCanBeClaimedAgain() throws SQLException {
+    try (Connection connection = connect()) {
+      connection.setAutoCommit(false);
+      String first = claim(connection, "crashed", LocalDateTime.now().minusSeconds(1)).orElseThrow();
+      // the crashed worker's lease is already over, so the same task is next in line again
+      assertEquals(first, claim(connection, "survivor", LocalDateTime.now().plusMinutes(1)).orElseThrow());
+    }
+  }
+
+  // one claim transaction, like SolverWorker.claim
+  private static Optional<String> claim(Connection connection, String workerId, LocalDateTime leaseExpiresAt)
+      throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(CLAIM)) {
+      select.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+      try (ResultSet rows = select.executeQuery()) {
+        if (!rows.next()) {
+          connection.commit();
+          return Optional.empty();
+        }
+        String id = rows.getString("id");
+        try (PreparedStatement update = connection.prepareStatement(
+            "UPDATE solver_tasks SET status = 'RUNNING', lease_owner = ?, lease_expires_at = ? WHERE id = ?")) {
+          update.setString(1, workerId);
+          update.setTimestamp(2, Timestamp.valueOf(leaseExpiresAt));
+          update.setString(3, id);
+          update.executeUpdate();
+        }
+        connection.commit();
+        return Optional.of(id);
+      }
+    }
+  }
+
+  private static Connection connect() throws SQLException {
+    return DriverManager.getConnection(System.getenv("SOLVER_QUEUE_TEST_DB_URL"),
+        System.getenv().getOrDefault("SOLVER_QUEUE_TEST_DB_USER", "postgres"),
+        System.getenv().getOrDefault("SOLVER_QUEUE_TEST_DB_PASSWORD", "postgres"));
+  }
+}
@@ -0,0 +1,154 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.DispatchPreviewResponse;
+import com.ducvu.backend_java.dto.response.DispatchResponse;
+import com.ducvu.backend_java.exception.DispatchConflictException;
+import com.ducvu.backend_java.model.DispatchContext;
+import com.ducvu.backend_java.model.DispatchJob;
+import com.ducvu.backend_java.model.DispatchJobPhase;
+import com.ducvu.backend_java.model.TrashCategory;
+import com.ducvu.backend_java.repository.DispatchJobRepository;
+import com.ducvu.backend_java.util.Mapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class DispatchJobServiceTests {
+  private final DispatchService dispatchService = mock(DispatchService.class);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private ExecutorService dispatchExecutor;
+  private DispatchJobService jobService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    when(dispatchService.resolveScope(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(dispatchService.createDispatch(any())).thenAnswer(invocation -> {
+      release.await();
+      return DispatchResponse.builder().id("dispatch-1").build();
+    });
+    DispatchJobRepository dispatchJobRepository = mock(DispatchJobRepository.class);
+    when(dispatchJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0, DispatchJob.class));
+    DispatchJobRegistry registry = new DispatchJobRegistry(dispatchJobRepository, new Mapper());
+    ReflectionTestUtils.setField(registry, "maxEntries", 10);
+
+    dispatchExecutor = Executors.newFixedThreadPool(4);
+    jobService = new DispatchJobService(dispatchService, registry, dispatchExecutor);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    release.countDown();
+    dispatchExecutor.shutdown();
+    assertTrue(dispatchExecutor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void disjointScopesRunSideBySide() {
+    String general = jobService.submitDispatch(scope(Set.of(TrashCategory.GENERAL), Set.of())).getId();
+    String depotA = jobService.submitDispatch(scope(Set.of(TrashCategory.RECYCLABLE), Set.of("depot-a"))).getId();
+    String depotB = jobService.submitDispatch(scope(Set.of(TrashCategory.RECYCLABLE), Set.of("depot-b"))).getId();
+
+    assertEquals(3, Set.of(general, depotA, depotB).size());
+    verify(dispatchService, timeout(2000).times(3)).createDispatch(any());
+    assertEquals("categories=[RECYCLABLE] depots=[depot-a]", jobService.getDispatchJob(depotA).getScope());
+  }
+
+  @Test
+  void scopeInsideARunningDispatchJoinsIt() {
+    String all = jobService.submitDispatch(null, true).getId();
+
+    assertEquals(all, jobService.submitDispatch(scope(Set.of(TrashCategory.GENERAL), Set.of("depot-a"))).getId());
+    assertEquals(all, jobService.submitDispatch("native", true).getId());
+  }
+
+  @Test
+  void partlyOverlappingScopeIsRefused() {
+    jobService.submitDispatch(scope(Set.of(TrashCategory.GENERAL), Set.of("depot-a")));
+
+    assertThrows(DispatchConflictException.class,
+        () -> jobService.submitDispatch(scope(Set.of(TrashCategory.GENERAL), Set.of())));
+    assertThrows(DispatchConflictException.class, () -> jobService.submitDispatch(null, true));
+  }
+
+  @Test
+  void previewRunsAsAJobAndCarriesItsToken() throws Exception {
+    when(dispatchService.previewDispatch(any()))
+        .thenReturn(DispatchPreviewResponse.builder().token("token-1").build());
+    when(dispatchService.getPreview("token-1"))
+        .thenReturn(DispatchPreviewResponse.builder().token("token-1").build());
+
+    String jobId = jobService.submitPreview(scope(Set.of(TrashCategory.GENERAL), Set.of())).getId();
+
+    verify(dispatchService, timeout(2000)).previewDispatch(argThat(context -> jobId.equals(context.getJobId())));
+    await(() -> jobService.getDispatchJob(jobId).getPhase() == DispatchJobPhase.COMPLETED);
+    assertEquals("token-1", jobService.getDispatchJob(jobId).getPreviewToken());
+    assertEquals("token-1", jobService.getPreviewJobResult(jobId).getToken());
+    assertFalse(jobService.isDispatchInFlight(), "previews take no slot");
+  }
+
+  @Test
+  void commitWaitsForAnOverlappingDispatch() throws Exception {
+    when(dispatchService.getPreviewScope("token-1")).thenReturn(scope(Set.of(TrashCategory.GENERAL), Set.of()));
+    when(dispatchService.commitPreview("token-1")).thenReturn(DispatchResponse.builder().id("dispatch-2").build());
+    jobService.submitDispatch(null, true);
+
+    assertThrows(DispatchConflictException.class, () -> jobService.commitPreview("token-1"));
+    verify(dispatchService, never()).commitPreview(any());
+
+    release.countDown();
+    await(() -> !jobService.isDispatchInFlight());
+    assertEquals("dispatch-2", jobService.commitPreview("token-1").getId());
+    assertFalse(jobService.isDispatchInFlight());
+  }
+
+  @Test
+  void dispatchTriggeredDuringACommitIsRefusedOrJoinsIt() throws Exception {
+    CountDownLatch committing = new CountDownLatch(1);
+    when(dispatchService.getPreviewScope("token-1")).thenReturn(scope(Set.of(TrashCategory.GENERAL), Set.of()));
+    when(dispatchService.commitPreview("token-1")).thenAnswer(invocation -> {
+      committing.countDown();
+      release.await();
+      return DispatchResponse.builder().id("dispatch-2").build();
+    });
+    Thread commit = Thread.ofVirtual().start(() -> jobService.commitPreview("token-1"));
+    assertTrue(committing.await(2, TimeUnit.SECONDS));
+
+    assertThrows(DispatchConflictException.class, () -> jobService.submitDispatch(null, true));
+    String joined = jobService.submitDispatch(scope(Set.of(TrashCategory.GENERAL), Set.of("depot-a"))).getId();
+    assertEquals(DispatchJobPhase.SAVING, jobService.getDispatchJob(joined).getPhase());
+
+    release.countDown();
+    commit.join(2000);
+    assertEquals("dispatch-2", jobService.getDispatchJob(joined).getDispatchId());
+    verify(dispatchService, never()).createDispatch(any());
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 2000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "timed out");
+      Thread.sleep(10);
+    }
+  }
+
+  private static DispatchContext scope(Set<TrashCategory> categories, Set<String> depotIds) {
+    return DispatchContext.builder()
+        .useCache(true)
+        .categories(categories)
+        .depotIds(depotIds)
+        .build();
+  }
+}
@@ -0,0 +1,116 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.DispatchResponse;
+import com.ducvu.backend_java.model.DispatchJob;
+import com.ducvu.backend_java.model.Order;
+import com.ducvu.backend_java.repository.DispatchJobRepository;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.util.Mapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DispatchSchedulerTests {
+  private final DispatchJobService dispatchJobService = mock(DispatchJobService.class);
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private DispatchScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = new DispatchScheduler(dispatchJobService, orderRepository);
+    ReflectionTestUtils.setField(scheduler, "enabled", true);
+    ReflectionTestUtils.setField(scheduler, "maxOrders", 3);
+    ReflectionTestUtils.setField(scheduler, "maxWeight", 100.0);
+    ReflectionTestUtils.setField(scheduler, "maxWaitMs", 60_000L);
+  }
+
+  @Test
+  void firesOnOrderCountOrWeightWhicheverComesFirst() {
+    scheduler.orderPending(order(10.0));
+    scheduler.orderPending(order(10.0));
+    verify(dispatchJobService, never()).submitDispatch(any(), anyBoolean());
+    scheduler.orderPending(order(10.0));
+    verify(dispatchJobService, times(1)).submitDispatch(null, true);
+
+    scheduler.orderPending(order(120.0));
+    verify(dispatchJobService, times(2)).submitDispatch(null, true);
+  }
+
+  @Test
+  void firesOnTickOnceTheOldestOrderWaitedTooLong() {
+    scheduler.orderPending(order(10.0));
+    scheduler.tick();
+    verify(dispatchJobService, never()).submitDispatch(any(), anyBoolean());
+
+    ReflectionTestUtils.setField(scheduler, "maxWaitMs", 0L);
+    scheduler.tick();
+    verify(dispatchJobService, times(1)).submitDispatch(null, true);
+    scheduler.tick(); // the batch is empty again
+    verify(dispatchJobService, times(1)).submitDispatch(null, true);
+  }
+
+  @Test
+  void keepsTheBatchWhileADispatchIsInFlight() {
+    when(dispatchJobService.isDispatchInFlight()).thenReturn(true);
+    for (int i = 0; i < 5; i++) {
+      scheduler.orderPending(order(10.0));
+    }
+    verify(dispatchJobService, never()).submitDispatch(any(), anyBoolean());
+
+    when(dispatchJobService.isDispatchInFlight()).thenReturn(false);
+    scheduler.tick();
+    verify(dispatchJobService, times(1)).submitDispatch(null, true);
+  }
+
+  @Test
+  void concurrentTriggersCoalesceIntoOneDispatch() throws Exception {
+    DispatchService dispatchService = mock(DispatchService.class);
+    when(dispatchService.resolveScope(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    CountDownLatch release = new CountDownLatch(1);
+    when(dispatchService.createDispatch(any())).thenAnswer(invocation -> {
+      release.await();
+      return DispatchResponse.builder().id("dispatch-1").build();
+    });
+    DispatchJobRepository dispatchJobRepository = mock(DispatchJobRepository.class);
+    when(dispatchJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0, DispatchJob.class));
+    DispatchJobRegistry registry = new DispatchJobRegistry(dispatchJobRepository, new Mapper());
+    ReflectionTestUtils.setField(registry, "maxEntries", 10);
+
+    ExecutorService dispatchExecutor = Executors.newSingleThreadExecutor();
+    DispatchJobService jobService = new DispatchJobService(dispatchService, registry, dispatchExecutor);
+
+    List<Future<String>> triggers = new ArrayList<>();
+    try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 20; i++) {
+        boolean manual = i % 2 == 0;
+        triggers.add(callers.submit(() -> jobService.submitDispatch(manual ? "native" : null, true).getId()));
+      }
+    }
+    Set<String> jobIds = new HashSet<>();
+    for (Future<String> trigger : triggers) {
+      jobIds.add(trigger.get());
+    }
+    assertEquals(1, jobIds.size());
+    assertTrue(jobService.isDispatchInFlight());
+
+    release.countDown();
+    dispatchExecutor.shutdown();
+    assertTrue(dispatchExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    verify(dispatchService, times(1)).createDispatch(any());
+    assertFalse(jobService.isDispatchInFlight());
+  }
+
+  private static Order order(double weight) {
+    return Order.builder().weight(weight).build();
+  }
+}
@@ -0,0 +1,222 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import com.ducvu.backend_java.util.Mapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// dispatches scoped to disjoint categories run at the same time on one DispatchService without seeing each other's
+// orders, routes or notifications, and all end up in the same running dispatch
+class DispatchServiceConcurrencyTests {
+  private static final int ROUNDS = 30;
+  private static final int ORDERS_PER_CATEGORY = 30;
+
+  @Test
+  void disjointCategoryDispatchesRunConcurrently() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      runRound();
+    }
+  }
+
+  @Test
+  void vehicleScopedDispatchOnlyTouchesItsSlice() {
+    World world = new World();
+    TrashCategory category = TrashCategory.values()[0];
+    String vehicleId = category + "-vehicle-0";
+    try (ExecutorService solverExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+      DispatchService dispatchService = world.dispatchService(solverExecutor, mock(NotificationService.class));
+      DispatchContext scope = dispatchService.resolveScope(DispatchContext.builder()
+          .useCache(false)
+          .vehicleIds(Set.of(vehicleId))
+          .build());
+      assertEquals(Set.of(category), scope.getCategories());
+      assertEquals(Set.of("depot-" + category), scope.getDepotIds());
+
+      dispatchService.createDispatch(scope);
+    }
+
+    for (Order order : world.orders.values()) {
+      if (order.getCategory() == category) {
+        assertEquals(OrderStatus.IN_PROGRESS, order.getStatus());
+        assertEquals(vehicleId, order.getRoute().getVehicle().getId());
+      } else {
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+      }
+    }
+    assertEquals(VehicleStatus.IDLE, world.vehicles.get(category + "-vehicle-1").getStatus());
+  }
+
+  private void runRound() throws Exception {
+    World world = new World();
+    NotificationService notificationService = mock(NotificationService.class);
+    Map<String, List<String>> notifiedOrders = new ConcurrentHashMap<>();
+    doAnswer(invocation -> {
+      List<String> refIds = invocation.getArgument(3);
+      if (!refIds.isEmpty()) {
+        notifiedOrders.put(refIds.get(0), refIds);
+      }
+      return null;
+    }).when(notificationService).sendBatchNotifications(eq("Order is in progress"), anyList(), any(), anyList());
+
+    List<Future<?>> runs = new ArrayList<>();
+    try (ExecutorService solverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+         ExecutorService callers = Executors.newFixedThreadPool(TrashCategory.values().length)) {
+      DispatchService dispatchService = world.dispatchService(solverExecutor, notificationService);
+      CountDownLatch start = new CountDownLatch(1);
+      for (TrashCategory category : TrashCategory.values()) {
+        runs.add(callers.submit(() -> {
+          start.await();
+          return dispatchService.createDispatch(DispatchContext.builder()
+              .useCache(false)
+              .categories(Set.of(category))
+              .build());
+        }));
+      }
+      start.countDown();
+      for (Future<?> run : runs) {
+        run.get(30, TimeUnit.SECONDS);
+      }
+    }
+
+    assertEquals(1, world.dispatchesCreated.size(), "every run joins the first running dispatch");
+    for (Order order : world.orders.values()) {
+      assertEquals(OrderStatus.IN_PROGRESS, order.getStatus());
+      assertEquals(order.getCategory(), order.getRoute().getVehicle().getCategory());
+    }
+    // one notification batch per category, holding exactly that category's orders
+    assertEquals(TrashCategory.values().length, notifiedOrders.size());
+    for (List<String> refIds : notifiedOrders.values()) {
+      Set<TrashCategory> categories = refIds.stream()
+          .map(id -> world.orders.get(id).getCategory())
+          .collect(Collectors.toSet());
+      assertEquals(1, categories.size());
+      assertEquals(ORDERS_PER_CATEGORY, refIds.size());
+    }
+  }
+
+  // in-memory stand-in for the database, every lookup of the dispatch row returns a fresh copy like a new session would
+  private static class World {
+    final Map<String, Order> orders = new ConcurrentHashMap<>();
+    final Map<String, Vehicle> vehicles = new ConcurrentHashMap<>();
+    final List<String> dispatchesCreated = new CopyOnWriteArrayList<>();
+    private String activeDispatchId; // guarded by this
+
+    World() {
+      Random random = new Random();
+      for (TrashCategory category : TrashCategory.values()) {
+        Depot depot = Depot.builder().id("depot-" + category).category(category)
+            .latitude(21.0 + category.ordinal() * 0.01).longitude(105.8).build();
+        for (int v = 0; v < 2; v++) {
+          Vehicle vehicle = Vehicle.builder().id(category + "-vehicle-" + v)
+              .type(v == 0 ? VehicleType.THREE_WHEELER : VehicleType.COMPACTOR_TRUCK)
+              .status(VehicleStatus.IDLE).category(category).capacity(1000.0).depot(depot)
+              .currentLatitude(depot.getLatitude()).currentLongitude(depot.getLongitude())
+              .routes(new ArrayList<>()).version(0L).build();
+          vehicles.put(vehicle.getId(), vehicle);
+        }
+        for (int i = 0; i < ORDERS_PER_CATEGORY; i++) {
+          Order order = Order.builder().id(category + "-order-" + i).status(OrderStatus.PENDING).category(category)
+              .latitude(depot.getLatitude() + random.nextDouble() * 0.01).longitude(105.8 + random.nextDouble() * 0.01)
+              .weight(10.0).version(0L).build();
+          orders.put(order.getId(), order);
+        }
+      }
+    }
+
+    synchronized Optional<Dispatch> activeDispatch() {
+      return Optional.ofNullable(activeDispatchId).map(this::copy);
+    }
+
+    // the unique index on the running dispatch
+    synchronized Dispatch save(Dispatch dispatch) {
+      if (dispatch.getId() == null) {
+        if (activeDispatchId != null) {
+          throw new DataIntegrityViolationException("idx_dispatches_single_active");
+        }
+        dispatch.setId(UUID.randomUUID().toString());
+        activeDispatchId = dispatch.getId();
+        dispatchesCreated.add(dispatch.getId());
+      }
+      return dispatch;
+    }
+
+    private Dispatch copy(String id) {
+      return Dispatch.builder().id(id).status(DispatchStatus.IN_PROGRESS).routes(new ArrayList<>()).build();
+    }
+
+    DispatchService dispatchService(ExecutorService solverExecutor, NotificationService notificationService) {
+      DispatchRepository dispatchRepository = mock(DispatchRepository.class);
+      OrderRepository orderRepository = mock(OrderRepository.class);
+      VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+      RouteRepository routeRepository = mock(RouteRepository.class);
+      VrpSolverProvider vrpSolverProvider = mock(VrpSolverProvider.class);
+
+      when(dispatchRepository.findActiveDispatch()).thenAnswer(invocation -> activeDispatch());
+      when(dispatchRepository.findById(any())).thenAnswer(invocation -> Optional.of(copy(invocation.getArgument(0))));
+      when(dispatchRepository.saveAndFlush(any())).thenAnswer(invocation -> save(invocation.getArgument(0)));
+      when(orderRepository.findAllPendingOrdersSorted()).thenAnswer(invocation -> pending());
+      when(orderRepository.findAllPendingOrdersAndReassignmentPendingSorted()).thenAnswer(invocation -> pending());
+      when(orderRepository.findAllPendingOrdersByCategoryInSorted(any()))
+          .thenAnswer(invocation -> pending(invocation.getArgument(0)));
+      when(orderRepository.findAllPendingOrdersAndReassignmentPendingByCategoryInSorted(any()))
+          .thenAnswer(invocation -> pending(invocation.getArgument(0)));
+      when(orderRepository.findAllById(any())).thenAnswer(invocation -> lookup(orders, invocation.getArgument(0)));
+      when(vehicleRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+      when(vehicleRepository.findByCategoryIn(any())).thenAnswer(invocation -> vehicles.values().stream()
+          .filter(vehicle -> invocation.<Collection<TrashCategory>>getArgument(0).contains(vehicle.getCategory()))
+          .toList());
+      when(vehicleRepository.findAllById(any())).thenAnswer(invocation -> lookup(vehicles, invocation.getArgument(0)));
+      when(routeRepository.findByStatusAndVehicleIdIn(any(), any())).thenReturn(List.of());
+      when(vrpSolverProvider.getSolver(any())).thenReturn(new GreedyVrpSolver());
+
+      PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+      TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+      readOnly.setReadOnly(true);
+      DispatchSolver dispatchSolver = new DispatchSolver(solverExecutor, new GreedyVrpSolver(),
+          new SolverResultCache(new SimpleMeterRegistry()),
+          new VrpSolverProvider(List.of()));
+
+      DispatchService dispatchService = new DispatchService(dispatchRepository, orderRepository, vehicleRepository,
+          mock(DepotRepository.class), routeRepository, new Mapper(), vrpSolverProvider, dispatchSolver,
+          mock(SolverTaskQueue.class), mock(PendingOrderBook.class), mock(DispatchJobRegistry.class), notificationService,
+          new TransactionTemplate(transactionManager), readOnly);
+      ReflectionTestUtils.setField(dispatchService, "maxAttempts", 3);
+      return dispatchService;
+    }
+
+    private List<Order> pending() {
+      return orders.values().stream()
+          .filter(order -> order.getStatus() == OrderStatus.PENDING)
+          .sorted(Comparator.comparing(Order::getId))
+          .toList();
+    }
+
+    private List<Order> pending(Collection<String> categories) {
+      return pending().stream()
+          .filter(order -> categories.contains(order.getCategory().name()))
+          .toList();
+    }
+
+    private static <T> List<T> lookup(Map<String, T> table, Iterable<String> ids) {
+      List<T> found = new ArrayList<>();
+      ids.forEach(id -> Optional.ofNullable(id).map(table::get).ifPresent(found::add));
+      return found;
+    }
+  }
+}
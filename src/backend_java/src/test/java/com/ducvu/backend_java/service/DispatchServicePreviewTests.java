@@ -0,0 +1,152 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.DispatchPreviewResponse;
+import com.ducvu.backend_java.dto.response.RouteResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import com.ducvu.backend_java.util.Mapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// a preview solves and saves nothing, committing its token saves exactly that plan unless its input changed meanwhile
+class DispatchServicePreviewTests {
+  private static final TrashCategory CATEGORY = TrashCategory.GENERAL;
+
+  private final Map<String, Order> orders = new LinkedHashMap<>();
+  private final Map<String, Vehicle> vehicles = new LinkedHashMap<>();
+  private final ExecutorService solverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private DispatchRepository dispatchRepository;
+  private DispatchSolver dispatchSolver;
+  private DispatchService dispatchService;
+
+  @BeforeEach
+  void setUp() {
+    Depot depot = Depot.builder().id("depot").category(CATEGORY).latitude(21.0).longitude(105.8).build();
+    for (int v = 0; v < 2; v++) {
+      Vehicle vehicle = Vehicle.builder().id("vehicle-" + v).type(VehicleType.THREE_WHEELER)
+          .status(VehicleStatus.IDLE).category(CATEGORY).capacity(1000.0).depot(depot)
+          .driver(User.builder().id("driver-" + v).build()).currentLatitude(21.0).currentLongitude(105.8).routes(new ArrayList<>()).version(0L).build();
+      vehicles.put(vehicle.getId(), vehicle);
+    }
+    Random random = new Random(3);
+    for (int i = 0; i < 40; i++) {
+      Order order = Order.builder().id("order-" + i).status(OrderStatus.PENDING).category(CATEGORY)
+          .latitude(21.0 + random.nextDouble() * 0.02).longitude(105.8 + random.nextDouble() * 0.02)
+          .weight(10.0).user(User.builder().id("user-" + i).build()).version(0L).build();
+      orders.put(order.getId(), order);
+    }
+
+    dispatchRepository = mock(DispatchRepository.class);
+    OrderRepository orderRepository = mock(OrderRepository.class);
+    VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+    RouteRepository routeRepository = mock(RouteRepository.class);
+    VrpSolverProvider vrpSolverProvider = mock(VrpSolverProvider.class);
+
+    Map<String, Dispatch> dispatches = new HashMap<>();
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.empty());
+    when(dispatchRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+      Dispatch dispatch = invocation.getArgument(0);
+      if (dispatch.getId() == null) {
+        dispatch.setId("dispatch");
+      }
+      dispatches.put(dispatch.getId(), dispatch);
+      return dispatch;
+    });
+    when(dispatchRepository.findById(any())).thenAnswer(invocation ->
+        Optional.ofNullable(dispatches.get(invocation.<String>getArgument(0))));
+    when(orderRepository.findAllPendingOrdersSorted()).thenAnswer(invocation -> pending());
+    when(orderRepository.findAllPendingOrdersByCategoryInSorted(any())).thenAnswer(invocation -> pending());
+    when(orderRepository.findAllById(any())).thenAnswer(invocation -> new ArrayList<>(orders.values()));
+    when(vehicleRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(vehicleRepository.findByCategoryIn(any())).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(vehicleRepository.findAllById(any())).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(routeRepository.findByStatusAndVehicleIdIn(any(), any())).thenReturn(List.of());
+    when(vrpSolverProvider.getSolver(any())).thenReturn(new GreedyVrpSolver());
+
+    SolverResultCache resultCache = new SolverResultCache(new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(resultCache, "maxEntries", 10);
+    ReflectionTestUtils.setField(resultCache, "ttlMs", 60_000L);
+    resultCache.registerMetrics();
+    dispatchSolver = spy(new DispatchSolver(solverExecutor, new GreedyVrpSolver(), resultCache,
+        new VrpSolverProvider(List.of())));
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    dispatchService = new DispatchService(dispatchRepository, orderRepository, vehicleRepository,
+        mock(DepotRepository.class), routeRepository, new Mapper(), vrpSolverProvider, dispatchSolver,
+        mock(SolverTaskQueue.class), mock(PendingOrderBook.class), mock(DispatchJobRegistry.class), mock(NotificationService.class),
+        transactionTemplate, transactionTemplate);
+    ReflectionTestUtils.setField(dispatchService, "maxAttempts", 1);
+    ReflectionTestUtils.setField(dispatchService, "timeBudgetMs", 10_000L);
+    ReflectionTestUtils.setField(dispatchService, "previewTtlMs", 60_000L);
+    ReflectionTestUtils.setField(dispatchService, "previewMaxEntries", 5);
+  }
+
+  @AfterEach
+  void tearDown() {
+    solverExecutor.close();
+  }
+
+  @Test
+  void previewSavesNothingAndCommitDoesNotSolveAgain() {
+    DispatchPreviewResponse preview = dispatchService.previewDispatch(DispatchContext.of(null, true, null));
+
+    assertNotNull(preview.getToken());
+    assertEquals(orders.size(), preview.getRoutes().stream().mapToInt(route -> route.getOrders().size()).sum());
+    assertTrue(preview.getUnassignedOrderIds().isEmpty());
+    preview.getRoutes().forEach(route -> assertNotNull(route.getVehicle()));
+    orders.values().forEach(order -> assertEquals(OrderStatus.PENDING, order.getStatus()));
+    verify(dispatchRepository, never()).saveAndFlush(any());
+    clearInvocations(dispatchSolver);
+
+    dispatchService.commitPreview(preview.getToken());
+
+    verify(dispatchSolver, never()).solveCategories(anyList(), any(), anyLong(), anyBoolean(), any());
+    for (RouteResponse route : preview.getRoutes()) {
+      for (int i = 0; i < route.getOrders().size(); i++) {
+        Order order = orders.get(route.getOrders().get(i).getId());
+        assertEquals(OrderStatus.IN_PROGRESS, order.getStatus());
+        assertEquals(route.getVehicle().getId(), order.getRoute().getVehicle().getId());
+        assertEquals(i, order.getIndex());
+      }
+    }
+    assertThrows(RuntimeException.class, () -> dispatchService.commitPreview(preview.getToken()), "one commit per token");
+  }
+
+  @Test
+  void commitIsRefusedOnceAnOrderChanged() {
+    DispatchPreviewResponse preview = dispatchService.previewDispatch(DispatchContext.of(null, true, null));
+    orders.get("order-0").setVersion(1L); // cancelled or edited meanwhile
+
+    assertThrows(RuntimeException.class, () -> dispatchService.commitPreview(preview.getToken()));
+    orders.values().forEach(order -> assertEquals(OrderStatus.PENDING, order.getStatus()));
+  }
+
+  @Test
+  void expiredPreviewCannotBeCommitted() {
+    ReflectionTestUtils.setField(dispatchService, "previewTtlMs", 0L);
+    DispatchPreviewResponse preview = dispatchService.previewDispatch(DispatchContext.of(null, true, null));
+
+    assertThrows(RuntimeException.class, () -> dispatchService.commitPreview(preview.getToken()));
+  }
+
+  private List<Order> pending() {
+    return orders.values().stream()
+        .filter(order -> order.getStatus() == OrderStatus.PENDING)
+        .toList();
+  }
+}
@@ -0,0 +1,173 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.*;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import com.ducvu.backend_java.util.Mapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// repository calls made by one dynamic dispatch must not grow with the number of orders
+class DispatchServiceQueryCountTests {
+  private static final TrashCategory CATEGORY = TrashCategory.GENERAL;
+
+  private final DispatchRepository dispatchRepository = mock(DispatchRepository.class);
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+  private final DepotRepository depotRepository = mock(DepotRepository.class);
+  private final RouteRepository routeRepository = mock(RouteRepository.class);
+  private final VrpSolverProvider vrpSolverProvider = mock(VrpSolverProvider.class);
+  private final DispatchSolver dispatchSolver = mock(DispatchSolver.class);
+
+  @Test
+  void repositoryCallsDoNotDependOnDispatchSize() {
+    int small = dispatchAndCountCalls(40, false);
+    int large = dispatchAndCountCalls(400, false);
+
+    assertEquals(small, large, "repository calls with 40 and 400 pending orders");
+  }
+
+  @Test
+  void vehicleDispatchedAgainKeepsItsFinishedRoute() {
+    dispatchAndCountCalls(40, true);
+  }
+
+  // finishedRoute: the active vehicle already drove one route of the dispatch before its current one
+  private int dispatchAndCountCalls(int pendingCount, boolean finishedRoute) {
+    reset(dispatchRepository, orderRepository, vehicleRepository, depotRepository, routeRepository,
+        vrpSolverProvider, dispatchSolver);
+
+    Depot depot = Depot.builder().id("depot-1").latitude(21.0).longitude(105.8).category(CATEGORY).build();
+    Dispatch dispatch = Dispatch.builder().id("dispatch-1").status(DispatchStatus.IN_PROGRESS).build();
+
+    Vehicle active = vehicle("vehicle-1", VehicleType.THREE_WHEELER, VehicleStatus.ACTIVE, depot);
+    Vehicle idle = vehicle("vehicle-2", VehicleType.COMPACTOR_TRUCK, VehicleStatus.IDLE, depot);
+    Route activeRoute = Route.builder()
+        .id("route-1")
+        .vehicle(active)
+        .dispatch(dispatch)
+        .status(RouteStatus.IN_PROGRESS)
+        .build();
+    for (int i = 0; i < 2; i++) {
+      Order order = order("in-progress-" + i, OrderStatus.IN_PROGRESS);
+      order.setRoute(activeRoute);
+      order.setIndex(i);
+      activeRoute.getOrders().add(order);
+    }
+    active.getRoutes().add(activeRoute);
+    dispatch.getRoutes().add(activeRoute);
+    Route earlierRoute = Route.builder()
+        .id("route-0")
+        .vehicle(active)
+        .dispatch(dispatch)
+        .status(RouteStatus.COMPLETED)
+        .build();
+    if (finishedRoute) {
+      active.getRoutes().add(earlierRoute);
+      dispatch.getRoutes().add(earlierRoute);
+    }
+
+    List<Order> pending = new ArrayList<>();
+    for (int i = 0; i < pendingCount; i++) {
+      pending.add(order("pending-" + i, OrderStatus.PENDING));
+    }
+    List<Order> all = new ArrayList<>(activeRoute.getOrders());
+    all.addAll(pending);
+
+    Mapper mapper = new Mapper();
+    List<VrpJob> activeSteps = new ArrayList<>(activeRoute.getOrders().stream().map(mapper::mapVrp).toList());
+    activeSteps.addAll(pending.subList(0, pendingCount / 2).stream().map(mapper::mapVrp).toList());
+    List<VrpJob> idleSteps = pending.subList(pendingCount / 2, pendingCount).stream().map(mapper::mapVrp).toList();
+    VrpResponse response = VrpResponse.builder()
+        .routes(List.of(
+            VrpRoute.builder().vehicleId(active.getId()).steps(activeSteps).distance(1.0).duration(1.0).build(),
+            VrpRoute.builder().vehicleId(idle.getId()).steps(idleSteps).distance(1.0).duration(1.0).build()))
+        .unassigned(List.of())
+        .build();
+
+    when(vrpSolverProvider.getSolver(any())).thenReturn(mock(VrpSolver.class));
+    when(dispatchSolver.solveCategories(anyList(), any(), anyLong(), anyBoolean(), any()))
+        .thenReturn(List.of(new CategorySolution(CATEGORY, List.of(response), 0, false, null)));
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.of(dispatch));
+    when(dispatchRepository.findById(dispatch.getId())).thenReturn(Optional.of(dispatch));
+    when(dispatchRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(orderRepository.findAllPendingOrdersAndReassignmentPendingSorted()).thenReturn(pending);
+    when(orderRepository.findAllById(any())).thenReturn(all);
+    when(vehicleRepository.findAll()).thenReturn(List.of(active, idle));
+    when(vehicleRepository.findAllById(any())).thenReturn(List.of(active, idle));
+    when(routeRepository.findByStatusAndVehicleIdIn(any(), any())).thenAnswer(invocation -> dispatch.getRoutes().stream()
+        .filter(route -> route.getStatus() == invocation.getArgument(0))
+        .toList());
+
+    DispatchService dispatchService = dispatchService(mapper);
+    dispatchService.createDispatch(DispatchContext.of(null, true, null));
+
+    verify(orderRepository, never()).findById(any());
+    verify(vehicleRepository, never()).findById(any());
+    verify(routeRepository, never()).findByDispatchIdAndVehicleId(any(), any());
+    assertEquals(VehicleStatus.ACTIVE, idle.getStatus());
+    assertEquals(2 + pendingCount / 2, activeRoute.getOrders().size());
+    assertEquals(RouteStatus.COMPLETED, earlierRoute.getStatus());
+    assertTrue(earlierRoute.getOrders().isEmpty());
+    pending.forEach(order -> assertEquals(OrderStatus.IN_PROGRESS, order.getStatus()));
+
+    return mockingDetails(dispatchRepository).getInvocations().size()
+        + mockingDetails(orderRepository).getInvocations().size()
+        + mockingDetails(vehicleRepository).getInvocations().size()
+        + mockingDetails(depotRepository).getInvocations().size()
+        + mockingDetails(routeRepository).getInvocations().size();
+  }
+
+  private DispatchService dispatchService(Mapper mapper) {
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    DispatchService dispatchService = new DispatchService(dispatchRepository, orderRepository, vehicleRepository,
+        depotRepository, routeRepository, mapper, vrpSolverProvider, dispatchSolver, mock(SolverTaskQueue.class), mock(PendingOrderBook.class),
+        mock(DispatchJobRegistry.class), mock(NotificationService.class), new TransactionTemplate(transactionManager),
+        readOnly);
+    ReflectionTestUtils.setField(dispatchService, "maxAttempts", 1);
+    return dispatchService;
+  }
+
+  private static Vehicle vehicle(String id, VehicleType type, VehicleStatus status, Depot depot) {
+    return Vehicle.builder()
+        .id(id)
+        .type(type)
+        .status(status)
+        .category(CATEGORY)
+        .capacity(100_000.0)
+        .depot(depot)
+        .currentLatitude(depot.getLatitude())
+        .currentLongitude(depot.getLongitude())
+        .routes(new ArrayList<>())
+        .version(0L)
+        .build();
+  }
+
+  private static Order order(String id, OrderStatus status) {
+    return Order.builder()
+        .id(id)
+        .status(status)
+        .category(CATEGORY)
+        .latitude(21.0)
+        .longitude(105.8)
+        .weight(10.0)
+        .version(0L)
+        .build();
+  }
+}
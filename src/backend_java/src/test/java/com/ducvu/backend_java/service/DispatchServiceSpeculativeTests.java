@@ -0,0 +1,140 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import com.ducvu.backend_java.util.Mapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// a plan made ahead of time is committed as is while its input is unchanged, any change makes the dispatch solve
+class DispatchServiceSpeculativeTests {
+  private static final TrashCategory CATEGORY = TrashCategory.GENERAL;
+
+  private final Map<String, Order> orders = new LinkedHashMap<>();
+  private final Map<String, Vehicle> vehicles = new LinkedHashMap<>();
+  private final ExecutorService solverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private DispatchSolver dispatchSolver;
+  private DispatchService dispatchService;
+
+  @BeforeEach
+  void setUp() {
+    Depot depot = Depot.builder().id("depot").category(CATEGORY).latitude(21.0).longitude(105.8).build();
+    for (int v = 0; v < 2; v++) {
+      Vehicle vehicle = Vehicle.builder().id("vehicle-" + v).type(VehicleType.THREE_WHEELER)
+          .status(VehicleStatus.IDLE).category(CATEGORY).capacity(1000.0).depot(depot)
+          .currentLatitude(21.0).currentLongitude(105.8).routes(new ArrayList<>()).version(0L).build();
+      vehicles.put(vehicle.getId(), vehicle);
+    }
+    Random random = new Random(3);
+    for (int i = 0; i < 40; i++) {
+      Order order = Order.builder().id("order-" + i).status(OrderStatus.PENDING).category(CATEGORY)
+          .latitude(21.0 + random.nextDouble() * 0.02).longitude(105.8 + random.nextDouble() * 0.02)
+          .weight(10.0).version(0L).build();
+      orders.put(order.getId(), order);
+    }
+
+    DispatchRepository dispatchRepository = mock(DispatchRepository.class);
+    OrderRepository orderRepository = mock(OrderRepository.class);
+    VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+    RouteRepository routeRepository = mock(RouteRepository.class);
+    VrpSolverProvider vrpSolverProvider = mock(VrpSolverProvider.class);
+
+    Map<String, Dispatch> dispatches = new HashMap<>();
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.empty());
+    when(dispatchRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+      Dispatch dispatch = invocation.getArgument(0);
+      if (dispatch.getId() == null) {
+        dispatch.setId("dispatch");
+      }
+      dispatches.put(dispatch.getId(), dispatch);
+      return dispatch;
+    });
+    when(dispatchRepository.findById(any())).thenAnswer(invocation ->
+        Optional.ofNullable(dispatches.get(invocation.<String>getArgument(0))));
+    when(orderRepository.findAllPendingOrdersSorted()).thenAnswer(invocation -> pending());
+    when(orderRepository.findAllPendingOrdersByCategoryInSorted(any())).thenAnswer(invocation -> pending());
+    when(orderRepository.findAllById(any())).thenAnswer(invocation -> new ArrayList<>(orders.values()));
+    when(vehicleRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(vehicleRepository.findByCategoryIn(any())).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(vehicleRepository.findAllById(any())).thenAnswer(invocation -> new ArrayList<>(vehicles.values()));
+    when(routeRepository.findByStatusAndVehicleIdIn(any(), any())).thenReturn(List.of());
+    when(vrpSolverProvider.getSolver(any())).thenReturn(new GreedyVrpSolver());
+
+    SolverResultCache resultCache = new SolverResultCache(new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(resultCache, "maxEntries", 10);
+    ReflectionTestUtils.setField(resultCache, "ttlMs", 60_000L);
+    resultCache.registerMetrics();
+    dispatchSolver = spy(new DispatchSolver(solverExecutor, new GreedyVrpSolver(), resultCache,
+        new VrpSolverProvider(List.of())));
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    dispatchService = new DispatchService(dispatchRepository, orderRepository, vehicleRepository,
+        mock(DepotRepository.class), routeRepository, new Mapper(), vrpSolverProvider, dispatchSolver,
+        mock(SolverTaskQueue.class), mock(PendingOrderBook.class), mock(DispatchJobRegistry.class), mock(NotificationService.class),
+        transactionTemplate, transactionTemplate);
+    ReflectionTestUtils.setField(dispatchService, "maxAttempts", 1);
+    ReflectionTestUtils.setField(dispatchService, "timeBudgetMs", 10_000L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    solverExecutor.close();
+  }
+
+  @Test
+  void unchangedInputCommitsThePlanWithoutSolving() {
+    assertEquals(1, dispatchService.speculate(EnumSet.of(CATEGORY)));
+    assertEquals(0, dispatchService.speculate(EnumSet.of(CATEGORY)), "nothing changed, nothing to plan again");
+    clearInvocations(dispatchSolver);
+
+    dispatchService.createDispatch(DispatchContext.of(null, true, null));
+
+    verify(dispatchSolver, never()).solveCategories(anyList(), any(), anyLong(), anyBoolean(), any());
+    orders.values().forEach(order -> assertEquals(OrderStatus.IN_PROGRESS, order.getStatus()));
+  }
+
+  @Test
+  void changedOrderIsSolvedAgain() {
+    dispatchService.speculate(EnumSet.of(CATEGORY));
+    Order edited = orders.get("order-0");
+    edited.setWeight(20.0);
+    edited.setVersion(1L);
+    clearInvocations(dispatchSolver);
+
+    dispatchService.createDispatch(DispatchContext.of(null, true, null));
+
+    verify(dispatchSolver).solveCategories(anyList(), any(), anyLong(), anyBoolean(), any());
+    orders.values().forEach(order -> assertEquals(OrderStatus.IN_PROGRESS, order.getStatus()));
+  }
+
+  @Test
+  void bypassingTheCacheAlwaysSolves() {
+    dispatchService.speculate(EnumSet.of(CATEGORY));
+    clearInvocations(dispatchSolver);
+
+    dispatchService.createDispatch(DispatchContext.of(null, false, null));
+
+    verify(dispatchSolver).solveCategories(anyList(), any(), anyLong(), anyBoolean(), any());
+  }
+
+  private List<Order> pending() {
+    return orders.values().stream()
+        .filter(order -> order.getStatus() == OrderStatus.PENDING)
+        .toList();
+  }
+}
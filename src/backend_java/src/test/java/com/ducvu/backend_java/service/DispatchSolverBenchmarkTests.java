@@ -0,0 +1,87 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.VrpSolver;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// compares serial and concurrent category solving against a solver with fixed latency
+@Tag("benchmark")
+@Slf4j
+class DispatchSolverBenchmarkTests {
+  private static final long SOLVER_LATENCY_MS = 100;
+
+  @Test
+  void concurrentCategoriesTakeAboutTheSlowestCategory() {
+    List<CategoryProblem> problems = new ArrayList<>();
+    for (TrashCategory category : TrashCategory.values()) {
+      problems.add(problem(category));
+    }
+
+    long serial;
+    try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+      serial = timeSolve(dispatchSolver(executor), problems);
+    }
+
+    long concurrent;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      concurrent = timeSolve(dispatchSolver(executor), problems);
+    }
+
+    log.info("categories={} serial={} ms concurrent={} ms", problems.size(), serial, concurrent);
+    // every category makes two calls, so the slowest category is about 2 * latency
+    assertTrue(serial >= problems.size() * 2 * SOLVER_LATENCY_MS, "serial " + serial + " ms");
+    assertTrue(concurrent < 4 * SOLVER_LATENCY_MS, "concurrent " + concurrent + " ms");
+  }
+
+  private long timeSolve(DispatchSolver dispatchSolver, List<CategoryProblem> problems) {
+    long startedAt = System.currentTimeMillis();
+    List<CategorySolution> solutions = dispatchSolver.solveCategories(problems, new SlowSolver());
+    long elapsed = System.currentTimeMillis() - startedAt;
+
+    assertEquals(problems.size(), solutions.size());
+    solutions.forEach(s -> assertEquals(2, s.getResponses().size()));
+    return elapsed;
+  }
+
+  private static CategoryProblem problem(TrashCategory category) {
+    VrpDepot depot = depot("depot-" + category, 21.0, 105.8);
+    List<VrpVehicle> vehicles = vehicles("vehicle-" + category, depot, 1, 300.0, null);
+    List<VrpJob> jobs = List.of(job(category + "-1", 21.01, 105.81, 10.0), job(category + "-2", 21.02, 105.82, 10.0));
+    return SolverFixtures.problem(category, jobs, vehicles, List.of(depot), vehicles, List.of(depot));
+  }
+
+  // serves the first job and leaves the rest unassigned, so each category needs both calls
+  private static class SlowSolver implements VrpSolver {
+    @Override
+    public String getName() {
+      return "slow";
+    }
+
+    @Override
+    public VrpResponse solve(VrpRequest request) {
+      try {
+        Thread.sleep(SOLVER_LATENCY_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      List<VrpJob> jobs = request.getJobs();
+      return VrpResponse.builder()
+          .routes(List.of())
+          .unassigned(jobs.subList(1, jobs.size()))
+          .build();
+    }
+  }
+}
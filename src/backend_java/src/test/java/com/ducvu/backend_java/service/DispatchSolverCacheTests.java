@@ -0,0 +1,76 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.VrpSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// pressing dispatch again on unchanged input is answered from the cache, although its budget is never quite the same
+class DispatchSolverCacheTests {
+  private static final long BUDGET_MS = 60_000;
+
+  @Test
+  void repeatDispatchWithTheSameBudgetIsAHit() {
+    SlowSolver solver = new SlowSolver();
+    CategoryProblem problem = problem();
+
+    List<CategorySolution> first;
+    List<CategorySolution> second;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      DispatchSolver dispatchSolver = dispatchSolver(executor);
+      first = dispatchSolver.solveCategories(List.of(problem), solver, BUDGET_MS, true, s -> {});
+      assertEquals(2, solver.calls.get(), "three-wheelers, then trucks for their leftovers");
+      second = dispatchSolver.solveCategories(List.of(problem), solver, BUDGET_MS, true, s -> {});
+    }
+
+    assertEquals(2, solver.calls.get(), "both calls of the second dispatch are hits");
+    assertEquals(routedVehicles(first.get(0)), routedVehicles(second.get(0)));
+  }
+
+  private static List<String> routedVehicles(CategorySolution solution) {
+    return solution.getResponses().stream()
+        .flatMap(response -> response.getRoutes().stream())
+        .map(VrpRoute::getVehicleId)
+        .toList();
+  }
+
+  private static CategoryProblem problem() {
+    VrpDepot depot = depot("depot", 21.00, 105.80);
+    List<VrpJob> jobs = List.of(job("a", 21.01, 105.81, 10.0), job("b", 21.02, 105.81, 10.0));
+    return SolverFixtures.problem(TrashCategory.GENERAL, jobs, vehicles("three-wheeler", depot, 1, 100.0, "driving-car"),
+        List.of(depot), vehicles("truck", depot, 1, 1000.0, "driving-hgv"), List.of(depot));
+  }
+
+  // takes a while like the remote solver and has no limit of its own, puts the first job on the first vehicle
+  private static class SlowSolver implements VrpSolver {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public String getName() {
+      return "slow";
+    }
+
+    @Override
+    public VrpResponse solve(VrpRequest request) {
+      calls.incrementAndGet();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      List<VrpJob> jobs = request.getJobs();
+      VrpRoute route = VrpRoute.builder().vehicleId(request.getVehicles().get(0).getId()).steps(jobs.subList(0, 1))
+          .distance(1.0).duration(1.0).build();
+      return VrpResponse.builder().routes(List.of(route)).unassigned(jobs.subList(1, jobs.size())).build();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a hung or failing solver must not fail the dispatch, the greedy solver answers within the time budget
+class DispatchSolverFallbackTests {
+  private static final long BUDGET_MS = 300;
+
+  @Test
+  void hungSolverFallsBackWithinBudget() {
+    List<CategoryProblem> problems = List.of(problem(TrashCategory.GENERAL), problem(TrashCategory.ORGANIC));
+
+    long startedAt = System.currentTimeMillis();
+    List<CategorySolution> solutions;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      solutions = new DispatchSolver(executor, new GreedyVrpSolver(), new SolverResultCache(new SimpleMeterRegistry()),
+          new VrpSolverProvider(List.of()))
+          .solveCategories(problems, new HungSolver(), BUDGET_MS, false, solution -> {});
+    }
+    long elapsed = System.currentTimeMillis() - startedAt;
+
+    assertTrue(elapsed < 3 * BUDGET_MS, "took " + elapsed + " ms");
+    solutions.forEach(solution -> {
+      assertTrue(solution.isDegraded());
+      assertAllAssigned(solution);
+    });
+  }
+
+  @Test
+  void failingSolverFallsBackToNearestDepot() {
+    CategoryProblem problem = problem(TrashCategory.GENERAL);
+
+    CategorySolution solution;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      solution = new DispatchSolver(executor, new GreedyVrpSolver(), new SolverResultCache(new SimpleMeterRegistry()),
+          new VrpSolverProvider(List.of()))
+          .solveCategories(List.of(problem), new DownSolver(), BUDGET_MS, false, s -> {})
+          .get(0);
+    }
+
+    assertTrue(solution.isDegraded());
+    assertAllAssigned(solution);
+    // jobs are generated around their depot, so each stays with that depot's vehicle
+    solution.getResponses().get(0).getRoutes().forEach(route -> {
+      String depotSuffix = route.getVehicleId().substring(route.getVehicleId().lastIndexOf('-'));
+      route.getSteps().forEach(step -> assertTrue(step.getId().endsWith(depotSuffix), step.getId()));
+    });
+  }
+
+  private static void assertAllAssigned(CategorySolution solution) {
+    VrpResponse response = solution.getResponses().get(0);
+    assertTrue(response.getUnassigned().isEmpty());
+    assertEquals(40, response.getRoutes().stream().mapToInt(r -> r.getSteps().size()).sum());
+  }
+
+  // two depots about 10 km apart, each with 20 jobs close by and one vehicle
+  private static CategoryProblem problem(TrashCategory category) {
+    List<VrpDepot> depots = List.of(
+        VrpDepot.builder().id(category + "-depot-a").location(List.of(21.00, 105.80)).build(),
+        VrpDepot.builder().id(category + "-depot-b").location(List.of(21.09, 105.80)).build()
+    );
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    List<VrpJob> jobs = new ArrayList<>();
+    for (VrpDepot depot : depots) {
+      String suffix = depot.getId().substring(depot.getId().lastIndexOf('-'));
+      vehicles.add(VrpVehicle.builder()
+          .id(category + "-vehicle" + suffix)
+          .depotId(depot.getId())
+          .location(depot.getLocation())
+          .capacity(1000.0)
+          .profile("driving-car")
+          .build());
+      for (int i = 0; i < 20; i++) {
+        double lat = depot.getLocation().get(0) + (i % 5) * 0.002;
+        double lon = depot.getLocation().get(1) + (i / 5) * 0.002;
+        jobs.add(VrpJob.builder().id(category + "-" + i + suffix).location(List.of(lat, lon)).demand(10.0).status("pending").build());
+      }
+    }
+
+    return CategoryProblem.builder()
+        .category(category)
+        .jobs(jobs)
+        .threeWheelers(vehicles)
+        .threeWheelerDepots(depots)
+        .threeWheelerRoutes(List.of())
+        .compactorTrucks(List.of())
+        .compactorTruckDepots(List.of())
+        .compactorTruckRoutes(List.of())
+        .build();
+  }
+
+  // behaves like the remote solver when the api hangs: gives up once the time limit passes
+  private static class HungSolver implements VrpSolver {
+    @Override
+    public String getName() {
+      return "hung";
+    }
+
+    @Override
+    public VrpResponse solve(VrpRequest request) {
+      try {
+        Thread.sleep(request.getTimeLimitMs());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new RuntimeException("Vrp api call timed out");
+    }
+  }
+
+  private static class DownSolver implements VrpSolver {
+    @Override
+    public String getName() {
+      return "down";
+    }
+
+    @Override
+    public VrpResponse solve(VrpRequest request) {
+      throw new RuntimeException("Error while solving vrp");
+    }
+  }
+}
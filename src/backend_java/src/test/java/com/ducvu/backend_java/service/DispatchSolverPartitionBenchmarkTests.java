@@ -0,0 +1,63 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.service.SolverFixtures.Result;
+import com.ducvu.backend_java.solver.NativeVrpSolver;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// compares latency and total distance of a citywide dispatch solved whole and split into partitions
+@Tag("benchmark")
+@Slf4j
+class DispatchSolverPartitionBenchmarkTests {
+  private static final int JOBS = 1600;
+
+  @Test
+  void partitionedSolveIsFasterAndCloseInDistance() {
+    CategoryProblem problem = problem();
+    NativeVrpSolver solver = new NativeVrpSolver();
+    ReflectionTestUtils.setField(solver, "timeLimitMs", 60_000L);
+
+    Result whole = solve(problem, solver, 0);
+    Result partitioned = solve(problem, solver, 400);
+
+    log.info("jobs={} whole: {}, partitioned: {}", JOBS, whole, partitioned);
+    assertEquals(0, whole.unassigned());
+    assertEquals(0, partitioned.unassigned());
+    assertTrue(partitioned.elapsedMs() < whole.elapsedMs(), "whole " + whole + ", partitioned " + partitioned);
+    assertTrue(partitioned.distance() < whole.distance() * 1.25, "whole " + whole + ", partitioned " + partitioned);
+  }
+
+  private static Result solve(CategoryProblem problem, NativeVrpSolver solver, int partitionMaxJobs) {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      DispatchSolver dispatchSolver = dispatchSolver(executor);
+      ReflectionTestUtils.setField(dispatchSolver, "partitionMaxJobs", partitionMaxJobs);
+      return SolverFixtures.solve(dispatchSolver, problem, solver);
+    }
+  }
+
+  // four depots in the corners of a 20 x 20 km city, 10 vehicles each, jobs spread uniformly
+  private static CategoryProblem problem() {
+    List<VrpDepot> depots = new ArrayList<>();
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    for (int d = 0; d < 4; d++) {
+      VrpDepot depot = depot("depot-" + d, 20.95 + (d / 2) * 0.16, 105.75 + (d % 2) * 0.16);
+      depots.add(depot);
+      vehicles.addAll(vehicles("vehicle-" + d, depot, 10, 1000.0, "driving-car"));
+    }
+    List<VrpJob> jobs = jobs(new Random(11), JOBS, 20.95, 105.75, 0.18, 0.18);
+    return SolverFixtures.problem(TrashCategory.GENERAL, jobs, vehicles, depots);
+  }
+}
@@ -0,0 +1,53 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.NativeVrpSolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// partitions cannot see each other's vehicles, what they leave over is solved again against the whole fleet
+class DispatchSolverPartitionTests {
+
+  @Test
+  void idleDepotTakesTheOverflowOfAnotherDepot() {
+    NativeVrpSolver solver = new NativeVrpSolver();
+    ReflectionTestUtils.setField(solver, "timeLimitMs", 200L);
+
+    VrpResponse response;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      DispatchSolver dispatchSolver = dispatchSolver(executor);
+      ReflectionTestUtils.setField(dispatchSolver, "partitionMaxJobs", 20);
+      response = dispatchSolver.solveCategories(List.of(problem()), solver, 0, false, s -> {})
+          .get(0).getResponses().get(0);
+    }
+
+    assertEquals(List.of(), response.getUnassigned());
+    Map<String, Integer> stepsByVehicle = response.getRoutes().stream()
+        .collect(Collectors.toMap(VrpRoute::getVehicleId, route -> route.getSteps().size()));
+    assertEquals(Map.of("vehicle-a-0", 10, "vehicle-a-1", 10, "vehicle-b-0", 10), stepsByVehicle);
+  }
+
+  // 30 jobs around depot a, whose two vehicles hold 20 of them, depot b about 10 km away has no job nearest to it
+  private static CategoryProblem problem() {
+    VrpDepot depotA = depot("depot-a", 21.00, 105.80);
+    VrpDepot depotB = depot("depot-b", 21.09, 105.80);
+    List<VrpVehicle> vehicles = new ArrayList<>(vehicles("vehicle-a", depotA, 2, 100.0, "driving-car"));
+    vehicles.addAll(vehicles("vehicle-b", depotB, 1, 1000.0, "driving-car"));
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      jobs.add(job("job-" + i, 21.00 + (i % 6) * 0.002, 105.80 + (i / 6) * 0.002, 10.0));
+    }
+    return SolverFixtures.problem(TrashCategory.GENERAL, jobs, vehicles, List.of(depotA, depotB));
+  }
+}
@@ -0,0 +1,140 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// every configured strategy solves the category at once, the best plan is kept and the late ones are cancelled
+class DispatchSolverRaceTests {
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final FixedSolver requested = new FixedSolver("requested-solver", 100.0, 0);
+  private final FixedSolver shorter = new FixedSolver("shorter", 80.0, 100);
+  private final FixedSolver hung = new FixedSolver("hung", 50.0, 10_000);
+
+  @AfterEach
+  void tearDown() {
+    executor.close();
+  }
+
+  @Test
+  void keepsTheShortestPlanAndRecordsTheGap() {
+    CategorySolution solution = dispatchSolver("shorter").solveCategories(List.of(problem()), requested, 0, false,
+        s -> {}).get(0);
+
+    assertEquals(80.0, solution.getResponses().get(0).getRoutes().get(0).getDistance());
+    RaceResult race = solution.getRace();
+    assertEquals("shorter/two-phase", race.getWinner());
+    assertEquals("requested-solver/two-phase", race.getBaseline());
+    assertEquals(0.2, race.getGap(), 1e-9);
+    assertEquals(2, race.getStrategies());
+    assertEquals(2, race.getFinished());
+  }
+
+  @Test
+  void cancelsStrategiesStillRunningAtTheDeadline() throws InterruptedException {
+    long startedAt = System.currentTimeMillis();
+    CategorySolution solution = dispatchSolver("hung, requested/whole").solveCategories(List.of(problem()), requested,
+        300, false, s -> {}).get(0);
+
+    assertTrue(System.currentTimeMillis() - startedAt < 2_000);
+    assertTrue(hung.interrupted.await(1, TimeUnit.SECONDS), "the late strategy is cancelled");
+    assertFalse(solution.isDegraded());
+    assertEquals("requested-solver/two-phase", solution.getRace().getWinner()); // first of the two equal plans
+    assertEquals(0.0, solution.getRace().getGap(), 1e-9);
+    assertEquals(3, solution.getRace().getStrategies());
+    assertEquals(2, solution.getRace().getFinished());
+  }
+
+  @Test
+  void singleStrategyIsNotRaced() {
+    CategorySolution solution = dispatchSolver("").solveCategories(List.of(problem()), requested, 0, false,
+        s -> {}).get(0);
+
+    assertNull(solution.getRace());
+    assertEquals(100.0, solution.getResponses().get(0).getRoutes().get(0).getDistance());
+  }
+
+  private DispatchSolver dispatchSolver(String strategies) {
+    DispatchSolver dispatchSolver = new DispatchSolver(executor, new GreedyVrpSolver(),
+        new SolverResultCache(new SimpleMeterRegistry()),
+        new VrpSolverProvider(List.of(requested, shorter, hung)));
+    ReflectionTestUtils.setField(dispatchSolver, "raceStrategies", strategies);
+    ReflectionTestUtils.setField(dispatchSolver, "raceGraceMs", 100L);
+    return dispatchSolver;
+  }
+
+  private static CategoryProblem problem() {
+    VrpDepot depot = VrpDepot.builder().id("depot").location(List.of(21.00, 105.80)).build();
+    VrpVehicle vehicle = VrpVehicle.builder().id("vehicle").depotId("depot").location(depot.getLocation())
+        .capacity(1000.0).profile("driving-car").build();
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      jobs.add(VrpJob.builder().id("job-" + i).location(List.of(21.00 + i * 0.001, 105.81)).demand(10.0)
+          .status("pending").build());
+    }
+    return CategoryProblem.builder()
+        .category(TrashCategory.GENERAL)
+        .jobs(jobs)
+        .threeWheelers(List.of(vehicle))
+        .threeWheelerDepots(List.of(depot))
+        .threeWheelerRoutes(List.of())
+        .compactorTrucks(List.of())
+        .compactorTruckDepots(List.of())
+        .compactorTruckRoutes(List.of())
+        .build();
+  }
+
+  // puts every job on the first vehicle after a delay and reports a fixed distance
+  private static class FixedSolver implements VrpSolver {
+    private final String name;
+    private final double distance;
+    private final long delayMs;
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    FixedSolver(String name, double distance, long delayMs) {
+      this.name = name;
+      this.distance = distance;
+      this.delayMs = delayMs;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public VrpResponse solve(VrpRequest request) {
+      try {
+        Thread.sleep(delayMs);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Vrp api call interrupted");
+      }
+      VrpRoute route = VrpRoute.builder()
+          .vehicleId(request.getVehicles().get(0).getId())
+          .steps(request.getJobs())
+          .distance(distance)
+          .duration(distance * 100)
+          .build();
+      return VrpResponse.builder().routes(List.of(route)).unassigned(List.of()).build();
+    }
+  }
+}
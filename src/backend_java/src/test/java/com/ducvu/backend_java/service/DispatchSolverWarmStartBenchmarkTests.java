@@ -0,0 +1,80 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.service.SolverFixtures.Result;
+import com.ducvu.backend_java.solver.NativeVrpSolver;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// re-dispatch of a category shortly after the previous one: the same pending orders plus a few new ones
+// solved from scratch and warm-started from the previous plan
+// the warm start is 2-5x faster here, short of the 10x aimed for: building the cost matrix and the local search
+// around the new jobs stay, so only a modest speed-up and an unchanged distance are asserted
+@Tag("benchmark")
+@Slf4j
+class DispatchSolverWarmStartBenchmarkTests {
+  private static final int JOBS = 600;
+  private static final int NEW_JOBS = 10;
+  private static final int RUNS = 5;
+
+  @Test
+  void warmStartedReSolveIsSomewhatFasterAndCloseInDistance() {
+    NativeVrpSolver solver = new NativeVrpSolver();
+    ReflectionTestUtils.setField(solver, "timeLimitMs", 60_000L);
+    Random random = new Random(5);
+    List<VrpJob> jobs = jobs(random, JOBS, 20.95, 105.75, 0.1, 0.16);
+    List<VrpJob> redispatchJobs = new ArrayList<>(jobs);
+    redispatchJobs.addAll(jobs(random, NEW_JOBS, 20.95, 105.75, 0.1, 0.16));
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Result cold = null;
+      Result warm = null;
+      for (int run = 0; run < RUNS; run++) { // the first run warms the jit up, the fastest of the others counts
+        Result coldRun = solve(warmStarting(executor), problem(redispatchJobs), solver);
+        DispatchSolver warmSolver = warmStarting(executor);
+        warmSolver.solveCategory(problem(jobs), solver); // the previous dispatch
+        Result warmRun = solve(warmSolver, problem(redispatchJobs), solver);
+        if (run > 0) {
+          cold = faster(cold, coldRun);
+          warm = faster(warm, warmRun);
+        }
+      }
+
+      log.info("jobs={} cold: {}, warm: {}", redispatchJobs.size(), cold, warm);
+      assertEquals(0, cold.unassigned());
+      assertEquals(0, warm.unassigned());
+      assertTrue(warm.elapsedMs() * 1.5 < cold.elapsedMs(), "warm " + warm + ", cold " + cold);
+      assertTrue(warm.distance() < cold.distance() * 1.05, "warm " + warm + ", cold " + cold);
+    }
+  }
+
+  private static DispatchSolver warmStarting(ExecutorService executor) {
+    DispatchSolver dispatchSolver = dispatchSolver(executor);
+    ReflectionTestUtils.setField(dispatchSolver, "warmStart", true);
+    return dispatchSolver;
+  }
+
+  // two depots 10 km apart with 6 three-wheelers each
+  private static CategoryProblem problem(List<VrpJob> jobs) {
+    List<VrpDepot> depots = new ArrayList<>();
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    for (int d = 0; d < 2; d++) {
+      VrpDepot depot = depot("depot-" + d, 21.00, 105.78 + d * 0.1);
+      depots.add(depot);
+      vehicles.addAll(vehicles("vehicle-" + d, depot, 6, 2000.0, "driving-car"));
+    }
+    return SolverFixtures.problem(TrashCategory.GENERAL, jobs, vehicles, depots);
+  }
+}
@@ -0,0 +1,62 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.VrpSolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.ducvu.backend_java.service.SolverFixtures.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DispatchSolverWarmStartTests {
+
+  @Test
+  void onlyTheDrivenAndUnderwayStepsOfARouteAreLocked() {
+    VrpDepot depot = depot("depot", 21.00, 105.80);
+    List<VrpVehicle> vehicles = vehicles("vehicle", depot, 1, 1000.0, "driving-car");
+    VrpRoute route = VrpRoute.builder().vehicleId("vehicle-0").steps(List.of(
+        step("done", "completed"), step("driving", "in_progress"), step("next", "pending"), step("later", "pending")))
+        .build();
+    CategoryProblem problem = problem(TrashCategory.GENERAL, List.of(job("new", 21.03, 105.81, 10.0)), vehicles,
+        List.of(depot));
+    problem.setThreeWheelerRoutes(List.of(route));
+
+    CapturingSolver solver = new CapturingSolver();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      DispatchSolver dispatchSolver = dispatchSolver(executor);
+      ReflectionTestUtils.setField(dispatchSolver, "warmStart", true);
+      dispatchSolver.solveCategory(problem, solver);
+    }
+
+    assertEquals(2, solver.requests.get(0).getRoutes().get(0).getLockedSteps());
+  }
+
+  private static VrpJob step(String id, String status) {
+    VrpJob step = job(id, 21.01, 105.81, 10.0);
+    step.setStatus(status);
+    return step;
+  }
+
+  // records each request and leaves its jobs unassigned
+  private static class CapturingSolver implements VrpSolver {
+    private final List<VrpRequest> requests = new ArrayList<>();
+
+    @Override
+    public String getName() {
+      return "capturing";
+    }
+
+    @Override
+    public synchronized VrpResponse solve(VrpRequest request) {
+      requests.add(request);
+      return VrpResponse.builder().routes(List.of()).unassigned(request.getJobs()).build();
+    }
+  }
+}
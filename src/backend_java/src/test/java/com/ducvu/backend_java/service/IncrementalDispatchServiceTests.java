@@ -0,0 +1,103 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DispatchRepository;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.repository.RouteRepository;
+import com.ducvu.backend_java.repository.VehicleRepository;
+import com.ducvu.backend_java.solver.InsertionEngine;
+import com.ducvu.backend_java.util.Mapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IncrementalDispatchServiceTests {
+  private final DispatchRepository dispatchRepository = mock(DispatchRepository.class);
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+  private final RouteRepository routeRepository = mock(RouteRepository.class);
+  private final DispatchScheduler dispatchScheduler = mock(DispatchScheduler.class);
+  private final ExecutorService insertionExecutor = mock(ExecutorService.class);
+  private IncrementalDispatchService service;
+  private Route route;
+  private Order order;
+
+  @BeforeEach
+  void setUp() {
+    service = new IncrementalDispatchService(dispatchRepository, orderRepository, vehicleRepository, routeRepository,
+        new InsertionEngine(), new Mapper(), mock(NotificationService.class), dispatchScheduler,
+        mock(PendingOrderBook.class), insertionExecutor,
+        new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    ReflectionTestUtils.setField(service, "enabled", true);
+    ReflectionTestUtils.setField(service, "maxAddedKm", 3.0);
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run(); // run the insert in place
+      return null;
+    }).when(insertionExecutor).execute(any());
+
+    Depot depot = Depot.builder().id("depot").category(TrashCategory.GENERAL).latitude(21.00).longitude(105.80).build();
+    Vehicle vehicle = Vehicle.builder().id("v1").type(VehicleType.THREE_WHEELER).status(VehicleStatus.ACTIVE)
+        .category(TrashCategory.GENERAL).capacity(100.0).depot(depot).currentLatitude(21.00).currentLongitude(105.80)
+        .driver(User.builder().id("driver").build()).build();
+    route = Route.builder().id("r1").vehicle(vehicle).status(RouteStatus.IN_PROGRESS).distance(5.0).duration(10.0)
+        .geometry(new Geometry("LineString", List.of(List.of(105.80, 21.00), List.of(105.80, 21.02))))
+        .orders(new ArrayList<>(List.of(Order.builder().id("a").index(0).status(OrderStatus.IN_PROGRESS)
+            .category(TrashCategory.GENERAL).latitude(21.02).longitude(105.80).weight(10.0).version(0L).build())))
+        .build();
+    order = Order.builder().id("new").status(OrderStatus.PENDING).category(TrashCategory.GENERAL)
+        .latitude(21.01).longitude(105.80).weight(10.0).version(0L).user(User.builder().id("user").build()).build();
+
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.of(Dispatch.builder().id("dispatch").build()));
+    when(orderRepository.findById("new")).thenReturn(Optional.of(order));
+    when(routeRepository.findById("r1")).thenReturn(Optional.of(route));
+    when(vehicleRepository.findByCategoryIn(List.of(TrashCategory.GENERAL))).thenReturn(List.of(vehicle));
+    when(routeRepository.findByStatusAndVehicleIdIn(any(), any())).thenReturn(List.of(route));
+  }
+
+  @Test
+  void insertsIntoTheRouteKeepingItsGeometry() {
+    Geometry geometry = route.getGeometry();
+
+    service.orderPending(order);
+
+    assertEquals(OrderStatus.IN_PROGRESS, order.getStatus());
+    assertEquals(0, order.getIndex());
+    assertEquals(1, route.getOrders().get(0).getIndex());
+    assertSame(geometry, route.getGeometry());
+    assertTrue(route.getGeometryStale());
+    verify(vehicleRepository, never()).findAll();
+    verifyNoInteractions(dispatchScheduler);
+  }
+
+  @Test
+  void ordersNoRouteTakesGoToTheScheduler() {
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.empty());
+
+    service.orderPending(order);
+
+    assertEquals(OrderStatus.PENDING, order.getStatus());
+    verify(dispatchScheduler).orderPending(order);
+  }
+
+  @Test
+  void aFullQueueLeavesTheOrderToTheScheduler() {
+    doThrow(new RejectedExecutionException("full")).when(insertionExecutor).execute(any());
+
+    service.orderPending(order);
+
+    verify(dispatchScheduler).orderPending(order);
+    verifyNoInteractions(orderRepository);
+  }
+}
@@ -0,0 +1,80 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DepotRepository;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.util.GeoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// features are the order's cell and its distance to every depot of its category, saved without touching the version
+class OrderFeatureServiceTests {
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private final DepotRepository depotRepository = mock(DepotRepository.class);
+  private final ExecutorService featureExecutor = mock(ExecutorService.class);
+  private OrderFeatureService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new OrderFeatureService(orderRepository, depotRepository, featureExecutor, mock(PendingOrderBook.class),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    ReflectionTestUtils.setField(service, "enabled", true);
+    when(depotRepository.findAll()).thenReturn(List.of(
+        depot("near", TrashCategory.GENERAL, 21.00, 105.80),
+        depot("far", TrashCategory.GENERAL, 21.10, 105.90),
+        depot("other", TrashCategory.ORGANIC, 21.00, 105.80)));
+  }
+
+  @Test
+  void savesCellAndDistancesToTheDepotsOfTheCategory() {
+    Order order = Order.builder().id("o1").category(TrashCategory.GENERAL).latitude(21.01).longitude(105.81)
+        .version(3L).build();
+    when(orderRepository.findAllById(any())).thenReturn(List.of(order));
+    when(orderRepository.saveFeatures(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+
+    assertEquals(1, service.enrich(List.of("o1")));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, Double>> distances = ArgumentCaptor.forClass(Map.class);
+    verify(orderRepository).saveFeatures(eq("o1"), eq(21.01), eq(105.81), eq(TrashCategory.GENERAL),
+        eq(GeoUtils.cellOf(21.01, 105.81)), eq("near"), distances.capture(), notNull());
+    assertEquals(Map.of("near", GeoUtils.haversine(21.01, 105.81, 21.00, 105.80),
+        "far", GeoUtils.haversine(21.01, 105.81, 21.10, 105.90)), distances.getValue());
+    verify(orderRepository, never()).save(any());
+  }
+
+  @Test
+  void aFullQueueNeverFailsTheOrderWrite() {
+    doThrow(new RejectedExecutionException()).when(featureExecutor).execute(any());
+
+    assertDoesNotThrow(() -> service.orderSaved("o1"));
+  }
+
+  @Test
+  void cellsAreStableAndCentredOnTheirLocations() {
+    long cell = GeoUtils.cellOf(21.0123, 105.8456);
+    List<Double> centre = GeoUtils.cellCentre(cell);
+
+    assertEquals(cell, GeoUtils.cellOf(centre.get(0), centre.get(1)));
+    assertTrue(Math.abs(centre.get(0) - 21.0123) <= GeoUtils.CELL_DEG / 2);
+    assertTrue(Math.abs(centre.get(1) - 105.8456) <= GeoUtils.CELL_DEG / 2);
+    assertNotEquals(cell, GeoUtils.cellOf(21.0123 + GeoUtils.CELL_DEG, 105.8456));
+  }
+
+  private static Depot depot(String id, TrashCategory category, double lat, double lon) {
+    return Depot.builder().id(id).category(category).latitude(lat).longitude(lon).build();
+  }
+}
@@ -0,0 +1,120 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.OrderRepository;
+import com.ducvu.backend_java.util.GeoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PendingOrderBookTests {
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+  private final OrderRepository orderRepository = mock(OrderRepository.class);
+  private PendingOrderBook book;
+
+  @BeforeEach
+  void setUp() {
+    book = new PendingOrderBook(orderRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    ReflectionTestUtils.setField(book, "enabled", true);
+  }
+
+  @Test
+  void followsTransitionsAndCategoryMoves() {
+    when(orderRepository.findByStatusIn(any())).thenReturn(List.of(
+        order("a", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 2),
+        order("b", 0L, OrderStatus.REASSIGNED, TrashCategory.GENERAL, 1)));
+    book.rebuild();
+    assertTrue(book.isReady());
+
+    book.orderChanged(order("c", 0L, OrderStatus.PENDING, TrashCategory.ORGANIC, 3));
+    book.orderChanged(order("a", 1L, OrderStatus.PENDING, TrashCategory.RECYCLABLE, 2)); // category edited
+    book.orderChanged(order("b", 1L, OrderStatus.IN_PROGRESS, TrashCategory.GENERAL, 1)); // dispatched
+
+    assertEquals(List.of(), ids(book.pending(List.of(TrashCategory.GENERAL), true)));
+    assertEquals(List.of("a"), ids(book.pending(List.of(TrashCategory.RECYCLABLE), true)));
+    assertEquals(List.of("a", "c"), ids(book.pending(List.of(), true)));
+    assertTrue(book.cells(TrashCategory.GENERAL).isEmpty());
+    verify(orderRepository, times(1)).findByStatusIn(any());
+  }
+
+  @Test
+  void ignoresWritesOlderThanTheEntry() {
+    book.rebuild();
+    book.orderChanged(order("a", 2L, OrderStatus.CANCELLED, TrashCategory.GENERAL, 1));
+    book.orderChanged(order("a", 3L, OrderStatus.PENDING, TrashCategory.GENERAL, 1));
+    book.orderChanged(order("a", 1L, OrderStatus.REASSIGNED, TrashCategory.GENERAL, 1)); // applied late
+
+    List<Order> pending = book.pending(List.of(), true);
+    assertEquals(1, pending.size());
+    assertEquals(OrderStatus.PENDING, pending.get(0).getStatus());
+    assertEquals(3L, pending.get(0).getVersion());
+  }
+
+  @Test
+  void replaysWritesMadeWhileTheTableIsRead() {
+    when(orderRepository.findByStatusIn(any())).thenAnswer(invocation -> {
+      // completed and created while the rows are being read, the rows still show the old state
+      book.orderChanged(order("a", 1L, OrderStatus.COMPLETED, TrashCategory.GENERAL, 1));
+      book.orderChanged(order("new", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 5));
+      return List.of(order("a", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 1));
+    });
+
+    book.rebuild();
+
+    assertEquals(List.of("new"), ids(book.pending(List.of(TrashCategory.GENERAL), true)));
+  }
+
+  @Test
+  void keepsReassignedOrdersOutOfNewDispatchesAndTheMap() {
+    when(orderRepository.findByStatusIn(any())).thenReturn(List.of(
+        order("late", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 3),
+        order("back", 0L, OrderStatus.REASSIGNED, TrashCategory.GENERAL, 2),
+        order("early", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 1)));
+    book.rebuild();
+
+    assertEquals(List.of("early", "back", "late"), ids(book.pending(List.of(TrashCategory.GENERAL), true)));
+    assertEquals(List.of("early", "late"), ids(book.pending(List.of(TrashCategory.GENERAL), false)));
+
+    Map<Long, List<Order>> cells = book.cells(TrashCategory.GENERAL);
+    assertEquals(Set.of(GeoUtils.cellOf(21.00, 105.80)), cells.keySet());
+    assertEquals(2, cells.values().iterator().next().size());
+  }
+
+  @Test
+  void featuresReplaceTheEntryAndDepotChangesDropDistances() {
+    book.rebuild();
+    book.orderChanged(order("a", 0L, OrderStatus.PENDING, TrashCategory.GENERAL, 1));
+
+    book.featuresChanged("a", OrderFeatures.builder().cellId(42L).nearestDepotId("depot")
+        .depotDistances(Map.of("depot", 1.5)).computedAt(NOW).build());
+    assertEquals(Set.of(42L), book.cells(TrashCategory.GENERAL).keySet());
+    assertEquals(1.5, book.pending(List.of(), true).get(0).getFeatures().getDepotDistances().get("depot"));
+
+    book.depotsChanged();
+    OrderFeatures features = book.pending(List.of(), true).get(0).getFeatures();
+    assertEquals(42L, features.getCellId());
+    assertNull(features.getDepotDistances());
+  }
+
+  private static Order order(String id, Long version, OrderStatus status, TrashCategory category, int minute) {
+    return Order.builder().id(id).version(version).status(status).category(category)
+        .latitude(21.00).longitude(105.80).weight(10.0).createdAt(NOW.plusMinutes(minute))
+        .user(User.builder().id("user").build()).build();
+  }
+
+  private static List<String> ids(List<Order> orders) {
+    return orders.stream().map(Order::getId).toList();
+  }
+}
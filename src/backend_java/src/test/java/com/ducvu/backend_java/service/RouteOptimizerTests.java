@@ -0,0 +1,98 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.DispatchRepository;
+import com.ducvu.backend_java.repository.RouteRepository;
+import com.ducvu.backend_java.util.Mapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RouteOptimizerTests {
+  private final DispatchRepository dispatchRepository = mock(DispatchRepository.class);
+  private final RouteRepository routeRepository = mock(RouteRepository.class);
+  private final DispatchJobService dispatchJobService = mock(DispatchJobService.class);
+  private final NotificationService notificationService = mock(NotificationService.class);
+  private RouteOptimizer optimizer;
+  private Route route;
+
+  @BeforeEach
+  void setUp() {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    optimizer = new RouteOptimizer(dispatchRepository, routeRepository, dispatchJobService, new Mapper(),
+        notificationService, mock(ExecutorService.class), transactionTemplate, transactionTemplate);
+    ReflectionTestUtils.setField(optimizer, "budgetMs", 200L);
+    ReflectionTestUtils.setField(optimizer, "minGain", 0.05);
+    ReflectionTestUtils.setField(optimizer, "allowTransfers", true);
+
+    // a square driven corner to opposite corner
+    Depot depot = Depot.builder().id("depot").category(TrashCategory.GENERAL).latitude(21.00).longitude(105.80).build();
+    Vehicle vehicle = Vehicle.builder().id("v1").type(VehicleType.THREE_WHEELER).status(VehicleStatus.ACTIVE)
+        .category(TrashCategory.GENERAL).capacity(100.0).depot(depot)
+        .currentLatitude(21.00).currentLongitude(105.80).driver(User.builder().id("driver").build()).build();
+    route = Route.builder().id("r1").vehicle(vehicle).status(RouteStatus.IN_PROGRESS).distance(10.0).build();
+    route.getOrders().addAll(List.of(
+        order("a", 0, 21.01, 105.81),
+        order("b", 1, 21.01, 105.80),
+        order("c", 2, 21.02, 105.81),
+        order("d", 3, 21.02, 105.80)));
+
+    Dispatch dispatch = Dispatch.builder().id("dispatch").status(DispatchStatus.IN_PROGRESS).build();
+    when(dispatchRepository.findActiveDispatch()).thenReturn(Optional.of(dispatch));
+    when(routeRepository.findByDispatchId("dispatch")).thenReturn(List.of(route));
+    when(routeRepository.findAllById(any())).thenReturn(List.of(route));
+  }
+
+  @Test
+  void savesAShorterOrderAndNotifiesTheDriver() {
+    assertEquals(1, optimizer.reoptimize());
+
+    List<Integer> indexes = route.getOrders().stream().map(Order::getIndex).sorted().toList();
+    assertEquals(List.of(0, 1, 2, 3), indexes);
+    assertTrue(route.getDistance() < 10.0);
+    assertNotNull(route.getGeometry());
+    verify(notificationService).sendSingleNotification(eq("Route is updated"), any(), eq(NotificationType.ROUTE), eq("r1"));
+  }
+
+  @Test
+  void keepsTheRouteWhenAStopChangedWhileSolving() {
+    when(routeRepository.findAllById(any())).thenAnswer(invocation -> {
+      route.getOrders().get(0).setVersion(1L); // driver completed a stop in the meantime
+      return List.of(route);
+    });
+
+    assertEquals(0, optimizer.reoptimize());
+
+    List<String> stops = route.getOrders().stream()
+        .sorted(Comparator.comparing(Order::getIndex))
+        .map(Order::getId)
+        .toList();
+    assertEquals(List.of("a", "b", "c", "d"), stops);
+    verifyNoInteractions(notificationService);
+  }
+
+  @Test
+  void skipsSmallGains() {
+    ReflectionTestUtils.setField(optimizer, "minGain", 0.99);
+
+    assertEquals(0, optimizer.reoptimize());
+    verify(routeRepository, never()).findAllById(any());
+  }
+
+  private Order order(String id, int index, double lat, double lon) {
+    return Order.builder().id(id).index(index).status(OrderStatus.IN_PROGRESS).category(TrashCategory.GENERAL)
+        .latitude(lat).longitude(lon).weight(10.0).version(0L).route(route).build();
+  }
+}
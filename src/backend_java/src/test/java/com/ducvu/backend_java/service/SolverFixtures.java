@@ -0,0 +1,104 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolver;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+// problems and timed solves shared by the dispatch solver tests and benchmarks
+final class SolverFixtures {
+  private SolverFixtures() {
+  }
+
+  record Result(long elapsedMs, double distance, int unassigned, int calls) {
+    @Override
+    public String toString() {
+      return String.format("%d ms %.1f km %d unassigned %d calls", elapsedMs, distance, unassigned, calls);
+    }
+  }
+
+  // the quicker of two runs, null counts as no run yet
+  static Result faster(Result best, Result run) {
+    return best == null || run.elapsedMs() < best.elapsedMs() ? run : best;
+  }
+
+  static DispatchSolver dispatchSolver(ExecutorService executor) {
+    SolverResultCache resultCache = new SolverResultCache(new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(resultCache, "maxEntries", 10);
+    ReflectionTestUtils.setField(resultCache, "ttlMs", 60_000L);
+    resultCache.registerMetrics();
+    return new DispatchSolver(executor, new GreedyVrpSolver(), resultCache, new VrpSolverProvider(List.of()));
+  }
+
+  // jobs the three-wheelers left are handed to the trucks, only the last call's leftovers stay unassigned
+  static Result solve(DispatchSolver dispatchSolver, CategoryProblem problem, VrpSolver solver) {
+    long startedAt = System.currentTimeMillis();
+    List<VrpResponse> responses = dispatchSolver.solveCategory(problem, solver).getResponses();
+    long elapsed = System.currentTimeMillis() - startedAt;
+
+    double distance = responses.stream()
+        .flatMap(response -> response.getRoutes().stream())
+        .mapToDouble(VrpRoute::getDistance)
+        .sum();
+    int unassigned = responses.get(responses.size() - 1).getUnassigned().size();
+    return new Result(elapsed, distance, unassigned, responses.size());
+  }
+
+  static CategoryProblem problem(TrashCategory category, List<VrpJob> jobs, List<VrpVehicle> threeWheelers,
+                                 List<VrpDepot> threeWheelerDepots) {
+    return problem(category, jobs, threeWheelers, threeWheelerDepots, List.of(), List.of());
+  }
+
+  static CategoryProblem problem(TrashCategory category, List<VrpJob> jobs, List<VrpVehicle> threeWheelers,
+                                 List<VrpDepot> threeWheelerDepots, List<VrpVehicle> compactorTrucks,
+                                 List<VrpDepot> compactorTruckDepots) {
+    return CategoryProblem.builder()
+        .category(category)
+        .jobs(jobs)
+        .threeWheelers(threeWheelers)
+        .threeWheelerDepots(threeWheelerDepots)
+        .threeWheelerRoutes(List.of())
+        .compactorTrucks(compactorTrucks)
+        .compactorTruckDepots(compactorTruckDepots)
+        .compactorTruckRoutes(List.of())
+        .build();
+  }
+
+  static VrpDepot depot(String id, double lat, double lon) {
+    return VrpDepot.builder().id(id).location(List.of(lat, lon)).build();
+  }
+
+  // count vehicles parked at the depot, ids are prefix-0, prefix-1, ...
+  static List<VrpVehicle> vehicles(String prefix, VrpDepot depot, int count, double capacity, String profile) {
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      vehicles.add(VrpVehicle.builder().id(prefix + "-" + i).depotId(depot.getId()).location(depot.getLocation())
+          .capacity(capacity).profile(profile).build());
+    }
+    return vehicles;
+  }
+
+  static VrpJob job(String id, double lat, double lon, double demand) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(demand).status("pending").build();
+  }
+
+  // pending jobs of demand 10 spread uniformly over the box with south-west corner (lat, lon), random ids so jobs
+  // drawn from the same generator never collide
+  static List<VrpJob> jobs(Random random, int count, double lat, double lon, double latSpan, double lonSpan) {
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      jobs.add(job("job-" + random.nextLong(), lat + random.nextDouble() * latSpan, lon + random.nextDouble() * lonSpan,
+          10.0));
+    }
+    return jobs;
+  }
+}
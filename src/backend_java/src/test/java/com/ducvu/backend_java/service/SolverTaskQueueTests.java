@@ -0,0 +1,231 @@
+package com.ducvu.backend_java.service;
+
+import com.ducvu.backend_java.model.*;
+import com.ducvu.backend_java.repository.SolverTaskRepository;
+import com.ducvu.backend_java.solver.GreedyVrpSolver;
+import com.ducvu.backend_java.solver.SolverResultCache;
+import com.ducvu.backend_java.solver.VrpSolverProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// several nodes' workers draining one queue: every task is solved once, the coordinator gets every category back,
+// a crashed worker's lease is taken over and its late result is dropped
+class SolverTaskQueueTests {
+  private static final int WORKERS = 3;
+
+  private final TaskTable table = new TaskTable();
+  private final TransactionTemplate transactionTemplate =
+      new TransactionTemplate(mock(PlatformTransactionManager.class));
+  private final ExecutorService solverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private final List<ExecutorService> workerExecutors = new ArrayList<>();
+  private DispatchSolver dispatchSolver;
+  private SolverTaskQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    dispatchSolver = spy(new DispatchSolver(solverExecutor, new GreedyVrpSolver(),
+        new SolverResultCache(new SimpleMeterRegistry()),
+        new VrpSolverProvider(List.of())));
+    queue = new SolverTaskQueue(table.repository, dispatchSolver, transactionTemplate, transactionTemplate);
+    ReflectionTestUtils.setField(queue, "pollMs", 10L);
+  }
+
+  @AfterEach
+  void tearDown() {
+    workerExecutors.forEach(ExecutorService::shutdownNow);
+    solverExecutor.close();
+  }
+
+  @Test
+  void workersOfSeveralNodesSolveEveryTaskOnce() throws Exception {
+    List<SolverWorker> workers = new ArrayList<>();
+    for (int i = 0; i < WORKERS; i++) {
+      workers.add(worker());
+    }
+    ScheduledExecutorService polling = Executors.newScheduledThreadPool(WORKERS);
+    workers.forEach(worker -> polling.scheduleWithFixedDelay(worker::poll, 0, 5, TimeUnit.MILLISECONDS));
+
+    List<CategoryProblem> problems = Arrays.stream(TrashCategory.values()).map(SolverTaskQueueTests::problem).toList();
+    List<CategorySolution> solved = new CopyOnWriteArrayList<>();
+    List<CategorySolution> solutions = queue.solve(problems, new GreedyVrpSolver(), 10_000, false, solved::add);
+    polling.shutdownNow();
+
+    assertEquals(problems.size(), solutions.size());
+    for (int i = 0; i < problems.size(); i++) {
+      assertEquals(problems.get(i).getCategory(), solutions.get(i).getCategory());
+      assertFalse(solutions.get(i).isDegraded());
+      assertEquals(3, solutions.get(i).getResponses().get(0).getRoutes().get(0).getSteps().size());
+    }
+    assertEquals(problems.size(), solved.size());
+    assertEquals(problems.size(), table.claims.size(), "no task is claimed twice");
+    verify(dispatchSolver, times(problems.size())).solveCategories(any(), any(), anyLong(), anyBoolean(), any());
+    assertTrue(table.rows.isEmpty(), "the batch is removed once assembled");
+  }
+
+  @Test
+  void expiredLeaseIsTakenOverAndTheLateResultDropped() {
+    table.insert(task(TrashCategory.GENERAL, SolverTaskStatus.QUEUED, 0));
+    SolverWorker crashed = worker();
+    SolverWorker survivor = worker();
+
+    SolverTask first = crashed.claim().orElseThrow();
+    table.rows.get(first.getId()).setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+    SolverTask second = survivor.claim().orElseThrow();
+    assertEquals(first.getId(), second.getId());
+    assertEquals(2, second.getAttempts());
+
+    survivor.work(second);
+    crashed.work(first); // comes back after its lease ran out
+
+    SolverTask row = table.rows.get(first.getId());
+    assertEquals(SolverTaskStatus.COMPLETED, row.getStatus());
+    assertEquals(ReflectionTestUtils.getField(survivor, "workerId"), row.getLeaseOwner());
+  }
+
+  @Test
+  void taskThatKeepsLosingItsLeaseFails() {
+    SolverTask task = task(TrashCategory.GENERAL, SolverTaskStatus.RUNNING, 3);
+    task.setLeaseOwner("gone");
+    task.setLeaseExpiresAt(LocalDateTime.now().minusSeconds(1));
+    table.insert(task);
+
+    assertTrue(worker().claim().isEmpty());
+    assertEquals(SolverTaskStatus.FAILED, table.rows.get(task.getId()).getStatus());
+  }
+
+  @Test
+  void coordinatorSolvesLocallyWhenNoWorkerAnswers() {
+    List<CategoryProblem> problems = List.of(problem(TrashCategory.GENERAL), problem(TrashCategory.ORGANIC));
+
+    List<CategorySolution> solutions = queue.solve(problems, new GreedyVrpSolver(), 100, false, solution -> {});
+
+    assertEquals(2, solutions.size());
+    assertEquals(TrashCategory.ORGANIC, solutions.get(1).getCategory());
+    assertTrue(table.rows.isEmpty());
+  }
+
+  private SolverWorker worker() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    workerExecutors.add(executor);
+    VrpSolverProvider vrpSolverProvider = mock(VrpSolverProvider.class);
+    when(vrpSolverProvider.getSolver(any())).thenReturn(new GreedyVrpSolver());
+    SolverWorker worker = new SolverWorker(table.repository, dispatchSolver, vrpSolverProvider, executor,
+        transactionTemplate);
+    ReflectionTestUtils.setField(worker, "enabled", true);
+    ReflectionTestUtils.setField(worker, "threads", 2);
+    ReflectionTestUtils.setField(worker, "leaseMarginMs", 30_000L);
+    ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+    return worker;
+  }
+
+  private static SolverTask task(TrashCategory category, SolverTaskStatus status, int attempts) {
+    return SolverTask.builder()
+        .id(UUID.randomUUID().toString())
+        .batchId("batch")
+        .status(status)
+        .category(category)
+        .solver("greedy")
+        .budgetMs(1_000L)
+        .problem(problem(category))
+        .attempts(attempts)
+        .createdAt(LocalDateTime.now())
+        .build();
+  }
+
+  private static CategoryProblem problem(TrashCategory category) {
+    VrpDepot depot = VrpDepot.builder().id("depot-" + category).location(List.of(21.0, 105.8)).build();
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      jobs.add(VrpJob.builder().id(category + "-job-" + i).location(List.of(21.0 + i * 0.001, 105.801))
+          .demand(10.0).status("pending").build());
+    }
+    return CategoryProblem.builder()
+        .category(category)
+        .jobs(jobs)
+        .threeWheelers(List.of(VrpVehicle.builder().id(category + "-vehicle").depotId(depot.getId())
+            .location(depot.getLocation()).capacity(100.0).profile("driving-car").build()))
+        .threeWheelerDepots(List.of(depot))
+        .threeWheelerRoutes(List.of())
+        .compactorTrucks(List.of())
+        .compactorTruckDepots(List.of())
+        .compactorTruckRoutes(List.of())
+        .build();
+  }
+
+  // in-memory stand-in for the solver_tasks table: a claimed row stays locked until it is saved, other claims skip it
+  // like FOR UPDATE SKIP LOCKED, and saves check the version like @Version does
+  private static class TaskTable {
+    final Map<String, SolverTask> rows = new ConcurrentHashMap<>();
+    final List<String> claims = new CopyOnWriteArrayList<>();
+    private final Set<String> locked = new HashSet<>(); // guarded by this
+    final SolverTaskRepository repository = mock(SolverTaskRepository.class);
+
+    TaskTable() {
+      when(repository.claimNext(any())).thenAnswer(invocation -> claimNext(invocation.getArgument(0)));
+      when(repository.save(any())).thenAnswer(invocation -> save(invocation.getArgument(0)));
+      when(repository.saveAll(any())).thenAnswer(invocation -> {
+        List<SolverTask> saved = new ArrayList<>();
+        invocation.<Iterable<SolverTask>>getArgument(0).forEach(task -> saved.add(insert(task)));
+        return saved;
+      });
+      when(repository.findById(any())).thenAnswer(invocation ->
+          Optional.ofNullable(rows.get(invocation.<String>getArgument(0))).map(this::copy));
+      when(repository.findByBatchId(any())).thenAnswer(invocation -> rows.values().stream()
+          .filter(task -> task.getBatchId().equals(invocation.getArgument(0)))
+          .map(this::copy)
+          .toList());
+      doAnswer(invocation -> {
+        invocation.<Iterable<String>>getArgument(0).forEach(rows::remove);
+        return null;
+      }).when(repository).deleteAllById(any());
+    }
+
+    synchronized SolverTask insert(SolverTask task) {
+      task.setVersion(0L);
+      rows.put(task.getId(), copy(task));
+      return task;
+    }
+
+    private synchronized Optional<SolverTask> claimNext(LocalDateTime now) {
+      Optional<SolverTask> next = rows.values().stream()
+          .filter(task -> !locked.contains(task.getId()))
+          .filter(task -> task.getStatus() == SolverTaskStatus.QUEUED
+              || task.getStatus() == SolverTaskStatus.RUNNING && task.getLeaseExpiresAt().isBefore(now))
+          .min(Comparator.comparing(SolverTask::getCreatedAt));
+      next.ifPresent(task -> locked.add(task.getId()));
+      return next.map(this::copy);
+    }
+
+    private synchronized SolverTask save(SolverTask task) {
+      locked.remove(task.getId());
+      SolverTask row = rows.get(task.getId());
+      if (row == null || !Objects.equals(row.getVersion(), task.getVersion())) {
+        throw new ObjectOptimisticLockingFailureException(SolverTask.class, task.getId());
+      }
+      if (task.getStatus() == SolverTaskStatus.RUNNING && row.getStatus() == SolverTaskStatus.QUEUED) {
+        claims.add(task.getId());
+      }
+      task.setVersion(task.getVersion() + 1);
+      rows.put(task.getId(), copy(task));
+      return copy(task);
+    }
+
+    private SolverTask copy(SolverTask task) {
+      return task.toBuilder().build();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InsertionEngineTests {
+  private static final List<Double> DEPOT = List.of(21.00, 105.80);
+
+  private InsertionEngine engine;
+
+  @BeforeEach
+  void setUp() {
+    engine = new InsertionEngine();
+  }
+
+  @Test
+  void insertsBetweenNeighboursAfterCompletedSteps() {
+    // a loop north then east of the depot, the new job sits on the leg between the second and third stop
+    InsertionEngine.Candidate candidate = candidate("v1", 100.0, List.of(
+        step("a", 21.01, 105.80, "completed"),
+        step("b", 21.02, 105.80, "in_progress"),
+        step("c", 21.02, 105.82, "in_progress")));
+
+    InsertionEngine.Insertion insertion = engine.bestInsertion(List.of(candidate), job("new", 21.02, 105.81)).orElseThrow();
+
+    assertEquals(2, insertion.position());
+    assertEquals(0.0, insertion.addedKm(), 1e-6);
+  }
+
+  @Test
+  void neverInsertsBeforeCompletedSteps() {
+    InsertionEngine.Candidate candidate = candidate("v1", 100.0, List.of(
+        step("a", 21.02, 105.80, "completed"),
+        step("b", 21.03, 105.80, "in_progress")));
+
+    InsertionEngine.Insertion insertion = engine.bestInsertion(List.of(candidate), job("new", 21.01, 105.80)).orElseThrow();
+
+    assertTrue(insertion.position() >= 1);
+  }
+
+  @Test
+  void skipsRoutesWithoutCapacity() {
+    InsertionEngine.Candidate full = candidate("full", 15.0, List.of(step("a", 21.03, 105.80, "in_progress")));
+    InsertionEngine.Candidate far = candidate("far", 100.0, List.of(step("b", 21.20, 105.80, "in_progress")));
+
+    InsertionEngine.Insertion insertion = engine.bestInsertion(List.of(full, far), job("new", 21.03, 105.80)).orElseThrow();
+    assertEquals("far", insertion.candidate().vehicle().getId());
+
+    assertTrue(engine.bestInsertion(List.of(full), job("new", 21.03, 105.80)).isEmpty());
+  }
+
+  @Test
+  void applyGrowsDistanceByTheDetourAndLeavesTheGeometryToTheCaller() {
+    InsertionEngine.Candidate candidate = candidate("v1", 100.0, List.of(
+        step("a", 21.02, 105.80, "in_progress"),
+        step("b", 21.02, 105.82, "in_progress")));
+    VrpJob job = job("new", 21.021, 105.81);
+
+    InsertionEngine.Insertion insertion = engine.bestInsertion(List.of(candidate), job).orElseThrow();
+
+    VrpRoute route = engine.apply(insertion, job, 10.0, 30.0);
+    assertEquals(10.0 + insertion.addedKm(), route.getDistance(), 1e-9);
+    assertEquals(30.0 + insertion.addedKm() * 3.0, route.getDuration(), 1e-9); // at the route's own pace
+    assertEquals(List.of("a", "new", "b"), route.getSteps().stream().map(VrpJob::getId).toList());
+    assertNull(route.getGeometry());
+  }
+
+  private static InsertionEngine.Candidate candidate(String vehicleId, double capacity, List<VrpJob> steps) {
+    VrpVehicle vehicle = VrpVehicle.builder().id(vehicleId).depotId("depot").location(DEPOT)
+        .capacity(capacity).profile("driving-car").build();
+    return new InsertionEngine.Candidate(vehicle, DEPOT, steps);
+  }
+
+  private static VrpJob step(String id, double lat, double lon, String status) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(10.0).status(status).build();
+  }
+
+  private static VrpJob job(String id, double lat, double lon) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(10.0).status("pending").build();
+  }
+}
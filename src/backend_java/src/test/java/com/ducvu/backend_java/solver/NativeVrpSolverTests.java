@@ -0,0 +1,127 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeVrpSolverTests {
+  private NativeVrpSolver solver;
+
+  @BeforeEach
+  void setUp() {
+    solver = new NativeVrpSolver();
+    ReflectionTestUtils.setField(solver, "timeLimitMs", 500L);
+  }
+
+  @Test
+  void assignsEveryJobWithinCapacity() {
+    Random random = new Random(42);
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      jobs.add(job("j" + i, 21.0 + random.nextDouble() * 0.1, 105.8 + random.nextDouble() * 0.1, 10.0));
+    }
+    List<VrpDepot> depots = List.of(depot("d1", 21.02, 105.82), depot("d2", 21.08, 105.88));
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      VrpDepot depot = depots.get(i % 2);
+      vehicles.add(vehicle("v" + i, depot, 300.0));
+    }
+
+    VrpResponse response = solver.solve(VrpRequest.builder()
+        .jobs(jobs)
+        .depots(depots)
+        .vehicles(vehicles)
+        .routes(List.of())
+        .build());
+
+    assertTrue(response.getUnassigned().isEmpty());
+    Set<String> served = new HashSet<>();
+    for (VrpRoute route : response.getRoutes()) {
+      double load = route.getSteps().stream().mapToDouble(VrpJob::getDemand).sum();
+      assertTrue(load <= 300.0);
+      assertTrue(route.getDistance() > 0);
+      route.getSteps().forEach(step -> assertTrue(served.add(step.getId())));
+    }
+    assertEquals(200, served.size());
+  }
+
+  @Test
+  void keepsCompletedPrefixAndReportsOverflow() {
+    VrpDepot depot = depot("d1", 21.02, 105.82);
+    VrpVehicle vehicle = vehicle("v1", depot, 30.0);
+    VrpJob done = job("done", 21.03, 105.83, 10.0);
+    done.setStatus("completed");
+    VrpJob ongoing = job("ongoing", 21.04, 105.84, 10.0);
+    ongoing.setStatus("in_progress");
+    VrpRoute existing = VrpRoute.builder()
+        .vehicleId("v1")
+        .steps(List.of(done, ongoing))
+        .build();
+
+    VrpResponse response = solver.solve(VrpRequest.builder()
+        .jobs(List.of(job("new", 21.035, 105.835, 10.0), job("overflow", 21.05, 105.85, 10.0)))
+        .depots(List.of(depot))
+        .vehicles(List.of(vehicle))
+        .routes(List.of(existing))
+        .build());
+
+    assertEquals(1, response.getRoutes().size());
+    List<VrpJob> steps = response.getRoutes().get(0).getSteps();
+    assertEquals("done", steps.get(0).getId());
+    assertEquals(3, steps.size());
+    assertEquals(1, response.getUnassigned().size());
+  }
+
+  @Test
+  void warmStartKeepsLockedStepsAndStartsFromThePreviousPlan() {
+    VrpDepot depot = depot("d1", 21.00, 105.80);
+    VrpVehicle vehicle = vehicle("v1", depot, 100.0);
+    // the locked steps are in a poor order on purpose, the solver must not touch them
+    VrpJob far = job("far", 21.03, 105.80, 10.0);
+    far.setStatus("in_progress");
+    VrpJob near = job("near", 21.01, 105.80, 10.0);
+    near.setStatus("in_progress");
+    VrpRoute existing = VrpRoute.builder().vehicleId("v1").steps(List.of(far, near)).lockedSteps(2).build();
+
+    VrpJob a = job("a", 21.02, 105.81, 10.0);
+    VrpJob b = job("b", 21.02, 105.82, 10.0);
+    VrpJob gone = job("gone", 21.05, 105.85, 10.0);
+    VrpResponse response = solver.solve(VrpRequest.builder()
+        .jobs(List.of(a, b))
+        .depots(List.of(depot))
+        .vehicles(List.of(vehicle))
+        .routes(List.of(existing))
+        .initialRoutes(List.of(VrpRoute.builder().vehicleId("v1").steps(List.of(b, gone, a)).build()))
+        .build());
+
+    List<String> steps = response.getRoutes().get(0).getSteps().stream().map(VrpJob::getId).toList();
+    assertEquals(List.of("far", "near"), steps.subList(0, 2));
+    assertEquals(Set.of("a", "b"), Set.copyOf(steps.subList(2, 4)));
+    assertTrue(response.getUnassigned().isEmpty());
+  }
+
+  private static VrpJob job(String id, double lat, double lon, double demand) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(demand).status("pending").build();
+  }
+
+  private static VrpDepot depot(String id, double lat, double lon) {
+    return VrpDepot.builder().id(id).location(List.of(lat, lon)).build();
+  }
+
+  private static VrpVehicle vehicle(String id, VrpDepot depot, double capacity) {
+    return VrpVehicle.builder()
+        .id(id)
+        .depotId(depot.getId())
+        .location(depot.getLocation())
+        .capacity(capacity)
+        .profile("driving-car")
+        .build();
+  }
+}
@@ -0,0 +1,95 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.model.VrpDepot;
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemPartitionerTests {
+
+  @Test
+  void smallRequestsAreNotSplit() {
+    VrpRequest request = request(50, 4);
+    assertSame(request, ProblemPartitioner.split(request, 100).get(0));
+    assertEquals(1, ProblemPartitioner.split(request(500, 4), 0).size());
+  }
+
+  @Test
+  void everyJobAndVehicleLandsInExactlyOnePartition() {
+    VrpRequest request = request(1000, 12);
+    List<VrpRequest> partitions = ProblemPartitioner.split(request, 200);
+
+    assertTrue(partitions.size() >= 5, "partitions: " + partitions.size());
+    Set<String> jobs = new HashSet<>();
+    Set<String> vehicles = new HashSet<>();
+    for (VrpRequest partition : partitions) {
+      assertFalse(partition.getVehicles().isEmpty());
+      assertEquals(1, partition.getDepots().size());
+      String depotId = partition.getDepots().get(0).getId();
+      partition.getVehicles().forEach(v -> {
+        assertEquals(depotId, v.getDepotId());
+        assertTrue(vehicles.add(v.getId()));
+      });
+      partition.getJobs().forEach(j -> assertTrue(jobs.add(j.getId())));
+      assertTrue(partition.getJobs().size() <= 200, "jobs: " + partition.getJobs().size());
+      // a running route always travels with its vehicle
+      partition.getRoutes().forEach(r -> assertTrue(partition.getVehicles().stream().anyMatch(v -> v.getId().equals(r.getVehicleId()))));
+    }
+    assertEquals(1000, jobs.size());
+    assertEquals(12, vehicles.size());
+  }
+
+  @Test
+  void precomputedDepotDistancesAreUsedWhenPresent() {
+    VrpRequest request = request(1000, 12);
+    // distances stored with the orders send every job to d2, whatever its location
+    request.getJobs().forEach(job -> job.setDepotDistances(Map.of("d1", 50.0, "d2", 1.0)));
+
+    List<VrpRequest> partitions = ProblemPartitioner.split(request, 200);
+
+    int d1Jobs = partitions.stream()
+        .filter(partition -> partition.getDepots().get(0).getId().equals("d1"))
+        .mapToInt(partition -> partition.getJobs().size())
+        .sum();
+    assertEquals(0, d1Jobs);
+  }
+
+  @Test
+  void hilbertIndexVisitsNeighbouringCellsInOrder() {
+    // the 2 x 2 curve goes (0,0) -> (0,1) -> (1,1) -> (1,0)
+    assertEquals(0, ProblemPartitioner.hilbertIndex(2, 0, 0));
+    assertEquals(1, ProblemPartitioner.hilbertIndex(2, 0, 1));
+    assertEquals(2, ProblemPartitioner.hilbertIndex(2, 1, 1));
+    assertEquals(3, ProblemPartitioner.hilbertIndex(2, 1, 0));
+  }
+
+  // two depots with half the fleet each, jobs spread over the area around them, vehicle 0 has a running route
+  private static VrpRequest request(int jobCount, int vehicleCount) {
+    Random random = new Random(7);
+    List<VrpDepot> depots = List.of(
+        VrpDepot.builder().id("d1").location(List.of(21.00, 105.80)).build(),
+        VrpDepot.builder().id("d2").location(List.of(21.10, 105.90)).build());
+    List<VrpVehicle> vehicles = new ArrayList<>();
+    for (int i = 0; i < vehicleCount; i++) {
+      VrpDepot depot = depots.get(i % 2);
+      vehicles.add(VrpVehicle.builder().id("v" + i).depotId(depot.getId()).location(depot.getLocation())
+          .capacity(1000.0).profile("driving-car").build());
+    }
+    List<VrpJob> jobs = new ArrayList<>();
+    for (int i = 0; i < jobCount; i++) {
+      jobs.add(VrpJob.builder().id("j" + i)
+          .location(List.of(20.98 + random.nextDouble() * 0.14, 105.78 + random.nextDouble() * 0.14))
+          .demand(10.0).status("pending").build());
+    }
+    VrpRoute running = VrpRoute.builder().vehicleId("v0")
+        .steps(List.of(VrpJob.builder().id("s0").location(List.of(21.01, 105.81)).demand(10.0).status("in_progress").build()))
+        .build();
+    return VrpRequest.builder().jobs(jobs).vehicles(vehicles).depots(depots).routes(List.of(running)).build();
+  }
+}
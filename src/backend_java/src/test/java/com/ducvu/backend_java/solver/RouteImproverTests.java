@@ -0,0 +1,109 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.model.VrpDepot;
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteImproverTests {
+  private static final List<Double> DEPOT = List.of(21.00, 105.80);
+
+  @Test
+  void untanglesACrossingRouteAndKeepsCompletedStopsFirst() {
+    // a square driven corner to opposite corner, the completed stop must stay where it is
+    VrpRequest request = request(
+        List.of(vehicle("v1", 100.0, 21.00, 105.80)),
+        List.of(route("v1",
+            step("done", 21.00, 105.81, "completed"),
+            step("a", 21.01, 105.81, "in_progress"),
+            step("b", 21.01, 105.80, "in_progress"),
+            step("c", 21.02, 105.81, "in_progress"),
+            step("d", 21.02, 105.80, "in_progress"))));
+
+    RouteImprover.Result result = RouteImprover.improve(request, deadline(), false);
+
+    assertTrue(result.costAfter() < result.costBefore());
+    assertTrue(result.gain() > 0.0);
+    List<String> stops = ids(result.response().getRoutes().get(0));
+    assertEquals("done", stops.get(0));
+    assertEquals(5, stops.size());
+  }
+
+  @Test
+  void movesOpenStopsToACloserVehicleOnlyWhenTransfersAreAllowed() {
+    // v1 drives far north for one stop that sits right next to v2's stops
+    VrpRequest request = request(
+        List.of(vehicle("v1", 100.0, 21.00, 105.81), vehicle("v2", 100.0, 21.05, 105.805)),
+        List.of(
+            route("v1", step("a", 21.00, 105.82, "in_progress"), step("far", 21.05, 105.80, "in_progress")),
+            route("v2", step("b", 21.05, 105.801, "in_progress"), step("c", 21.051, 105.80, "in_progress"))));
+
+    RouteImprover.Result pinned = RouteImprover.improve(request, deadline(), false);
+    assertEquals(List.of("a", "far"), ids(routeOf(pinned, "v1")));
+
+    RouteImprover.Result result = RouteImprover.improve(request, deadline(), true);
+    assertEquals(List.of("a"), ids(routeOf(result, "v1")));
+    assertTrue(ids(routeOf(result, "v2")).contains("far"));
+    assertTrue(result.costAfter() < pinned.costAfter());
+  }
+
+  @Test
+  void neverMovesStopsOntoAFullVehicle() {
+    VrpRequest request = request(
+        List.of(vehicle("v1", 100.0, 21.00, 105.81), vehicle("v2", 20.0, 21.05, 105.805)),
+        List.of(
+            route("v1", step("a", 21.00, 105.82, "in_progress"), step("far", 21.05, 105.80, "in_progress")),
+            route("v2", step("b", 21.05, 105.801, "in_progress"), step("c", 21.051, 105.80, "in_progress"))));
+
+    RouteImprover.Result result = RouteImprover.improve(request, deadline(), true);
+
+    // v2 may hand its stops to v1 but never takes a third one
+    assertTrue(ids(routeOf(result, "v2")).size() <= 2);
+    assertEquals(4, ids(routeOf(result, "v1")).size() + ids(routeOf(result, "v2")).size());
+    assertTrue(result.costAfter() <= result.costBefore() + 1e-9);
+  }
+
+  private static long deadline() {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+  }
+
+  private static VrpRequest request(List<VrpVehicle> vehicles, List<VrpRoute> routes) {
+    return VrpRequest.builder()
+        .depots(List.of(VrpDepot.builder().id("depot").location(DEPOT).build()))
+        .vehicles(vehicles)
+        .routes(routes)
+        .jobs(List.of())
+        .build();
+  }
+
+  private static VrpVehicle vehicle(String id, double capacity, double lat, double lon) {
+    return VrpVehicle.builder().id(id).depotId("depot").location(List.of(lat, lon))
+        .capacity(capacity).profile("driving-car").build();
+  }
+
+  private static VrpRoute route(String vehicleId, VrpJob... steps) {
+    return VrpRoute.builder().vehicleId(vehicleId).steps(List.of(steps)).build();
+  }
+
+  private static VrpJob step(String id, double lat, double lon, String status) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(10.0).status(status).build();
+  }
+
+  private static VrpRoute routeOf(RouteImprover.Result result, String vehicleId) {
+    return result.response().getRoutes().stream()
+        .filter(route -> route.getVehicleId().equals(vehicleId))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static List<String> ids(VrpRoute route) {
+    return route.getSteps().stream().map(VrpJob::getId).toList();
+  }
+}
@@ -0,0 +1,146 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.dto.request.VrpRequest;
+import com.ducvu.backend_java.dto.response.VrpResponse;
+import com.ducvu.backend_java.model.VrpDepot;
+import com.ducvu.backend_java.model.VrpJob;
+import com.ducvu.backend_java.model.VrpRoute;
+import com.ducvu.backend_java.model.VrpVehicle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverResultCacheTests {
+  private SimpleMeterRegistry meterRegistry;
+  private SolverResultCache cache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new SolverResultCache(meterRegistry);
+    ReflectionTestUtils.setField(cache, "maxEntries", 2);
+    ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+    cache.registerMetrics();
+  }
+
+  @Test
+  void keyIgnoresOrderingTinyCoordinateNoiseAndTimeLimit() {
+    VrpJob a = job("a", 21.000001);
+    VrpJob b = job("b", 21.1);
+    VrpRequest request = request(List.of(a, b), 1000L);
+    VrpRequest reordered = request(List.of(b, job("a", 21.000002)), 250L);
+
+    assertEquals(SolverResultCache.key("remote", request), SolverResultCache.key("remote", reordered));
+    assertNotEquals(SolverResultCache.key("remote", request), SolverResultCache.key("native", request));
+    assertNotEquals(SolverResultCache.key("remote", request),
+        SolverResultCache.key("remote", request(List.of(a, job("b", 21.2)), 1000L)));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedAndCountsHitsAndMisses() {
+    VrpResponse response = VrpResponse.builder().routes(List.of()).unassigned(List.of()).build();
+    cache.put("first", null, response);
+    cache.put("second", null, response);
+    assertTrue(cache.get("first", null).isPresent()); // second is now the eldest
+    cache.put("third", null, response);
+
+    assertTrue(cache.get("second", null).isEmpty());
+    assertTrue(cache.get("third", null).isPresent());
+    assertEquals(2, meterRegistry.get("vrp.cache.requests").tag("result", "hit").counter().count());
+    assertEquals(1, meterRegistry.get("vrp.cache.requests").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  void expiredEntriesAreMisses() {
+    ReflectionTestUtils.setField(cache, "ttlMs", 0L);
+    cache.put("key", null, VrpResponse.builder().build());
+
+    assertTrue(cache.get("key", null).isEmpty());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void rushedResultsOnlyAnswerCallsWithTheSameOrASmallerBudget() {
+    cache.put("key", 100L, response("rushed"));
+
+    assertTrue(cache.get("key", null).isEmpty());
+    assertTrue(cache.get("key", 2000L).isEmpty());
+    assertEquals("rushed", cache.get("key", 50L).orElseThrow().getRoutes().get(0).getVehicleId());
+
+    cache.put("key", null, response("full"));
+    cache.put("key", 100L, response("rushed again")); // does not replace the better one
+    assertEquals("full", cache.get("key", 2000L).orElseThrow().getRoutes().get(0).getVehicleId());
+  }
+
+  @Test
+  void budgetsAFewMillisecondsApartShareAnEntry() {
+    cache.put("key", 59_950L, response("first dispatch"));
+
+    assertTrue(cache.get("key", 59_998L).isPresent());
+    assertTrue(cache.get("key", 70_000L).isEmpty());
+  }
+
+  @Test
+  void nativeBudgetsAreCappedByItsOwnLimit() {
+    NativeVrpSolver solver = new NativeVrpSolver();
+    ReflectionTestUtils.setField(solver, "timeLimitMs", 2000L);
+
+    assertEquals(2000L, solver.timeLimitMs(59_998L));
+    assertEquals(2000L, solver.timeLimitMs(null));
+    assertEquals(500L, solver.timeLimitMs(500L));
+  }
+
+  @Test
+  void degradedResultsAreNotCached() {
+    VrpResponse degraded = response("fallback");
+    degraded.setDegraded(true);
+    cache.put("key", null, degraded);
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void hitsAreCopiesCallersCanEdit() {
+    VrpResponse response = response("vehicle");
+    cache.put("key", null, response);
+    response.getRoutes().get(0).getSteps().clear(); // the caller keeps editing its response
+
+    VrpResponse hit = cache.get("key", null).orElseThrow();
+    assertEquals(1, hit.getRoutes().get(0).getSteps().size());
+    hit.getRoutes().get(0).getSteps().get(0).setStatus("completed");
+    hit.getUnassigned().clear();
+
+    VrpResponse again = cache.get("key", null).orElseThrow();
+    assertEquals("pending", again.getRoutes().get(0).getSteps().get(0).getStatus());
+    assertEquals(1, again.getUnassigned().size());
+  }
+
+  private static VrpResponse response(String vehicleId) {
+    return VrpResponse.builder()
+        .routes(new ArrayList<>(List.of(VrpRoute.builder().vehicleId(vehicleId)
+            .steps(new ArrayList<>(List.of(job("a", 21.0)))).distance(1.0).build())))
+        .unassigned(new ArrayList<>(List.of(job("b", 21.1))))
+        .build();
+  }
+
+  private static VrpRequest request(List<VrpJob> jobs, Long timeLimitMs) {
+    return VrpRequest.builder()
+        .depots(List.of(VrpDepot.builder().id("depot").location(List.of(21.0, 105.8)).build()))
+        .vehicles(List.of(VrpVehicle.builder().id("vehicle").depotId("depot").location(List.of(21.0, 105.8))
+            .capacity(100.0).profile("driving-car").build()))
+        .routes(List.of())
+        .jobs(jobs)
+        .timeLimitMs(timeLimitMs)
+        .build();
+  }
+
+  private static VrpJob job(String id, double lat) {
+    return VrpJob.builder().id(id).location(List.of(lat, 105.8)).demand(10.0).status("pending").build();
+  }
+}
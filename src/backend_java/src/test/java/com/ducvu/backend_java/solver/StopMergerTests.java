@@ -0,0 +1,49 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.model.VrpJob;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopMergerTests {
+
+  @Test
+  void mergesNeighboursIntoOneStopWithSummedDemand() {
+    // a and b are about 5 m apart, c is about 1 km away
+    List<VrpJob> jobs = List.of(job("a", 21.00000, 105.80000, 10.0), job("c", 21.01, 105.80, 10.0),
+        job("b", 21.00004, 105.80001, 15.0));
+
+    List<VrpJob> merged = StopMerger.merge(jobs, 20, 100.0);
+
+    assertEquals(2, merged.size());
+    VrpJob stop = merged.get(0);
+    assertEquals(List.of("a", "b"), StopMerger.memberIds(stop.getId()));
+    assertEquals(25.0, stop.getDemand());
+    assertEquals(21.00002, stop.getLocation().get(0), 1e-9);
+    assertSame(jobs.get(1), merged.get(1));
+    assertEquals(List.of("c"), StopMerger.memberIds(merged.get(1).getId()));
+  }
+
+  @Test
+  void neverExceedsTheCapacity() {
+    List<VrpJob> jobs = List.of(job("a", 21.0, 105.8, 40.0), job("b", 21.0, 105.8, 40.0), job("c", 21.0, 105.8, 40.0));
+
+    List<VrpJob> merged = StopMerger.merge(jobs, 20, 100.0);
+
+    assertEquals(2, merged.size());
+    merged.forEach(stop -> assertTrue(stop.getDemand() <= 100.0));
+    assertEquals(3, merged.stream().mapToInt(stop -> StopMerger.memberIds(stop.getId()).size()).sum());
+  }
+
+  @Test
+  void zeroRadiusKeepsJobsAsTheyAre() {
+    List<VrpJob> jobs = List.of(job("a", 21.0, 105.8, 10.0), job("b", 21.0, 105.8, 10.0));
+    assertSame(jobs, StopMerger.merge(jobs, 0, 100.0));
+  }
+
+  private static VrpJob job(String id, double lat, double lon, double demand) {
+    return VrpJob.builder().id(id).location(List.of(lat, lon)).demand(demand).status("pending").build();
+  }
+}
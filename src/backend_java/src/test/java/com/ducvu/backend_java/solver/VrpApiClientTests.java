@@ -0,0 +1,95 @@
+package com.ducvu.backend_java.solver;
+
+import com.ducvu.backend_java.config.ClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs the vrp client against a local http server that hangs or fails on purpose
+class VrpApiClientTests {
+  private HttpServer server;
+  private PoolingHttpClientConnectionManager connectionManager;
+  private CloseableHttpClient httpClient;
+  private SimpleMeterRegistry meterRegistry;
+  private VrpApiClient client;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+
+    ClientConfig config = new ClientConfig();
+    connectionManager = config.vrpConnectionManager(4, 1000);
+    httpClient = config.vrpHttpClient(connectionManager);
+    meterRegistry = new SimpleMeterRegistry();
+
+    client = new VrpApiClient(httpClient, connectionManager, meterRegistry);
+    ReflectionTestUtils.setField(client, "callTimeoutMs", 500L);
+    ReflectionTestUtils.setField(client, "poolTimeoutMs", 500L);
+    ReflectionTestUtils.setField(client, "maxRetries", 2);
+    ReflectionTestUtils.setField(client, "retryBackoffMs", 10L);
+    ReflectionTestUtils.setField(client, "gzip", true);
+    client.registerMetrics();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.stop(0);
+    httpClient.close();
+  }
+
+  @Test
+  void hungSolverIsCutOffAtTheDeadline() {
+    server.createContext("/api/vrp", exchange -> {
+      try {
+        Thread.sleep(5000);
+      } catch (InterruptedException ignored) {
+      }
+      exchange.close();
+    });
+
+    long startedAt = System.currentTimeMillis();
+    RuntimeException e = assertThrows(RuntimeException.class, () -> client.post(url(), "{}".getBytes(), true));
+    long elapsed = System.currentTimeMillis() - startedAt;
+
+    assertEquals("Vrp api call timed out", e.getMessage());
+    assertTrue(elapsed < 2000, "took " + elapsed + " ms");
+    assertEquals(0, connectionManager.getTotalStats().getLeased());
+  }
+
+  @Test
+  void unavailableSolverIsRetried() {
+    AtomicInteger calls = new AtomicInteger();
+    server.createContext("/api/vrp", exchange -> {
+      byte[] body = "{\"routes\":[]}".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(calls.incrementAndGet() == 1 ? 503 : 200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+
+    VrpApiClient.Response response = client.post(url(), "{}".getBytes(), true);
+
+    assertEquals(200, response.status());
+    assertEquals(2, calls.get());
+    assertEquals(1.0, meterRegistry.get("vrp.client.retries").counter().count());
+    assertNotNull(meterRegistry.find("vrp.client.requests").tag("outcome", "200").timer());
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getAddress().getPort() + "/api/vrp";
+  }
+}
@@ -6,6 +6,7 @@ from api_v2 import Route, Job, Depot, Vehicle
 from typing import List, Dict
 import copy
 import random
+import time
 from collections import defaultdict
 
 
@@ -142,20 +143,30 @@ def utils(depots: List[Depot], routes: List[Route], vehicles: List[Vehicle], job
 
 
 
-def alns_optimize(state: VRPState) -> VRPState:
+# stops at the wall-clock deadline or when the wrapped criterion does, whichever comes first
+class StopAtDeadline:
+  def __init__(self, stop, deadline: float):
+    self.stop = stop
+    self.deadline = deadline
+
+  def __call__(self, rng, best, current) -> bool:
+    return time.monotonic() >= self.deadline or self.stop(rng, best, current)
+
+
+def alns_optimize(state: VRPState, time_limit_ms: int = None, num_iterations: int = 100) -> VRPState:
   alns = ALNS()
 
   alns.add_destroy_operator(random_removal)
   alns.add_repair_operator(greedy_repair)
 
-  num_iterations = 100
-
   init = state.copy()
   select = RouletteWheel([25, 5, 1, 0], 0.8, 1, 1)
   accept = RecordToRecordTravel.autofit(
     init.objective(), 0.02, 0, num_iterations
   )
   stop = MaxIterations(num_iterations)
+  if time_limit_ms is not None:
+    stop = StopAtDeadline(stop, time.monotonic() + time_limit_ms / 1000)
 
   result = alns.iterate(init, select, accept, stop)
   solution: VRPState = result.best_state
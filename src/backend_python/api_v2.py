@@ -1,11 +1,14 @@
+import gzip
 import logging
-from typing import List, Literal, Optional
+from typing import Callable, List, Literal, Optional
 
 from dotenv import load_dotenv
-from fastapi import FastAPI, HTTPException, Request
+from fastapi import FastAPI, HTTPException, Request, Response
 from fastapi.exceptions import RequestValidationError
 from fastapi.responses import JSONResponse
 from fastapi.middleware.cors import CORSMiddleware
+from fastapi.middleware.gzip import GZipMiddleware
+from fastapi.routing import APIRoute
 from pydantic import BaseModel
 import uvicorn
 
@@ -51,6 +54,7 @@ class Route(BaseModel):
   distance: Optional[float]
   duration: Optional[float]
   geometry: Optional[Geometry]
+  locked_steps: Optional[int] = None # leading steps to keep as they are, completed steps are always kept
 
   def __str__(self):
     return (f"Route(vehicle_id='{self.vehicle_id}', "
@@ -63,18 +67,104 @@ class RoutingRequest(BaseModel):
   vehicles: List[Vehicle]
   routes: Optional[List[Route]] # present if dynamic request
   jobs: List[Job]
+  initial_routes: Optional[List[Route]] = None # previous plan of the jobs, placed behind the locked steps before optimizing
+  time_limit_ms: Optional[int] = None # wall-clock budget of the solve, none means the solver's own iteration count
 
 class RoutingResponse(BaseModel):
   routes: List[Route]
   unassigned: List[Job]
 
+# columnar form of RoutingRequest sent by the backend, coordinates are flat [lat, lon, lat, lon, ...] arrays
+# route steps of route i are step rows route_offsets[i] .. route_offsets[i + 1]
+class CompactRoutingRequest(BaseModel):
+  depot_ids: List[str]
+  depot_coords: List[float]
+  vehicle_ids: List[str]
+  vehicle_depot_ids: List[str]
+  vehicle_coords: List[float]
+  vehicle_capacities: List[float]
+  vehicle_profiles: List[Literal["driving-car", "driving-hgv"]]
+  job_ids: List[str]
+  job_coords: List[float]
+  job_demands: List[float]
+  job_statuses: List[Literal["completed", "in_progress", "pending"]]
+  route_vehicle_ids: List[str] = []
+  route_offsets: List[int] = [0]
+  step_ids: List[str] = []
+  step_coords: List[float] = []
+  step_demands: List[float] = []
+  step_statuses: List[Literal["completed", "in_progress", "pending"]] = []
+  route_locked_steps: List[int] = []
+  # previous plan, steps are job ids
+  initial_route_vehicle_ids: List[str] = []
+  initial_route_offsets: List[int] = [0]
+  initial_step_ids: List[str] = []
+  time_limit_ms: Optional[int] = None
+
+  def to_request(self) -> RoutingRequest:
+    def location(coords, i):
+      return [coords[2 * i], coords[2 * i + 1]]
+
+    def jobs(ids, coords, demands, statuses, start, end):
+      return [Job(id=ids[i], location=location(coords, i), demand=demands[i], status=statuses[i]) for i in range(start, end)]
+
+    job_rows = jobs(self.job_ids, self.job_coords, self.job_demands, self.job_statuses, 0, len(self.job_ids))
+    job_by_id = {job.id: job for job in job_rows}
+
+    return RoutingRequest(
+      depots=[Depot(id=d, location=location(self.depot_coords, i)) for i, d in enumerate(self.depot_ids)],
+      vehicles=[
+        Vehicle(id=v, depot_id=self.vehicle_depot_ids[i], location=location(self.vehicle_coords, i),
+                capacity=self.vehicle_capacities[i], profile=self.vehicle_profiles[i])
+        for i, v in enumerate(self.vehicle_ids)
+      ],
+      routes=[
+        Route(vehicle_id=v,
+              steps=jobs(self.step_ids, self.step_coords, self.step_demands, self.step_statuses, self.route_offsets[i], self.route_offsets[i + 1]),
+              distance=None, duration=None, geometry=None,
+              locked_steps=self.route_locked_steps[i] if i < len(self.route_locked_steps) else None)
+        for i, v in enumerate(self.route_vehicle_ids)
+      ],
+      jobs=job_rows,
+      initial_routes=[
+        Route(vehicle_id=v,
+              steps=[job_by_id[j] for j in self.initial_step_ids[self.initial_route_offsets[i]:self.initial_route_offsets[i + 1]] if j in job_by_id],
+              distance=None, duration=None, geometry=None)
+        for i, v in enumerate(self.initial_route_vehicle_ids)
+      ] or None,
+      time_limit_ms=self.time_limit_ms,
+    )
+
+
+# accepts gzip request bodies, responses are compressed by GZipMiddleware when the client accepts gzip
+class GzipRequest(Request):
+  async def body(self) -> bytes:
+    if not hasattr(self, "_body"):
+      body = await super().body()
+      if "gzip" in self.headers.getlist("Content-Encoding"):
+        body = gzip.decompress(body)
+      self._body = body
+    return self._body
+
+class GzipRoute(APIRoute):
+  def get_route_handler(self) -> Callable:
+    original_route_handler = super().get_route_handler()
+
+    async def custom_route_handler(request: Request) -> Response:
+      request = GzipRequest(request.scope, request.receive)
+      return await original_route_handler(request)
+
+    return custom_route_handler
+
 app = FastAPI()
+app.router.route_class = GzipRoute
 app.add_middleware(
   CORSMiddleware,
   allow_origins=["*"],
   allow_methods=["*"],
   allow_headers=["*"],
 )
+app.add_middleware(GZipMiddleware, minimum_size=1000)
 
 # api routes
 @app.exception_handler(RequestValidationError)
@@ -98,4 +188,10 @@ def solve_vrp(request: RoutingRequest):
   # logger.info(f"Incoming VRP request: {request}")
   solution = solve(request)
   # logger.info(f"Solver returned solution: {solution}")
-  return solution
\ No newline at end of file
+  return solution
+
+
+@app.post("/api/vrp/compact", response_model=RoutingResponse)
+def solve_vrp_compact(request: CompactRoutingRequest):
+  from solver import solve
+  return solve(request.to_request())
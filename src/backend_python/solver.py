@@ -3,6 +3,7 @@ import hygese as hgs
 import math
 import os
 import subprocess
+import time
 from api_v2 import Route, RoutingRequest, RoutingResponse, logger, Job, Geometry
 from alns_solver import VRPState, alns_optimize
 from typing import List, Dict, Tuple
@@ -505,7 +506,7 @@ from collections import defaultdict, Counter
 from ors import get_directions
 
 def solve(request: RoutingRequest):
-  if not request.routes:
+  if not request.routes and not request.initial_routes:
     return _solve_static_mdvrp(request)
   else:
     return _solve_dynamic_mdvrp(request)
@@ -556,12 +557,16 @@ def _solve_static_mdvrp(request:RoutingRequest):
 
 
 # dynamic solver
+COLD_START_ITERATIONS = 100
+WARM_START_ITERATIONS = 25
+
 def _solve_dynamic_mdvrp(request: RoutingRequest):
-  vehicle_id_to_route = {route.vehicle_id:route for route in request.routes}
+  started_at = time.monotonic()
+  vehicle_id_to_route = {route.vehicle_id:route for route in request.routes or []}
   depot_id_to_depot = {depot.id:depot for depot in request.depots}
   vehicle_id_to_depot = {vehicle.id:depot_id_to_depot[vehicle.depot_id] for vehicle in request.vehicles}
   vehicle_id_to_vehicle = {vehicle.id:vehicle for vehicle in request.vehicles}
-  all_routes = request.routes
+  all_routes = list(request.routes or [])
   job_id_to_job = {job.id:job for job in request.jobs} # hold unassigned jobs
 
   # compute current load of each route
@@ -571,12 +576,28 @@ def _solve_dynamic_mdvrp(request: RoutingRequest):
     load = sum(s.demand for s in route.steps)
     vehicle_id_to_load[vehicle_id] = load
 
-  for job in request.jobs:
+  # warm start: jobs of the previous plan go back behind the locked steps in their previous order
+  for initial in request.initial_routes or []:
+    vehicle = vehicle_id_to_vehicle.get(initial.vehicle_id)
+    if vehicle is None:
+      continue
+    for job in initial.steps:
+      if job.id not in job_id_to_job or vehicle_id_to_load[vehicle.id] + job.demand > vehicle.capacity:
+        continue
+      if vehicle.id not in vehicle_id_to_route:
+        new_route = Route(vehicle_id=vehicle.id, steps=[], distance=0.0, duration=0.0, geometry=None)
+        vehicle_id_to_route[vehicle.id] = new_route
+        all_routes.append(new_route)
+      vehicle_id_to_route[vehicle.id].steps.append(job)
+      vehicle_id_to_load[vehicle.id] += job.demand
+      del job_id_to_job[job.id]
+
+  for job in list(job_id_to_job.values()):
     # best insertion with capacity constraint in current active routes
     best_diff, best_route, best_pos, best_route_idx = float("inf"), None, None, -1
     for i, route in enumerate(all_routes):
       load = vehicle_id_to_load[route.vehicle_id]
-      vehicle = vehicle_id_to_vehicle[vehicle_id]
+      vehicle = vehicle_id_to_vehicle[route.vehicle_id]
       if load + job.demand > vehicle.capacity:
         continue
 
@@ -649,11 +670,12 @@ def _solve_dynamic_mdvrp(request: RoutingRequest):
 
   # build changeable jobs (jobs that aren't completed including those in progress and pending jobs)
   changeable_jobs = []
-  for route in request.routes:
-    for job in route.steps:
+  for route in request.routes or []:
+    remaining_steps, _ = find_remaining_route(route)
+    for job in remaining_steps:
       if job.status == "in_progress":
         changeable_jobs.append(job)
-  changeable_jobs.extend(request.jobs)
+  changeable_jobs.extend(job for job in request.jobs if job.id not in job_id_to_job)
 
   # alns
   initial_state = VRPState(
@@ -663,7 +685,13 @@ def _solve_dynamic_mdvrp(request: RoutingRequest):
     jobs=changeable_jobs,
     unassigned=unassigned
   )
-  updated_routes, unassigned = alns_optimize(initial_state)
+  # alns gets what is left of the budget after the insertion phase
+  time_limit_ms = None
+  if request.time_limit_ms is not None:
+    time_limit_ms = max(0, request.time_limit_ms - int((time.monotonic() - started_at) * 1000))
+  # a warm start already begins from the previous plan, a quarter of the iterations polishes it
+  num_iterations = WARM_START_ITERATIONS if request.initial_routes else COLD_START_ITERATIONS
+  updated_routes, unassigned = alns_optimize(initial_state, time_limit_ms, num_iterations)
 
   # alns state
   logger.info("Finished ALNS phase")
@@ -711,7 +739,8 @@ def _parse_static_request(request: RoutingRequest):
   # num_vehicles = [d.num_vehicles for d in request.depots]
   route_durations = [0.0]*num_depots
   service_times = [0.0]*num_customers
-  vehicle_loads = [request.vehicles[0].capacity]*num_depots # assuming homongenous capacity
+  # routes are homogeneous per depot, so a depot with a mixed fleet plans with its smallest vehicle
+  vehicle_loads = [min((v.capacity for v in request.vehicles if v.depot_id == d.id), default=0.0) for d in request.depots]
   return MDVRPInstance(
     customers,
     depots,
@@ -729,6 +758,7 @@ def find_remaining_route(route: Route):
   i = 0
   while i < len(steps) and steps[i].status == "completed":
     i += 1
+  i = max(i, min(route.locked_steps or 0, len(steps)))
 
   return steps[i:], i
 
@@ -0,0 +1,95 @@
+import os
+import time
+import unittest
+from unittest.mock import patch
+
+os.environ.setdefault("ORS_API_KEY", "test") # checked when ors is imported, no request is sent
+
+from api_v2 import Depot, Vehicle, Job, Route, RoutingRequest, Geometry
+import solver
+from alns_solver import StopAtDeadline
+
+
+def _directions(points, profile):
+  return Geometry(type="LineString", coordinates=[[lon, lat] for lat, lon in points]), 1.0, 1.0
+
+
+def _no_alns(state, time_limit_ms=None, num_iterations=100):
+  return state.routes, state.unassigned
+
+
+# ors and alns are patched out, only the warm start and insertion phases run
+@patch("solver.alns_optimize", side_effect=_no_alns)
+@patch("solver.get_directions", side_effect=_directions)
+class DynamicSolverTests(unittest.TestCase):
+  def _request(self, jobs, initial_routes, routes=None, time_limit_ms=None):
+    return RoutingRequest(
+      depots=[Depot(id="depot", location=[21.00, 105.80])],
+      vehicles=[
+        Vehicle(id="v1", depot_id="depot", location=[21.00, 105.80], capacity=100.0, profile="driving-car"),
+        Vehicle(id="v2", depot_id="depot", location=[21.00, 105.80], capacity=100.0, profile="driving-car"),
+      ],
+      routes=routes,
+      jobs=jobs,
+      initial_routes=initial_routes,
+      time_limit_ms=time_limit_ms,
+    )
+
+  def test_initial_routes_only_with_a_new_job(self, *_):
+    a = Job(id="a", location=[21.01, 105.81], demand=10.0, status="pending")
+    b = Job(id="b", location=[21.02, 105.81], demand=10.0, status="pending")
+    new = Job(id="new", location=[21.015, 105.81], demand=10.0, status="pending")
+    previous = Route(vehicle_id="v1", steps=[a, b], distance=None, duration=None, geometry=None)
+
+    response = solver.solve(self._request([a, b, new], [previous]))
+
+    self.assertEqual([], response.unassigned)
+    steps = {step.id for route in response.routes for step in route.steps}
+    self.assertEqual({"a", "b", "new"}, steps)
+    self.assertEqual(["v1"], [route.vehicle_id for route in response.routes])
+
+  def test_new_job_over_capacity_opens_another_vehicle(self, *_):
+    a = Job(id="a", location=[21.01, 105.81], demand=95.0, status="pending")
+    new = Job(id="new", location=[21.02, 105.81], demand=10.0, status="pending")
+    previous = Route(vehicle_id="v1", steps=[a], distance=None, duration=None, geometry=None)
+
+    response = solver.solve(self._request([a, new], [previous]))
+
+    self.assertEqual([], response.unassigned)
+    by_vehicle = {route.vehicle_id: [step.id for step in route.steps] for route in response.routes}
+    self.assertEqual({"v1": ["a"], "v2": ["new"]}, by_vehicle)
+
+  def test_alns_gets_what_is_left_of_the_time_limit(self, _directions, alns):
+    a = Job(id="a", location=[21.01, 105.81], demand=10.0, status="pending")
+    previous = Route(vehicle_id="v1", steps=[a], distance=None, duration=None, geometry=None)
+
+    solver.solve(self._request([a], [previous], time_limit_ms=5000))
+
+    time_limit_ms = alns.call_args.args[1]
+    self.assertTrue(0 < time_limit_ms <= 5000, time_limit_ms)
+
+  def test_warm_start_runs_fewer_alns_iterations(self, _directions, alns):
+    a = Job(id="a", location=[21.01, 105.81], demand=10.0, status="pending")
+    previous = Route(vehicle_id="v1", steps=[a], distance=None, duration=None, geometry=None)
+    running = Route(vehicle_id="v1", steps=[], distance=None, duration=None, geometry=None)
+
+    solver.solve(self._request([a], [previous]))
+    warm = alns.call_args.args[2]
+    solver.solve(self._request([a], None, routes=[running]))
+    cold = alns.call_args.args[2]
+
+    self.assertEqual(solver.WARM_START_ITERATIONS, warm)
+    self.assertEqual(solver.COLD_START_ITERATIONS, cold)
+    self.assertLess(warm, cold)
+
+
+class StopAtDeadlineTests(unittest.TestCase):
+  def test_stops_at_the_deadline_before_the_iterations_run_out(self):
+    never = lambda rng, best, current: False
+
+    self.assertFalse(StopAtDeadline(never, time.monotonic() + 60)(None, None, None))
+    self.assertTrue(StopAtDeadline(never, time.monotonic() - 1)(None, None, None))
+
+
+if __name__ == "__main__":
+  unittest.main()